@@ -3,14 +3,22 @@ package api;
 import com.google.gson.Gson;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
+import entities.Task;
+import enums.TaskStatus;
+import enums.TaskType;
 import interfaces.TaskManager;
 
 import java.io.IOException;
 import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import static enums.HttpStatusCode.*;
 
@@ -19,25 +27,83 @@ public abstract class BaseHttpHandler implements HttpHandler {
     protected final Gson gson;
 
     protected static final Charset DEFAULT_CHARSET = StandardCharsets.UTF_8;
+    protected static final String JSON_CONTENT_TYPE = "application/json;charset=utf-8";
 
     protected static final String PATH_DELIMITER = "/";
+    protected static final String QUERY_PARAMS_DELIMITER = "&";
+    protected static final String QUERY_VALUE_DELIMITER = "=";
+    protected static final String STATUS_QUERY_PARAM = "status";
     protected static final int ID_PATH_INDEX = 2;
     protected String[] pathParts;
 
+    private static final String ETAG_HEADER = "ETag";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String IF_NONE_MATCH_HEADER = "If-None-Match";
+    private static final String ACCEPT_ENCODING_HEADER = "Accept-Encoding";
+    private static final String VARY_HEADER = "Vary";
+    private final String etagPrefix;
+    private final int compressionThreshold;
+
     BaseHttpHandler(HttpTaskServer httpTaskServer) {
         this.taskManager = httpTaskServer.getTaskManager();
         this.gson = httpTaskServer.getGson();
+        this.etagPrefix = httpTaskServer.getInstanceTag();
+        this.compressionThreshold = httpTaskServer.getCompressionThreshold();
     }
 
     protected void sendText(HttpExchange httpExchange, String text, int statusCode) throws IOException {
-        httpExchange.getResponseHeaders().set("Content-Type", "application/json;charset=utf-8");
-        httpExchange.sendResponseHeaders(statusCode, 0);
-        try (OutputStream os = httpExchange.getResponseBody()) {
+        try (OutputStream os = openResponseBody(httpExchange, statusCode, JSON_CONTENT_TYPE)) {
             text = (text == null) ? "" : text;
             os.write(text.getBytes(DEFAULT_CHARSET));
         }
     }
 
+    // Сериализует ответ прямо в поток тела, не собирая JSON в строку - для больших списков
+    protected void sendJson(HttpExchange httpExchange, Object body, int statusCode) throws IOException {
+        try (Writer writer = new OutputStreamWriter(openResponseBody(httpExchange, statusCode, JSON_CONTENT_TYPE),
+                DEFAULT_CHARSET)) {
+            gson.toJson(body, writer);
+        }
+    }
+
+    // Тело ответа сжимается gzip, если клиент его принимает и ответ не меньше порога сервера
+    protected OutputStream openResponseBody(HttpExchange httpExchange, int statusCode, String contentType) {
+        httpExchange.getResponseHeaders().set("Content-Type", contentType);
+        httpExchange.getResponseHeaders().set(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+        return new NegotiatedResponseStream(httpExchange, statusCode, compressionThreshold, acceptsGzip(httpExchange));
+    }
+
+    // Разбирает Accept-Encoding с учётом весов: gzip;q=0 явно запрещает сжатие, «*» разрешает любую кодировку
+    private static boolean acceptsGzip(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst(ACCEPT_ENCODING_HEADER);
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean wildcardAccepted = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] nameAndParams = coding.split(";");
+            String name = nameAndParams[0].trim().toLowerCase();
+            boolean accepted = true;
+            for (int i = 1; i < nameAndParams.length; i++) {
+                String[] param = nameAndParams[i].trim().split(QUERY_VALUE_DELIMITER, 2);
+                if (param.length == 2 && param[0].trim().equals("q")) {
+                    try {
+                        accepted = Double.parseDouble(param[1].trim()) > 0;
+                    } catch (NumberFormatException ex) {
+                        accepted = false;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                return accepted;
+            }
+            if (name.equals("*")) {
+                wildcardAccepted = accepted;
+            }
+        }
+        return Boolean.TRUE.equals(wildcardAccepted);
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         sendText(exchange, gson.toJson(Map.of("error", "Entity not found")), NOT_FOUND.code());
     }
@@ -46,10 +112,53 @@ public abstract class BaseHttpHandler implements HttpHandler {
         sendText(exchange, gson.toJson(Map.of("error", "Entity has time conflict")), NOT_ACCEPTABLE.code());
     }
 
+    protected void sendBadRequest(HttpExchange exchange, String message) throws IOException {
+        sendText(exchange, gson.toJson(Map.of("error", message)), BAD_REQUEST.code());
+    }
+
     protected void sendServerError(HttpExchange exchange) throws IOException {
         sendText(exchange, gson.toJson(Map.of("error", "Internal Server Error")), INTERNAL_SERVER_ERROR.code());
     }
 
+    // Формирует ETag из версий, которые ведёт менеджер. Версии начинаются заново после перезапуска,
+    // поэтому в ETag входит метка экземпляра сервера - иначе старый ETag клиента мог бы совпасть с новым состоянием.
+    // ETag слабый: сжатое gzip и несжатое тело - разные байты одного представления, а сильный ETag обязан
+    // различать их. Какое тело отдано, определяет Accept-Encoding - поэтому ответы идут с Vary: Accept-Encoding.
+    protected String buildEtag(String resource, long... versions) {
+        StringBuilder etag = new StringBuilder(WEAK_ETAG_PREFIX).append('"').append(etagPrefix).append('-')
+                .append(resource);
+        for (long version : versions) {
+            etag.append('-').append(version);
+        }
+        return etag.append('"').toString();
+    }
+
+    // Выставляет ETag и, если у клиента уже актуальное представление, отвечает 304 без сериализации.
+    // Возвращает true, если ответ уже отправлен.
+    // If-None-Match сравнивается слабо - без учёта признака W/.
+    protected boolean sendNotModifiedIfMatches(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set(ETAG_HEADER, etag);
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst(IF_NONE_MATCH_HEADER);
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaqueTag = stripWeakPrefix(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = stripWeakPrefix(candidate.trim());
+            if (candidate.equals("*") || candidate.equals(opaqueTag)) {
+                exchange.getResponseHeaders().set(VARY_HEADER, ACCEPT_ENCODING_HEADER);
+                exchange.sendResponseHeaders(NOT_MODIFIED.code(), -1);
+                exchange.close();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeakPrefix(String etag) {
+        return etag.startsWith(WEAK_ETAG_PREFIX) ? etag.substring(WEAK_ETAG_PREFIX.length()) : etag;
+    }
+
     private void splitPathByParts(HttpExchange exchange) {
         String path = exchange.getRequestURI().getPath();
         pathParts = path.split(PATH_DELIMITER);
@@ -68,4 +177,43 @@ public abstract class BaseHttpHandler implements HttpHandler {
         int id = Integer.parseInt(pathParts[ID_PATH_INDEX]);
         return Optional.of(id);
     }
+
+    protected Optional<String> extractQueryParam(HttpExchange exchange, String name) {
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isBlank()) {
+            return Optional.empty();
+        }
+        for (String param : query.split(QUERY_PARAMS_DELIMITER)) {
+            String[] keyAndValue = param.split(QUERY_VALUE_DELIMITER, 2);
+            if (keyAndValue.length == 2 && URLDecoder.decode(keyAndValue[0], DEFAULT_CHARSET).equals(name)) {
+                return Optional.of(URLDecoder.decode(keyAndValue[1], DEFAULT_CHARSET));
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Отдаёт список всех сущностей типа, а при наличии параметра status - только выборку из индекса по статусам,
+    // не строя полную копию списка. Если коллекция не менялась с прошлого запроса клиента - 304.
+    protected void sendItemsFilteredByStatus(HttpExchange exchange, TaskType type,
+                                             Supplier<List<? extends Task>> allItemsSupplier) throws IOException {
+        String etag = buildEtag(type.name().toLowerCase(), taskManager.getCollectionVersion(type));
+        if (sendNotModifiedIfMatches(exchange, etag)) {
+            return;
+        }
+
+        Optional<String> statusParam = extractQueryParam(exchange, STATUS_QUERY_PARAM);
+        if (statusParam.isEmpty()) {
+            sendJson(exchange, allItemsSupplier.get(), OK.code());
+            return;
+        }
+
+        TaskStatus status;
+        try {
+            status = TaskStatus.valueOf(statusParam.get().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            sendBadRequest(exchange, String.format("Unknown status '%s'", statusParam.get()));
+            return;
+        }
+        sendJson(exchange, taskManager.getByStatus(type, status), OK.code());
+    }
 }
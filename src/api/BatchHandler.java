@@ -0,0 +1,182 @@
+package api;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+import com.sun.net.httpserver.HttpExchange;
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.HttpMethod;
+import enums.TaskType;
+import exceptions.NotFoundException;
+import exceptions.TaskIntersectionException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static enums.HttpMethod.POST;
+import static enums.HttpStatusCode.*;
+
+// Применяет массив операций создания, обновления и удаления в одной транзакции менеджера:
+// файловое хранилище перезаписывается один раз на весь пакет, а не на каждую операцию.
+// Операции независимы - ошибка одной не отменяет остальные, результат возвращается по каждой.
+public class BatchHandler extends BaseHttpHandler {
+    private static final Type OPERATIONS_TYPE = new TypeToken<List<BatchOperation>>() {
+    }.getType();
+
+    public BatchHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == POST) {
+                handleBatch(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+
+    private void handleBatch(HttpExchange exchange) throws IOException {
+        List<BatchOperation> operations;
+        try (InputStreamReader reader = new InputStreamReader(exchange.getRequestBody(), DEFAULT_CHARSET)) {
+            operations = gson.fromJson(reader, OPERATIONS_TYPE);
+        } catch (JsonParseException ex) {
+            sendBadRequest(exchange, "Request body must be an array of operations");
+            return;
+        }
+        if (operations == null) {
+            sendBadRequest(exchange, "Request body must be an array of operations");
+            return;
+        }
+
+        List<BatchOperationResult> results = new ArrayList<>(operations.size());
+        // Метки созданных в пакете сущностей -> их id
+        Map<String, Integer> refsToIds = new HashMap<>();
+        taskManager.runInTransaction(() -> {
+            for (int i = 0; i < operations.size(); i++) {
+                results.add(applyOperation(i, operations.get(i), refsToIds));
+            }
+        });
+        sendJson(exchange, results, OK.code());
+    }
+
+    private BatchOperationResult applyOperation(int index, BatchOperation operation, Map<String, Integer> refsToIds) {
+        if (operation == null || operation.getOp() == null || operation.getType() == null) {
+            return BatchOperationResult.failure(index, BAD_REQUEST.code(), "Fields 'op' and 'type' are required");
+        }
+        TaskType type;
+        try {
+            type = TaskType.valueOf(operation.getType().toUpperCase());
+        } catch (IllegalArgumentException ex) {
+            return BatchOperationResult.failure(index, BAD_REQUEST.code(),
+                    String.format("Unknown type '%s'", operation.getType()));
+        }
+
+        try {
+            return switch (operation.getOp().toLowerCase()) {
+                case "create" -> create(index, type, operation, refsToIds);
+                case "update" -> update(index, type, operation);
+                case "delete" -> delete(index, type, operation);
+                default -> BatchOperationResult.failure(index, BAD_REQUEST.code(),
+                        String.format("Unknown operation '%s'", operation.getOp()));
+            };
+        } catch (TaskIntersectionException ex) {
+            return BatchOperationResult.failure(index, NOT_ACCEPTABLE.code(), "Entity has time conflict");
+        } catch (NotFoundException ex) {
+            return BatchOperationResult.failure(index, NOT_FOUND.code(), ex.getMessage());
+        } catch (JsonParseException | IllegalArgumentException ex) {
+            return BatchOperationResult.failure(index, BAD_REQUEST.code(), ex.getMessage());
+        }
+    }
+
+    private BatchOperationResult create(int index, TaskType type, BatchOperation operation,
+                                        Map<String, Integer> refsToIds) {
+        Task item = parseItem(type, operation);
+        if (item instanceof Subtask subtask && operation.getEpicRef() != null) {
+            Integer epicId = refsToIds.get(operation.getEpicRef());
+            if (epicId == null) {
+                throw new NotFoundException(String.format("Unknown epic reference '%s'", operation.getEpicRef()));
+            }
+            subtask.setEpicId(epicId);
+        }
+        int id = switch (type) {
+            case TASK -> taskManager.createTask(item);
+            case SUBTASK -> taskManager.createSubtask((Subtask) item);
+            case EPIC -> taskManager.createEpic((Epic) item);
+        };
+        if (operation.getRef() != null) {
+            refsToIds.put(operation.getRef(), id);
+        }
+        return BatchOperationResult.success(index, CREATED.code(), id);
+    }
+
+    private BatchOperationResult update(int index, TaskType type, BatchOperation operation) {
+        Task item = parseItem(type, operation);
+        int id = operation.getId() != null ? operation.getId() : item.getId();
+        requireExisting(id);
+        item.setId(id);
+        long versionBefore = taskManager.getEntityVersion(id);
+        switch (type) {
+            case TASK -> taskManager.updateTask(item);
+            case SUBTASK -> taskManager.updateSubtask((Subtask) item);
+            case EPIC -> taskManager.updateEpic((Epic) item);
+        }
+        // Менеджер молча пропускает сущность другого типа - версия при этом не меняется
+        if (taskManager.getEntityVersion(id) == versionBefore) {
+            throw new NotFoundException(String.format("Entity '%d' of type '%s' not found", id, type));
+        }
+        return BatchOperationResult.success(index, OK.code(), id);
+    }
+
+    private BatchOperationResult delete(int index, TaskType type, BatchOperation operation) {
+        if (operation.getId() == null) {
+            throw new IllegalArgumentException("Field 'id' is required for delete");
+        }
+        int id = operation.getId();
+        requireExisting(id);
+        switch (type) {
+            case TASK -> taskManager.deleteTask(id);
+            case SUBTASK -> taskManager.deleteSubtask(id);
+            case EPIC -> taskManager.deleteEpic(id);
+        }
+        if (taskManager.getEntityVersion(id) != 0) {
+            throw new NotFoundException(String.format("Entity '%d' of type '%s' not found", id, type));
+        }
+        return BatchOperationResult.success(index, OK.code(), id);
+    }
+
+    // Тип сущности берётся из операции, поэтому в item его можно не указывать
+    private Task parseItem(TaskType type, BatchOperation operation) {
+        JsonObject item = operation.getItem();
+        if (item == null) {
+            throw new IllegalArgumentException("Field 'item' is required");
+        }
+        if (!item.has("type")) {
+            item.addProperty("type", type.name());
+        }
+        return switch (type) {
+            case TASK -> gson.fromJson(item, Task.class);
+            case SUBTASK -> gson.fromJson(item, Subtask.class);
+            case EPIC -> gson.fromJson(item, Epic.class);
+        };
+    }
+
+    // У существующих сущностей версия изменения всегда больше нуля
+    private void requireExisting(int id) {
+        if (taskManager.getEntityVersion(id) == 0) {
+            throw new NotFoundException(String.format("Entity '%d' not found", id));
+        }
+    }
+}
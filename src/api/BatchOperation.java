@@ -0,0 +1,39 @@
+package api;
+
+import com.google.gson.JsonObject;
+
+// Операция пакетного запроса POST /batch.
+// op - create, update или delete; type - task, subtask или epic; item - сущность для создания и обновления.
+// ref задаёт метку создаваемой сущности, по которой подзадачи того же пакета ссылаются на эпик через epicRef.
+public class BatchOperation {
+    private String op;
+    private String type;
+    private Integer id;
+    private String ref;
+    private String epicRef;
+    private JsonObject item;
+
+    public String getOp() {
+        return op;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getEpicRef() {
+        return epicRef;
+    }
+
+    public JsonObject getItem() {
+        return item;
+    }
+}
@@ -0,0 +1,41 @@
+package api;
+
+// Результат одной операции пакета: HTTP-код, как если бы операция выполнялась отдельным запросом,
+// id созданной или изменённой сущности и текст ошибки при неудаче
+public class BatchOperationResult {
+    private final int index;
+    private final int status;
+    private final Integer id;
+    private final String error;
+
+    private BatchOperationResult(int index, int status, Integer id, String error) {
+        this.index = index;
+        this.status = status;
+        this.id = id;
+        this.error = error;
+    }
+
+    public static BatchOperationResult success(int index, int status, int id) {
+        return new BatchOperationResult(index, status, id, null);
+    }
+
+    public static BatchOperationResult failure(int index, int status, String error) {
+        return new BatchOperationResult(index, status, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,81 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import entities.TaskChange;
+import enums.HttpMethod;
+import exceptions.ChangesExpiredException;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static enums.HttpMethod.GET;
+import static enums.HttpStatusCode.*;
+
+public class ChangesHandler extends BaseHttpHandler {
+    private static final String SINCE_PARAM = "since";
+    private static final String EPOCH_PARAM = "epoch";
+
+    private final String epoch;
+
+    public ChangesHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+        this.epoch = httpTaskServer.getInstanceTag();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == GET) {
+                handleGetChanges(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+
+    // Отдаём изменения после версии клиента, текущую версию, с которой нужно прийти за следующей порцией,
+    // и эпоху - метку экземпляра сервера. Версии начинаются заново после перезапуска, поэтому версия из другой
+    // эпохи могла бы попасть в доступный диапазон и молча пропустить изменения: с ненулевой версией клиент обязан
+    // передать эпоху из того же ответа, иначе 400. Если изменения уже недоступны или эпоха другая - 410,
+    // клиенту нужно заново получить полные списки.
+    private void handleGetChanges(HttpExchange exchange) throws IOException {
+        long sinceVersion = 0;
+        Optional<String> sinceParam = extractQueryParam(exchange, SINCE_PARAM);
+        if (sinceParam.isPresent()) {
+            try {
+                sinceVersion = Long.parseLong(sinceParam.get());
+            } catch (NumberFormatException ex) {
+                sendBadRequest(exchange, String.format("Incorrect version '%s'", sinceParam.get()));
+                return;
+            }
+        }
+
+        Optional<String> epochParam = extractQueryParam(exchange, EPOCH_PARAM);
+        if (sinceVersion > 0 && epochParam.isEmpty()) {
+            sendBadRequest(exchange, String.format("Parameter '%s' is required with '%s'", EPOCH_PARAM, SINCE_PARAM));
+            return;
+        }
+        if (epochParam.isPresent() && !epochParam.get().equals(epoch)) {
+            sendChangesExpired(exchange);
+            return;
+        }
+
+        try {
+            long version = taskManager.getVersion();
+            List<TaskChange> changes = taskManager.getChangesSince(sinceVersion);
+            sendJson(exchange, Map.of("epoch", epoch, "version", version, "changes", changes), OK.code());
+        } catch (ChangesExpiredException ex) {
+            sendChangesExpired(exchange);
+        }
+    }
+
+    private void sendChangesExpired(HttpExchange exchange) throws IOException {
+        sendText(exchange, gson.toJson(Map.of("error", "Changes expired, full resync required",
+                "epoch", epoch, "version", taskManager.getVersion())), GONE.code());
+    }
+}
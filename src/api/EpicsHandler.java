@@ -4,6 +4,7 @@ import com.sun.net.httpserver.HttpExchange;
 import entities.Epic;
 import entities.Subtask;
 import enums.HttpMethod;
+import enums.TaskType;
 import exceptions.NotFoundException;
 import exceptions.TaskIntersectionException;
 
@@ -38,8 +39,7 @@ public class EpicsHandler extends BaseHttpHandler {
     // В зависимости от длины пути извлекаем все эпики или эпик по id или подзадачи эпика
     private void handleGetEpicsOrEpicByIdOrEpicSubtasks(HttpExchange exchange) throws IOException {
         if (getPathLengthOfRequest(exchange) == 2) {
-            List<Epic> epics = taskManager.getEpics();
-            sendText(exchange, gson.toJson(epics), OK.code());
+            sendItemsFilteredByStatus(exchange, TaskType.EPIC, taskManager::getEpics);
             return;
         }
 
@@ -47,16 +47,26 @@ public class EpicsHandler extends BaseHttpHandler {
             Optional<Integer> id = extractIdFromRequest(exchange);
             if (id.isPresent()) {
                 // Дополнительная логика обработки по проверке, пытаемся мы получить подзадачи или эпик
+                // Запросы всё равно проходят через менеджер, чтобы просмотр попал в историю
                 if (getPathLengthOfRequest(exchange) < 4) {
+                    String etag = buildEtag("epic", taskManager.getEntityVersion(id.get()));
                     Epic epic = taskManager.getEpicById(id.get());
+                    if (sendNotModifiedIfMatches(exchange, etag)) {
+                        return;
+                    }
                     sendText(exchange, gson.toJson(epic), OK.code());
                     return;
                 }
                 if (!pathParts[3].equals("subtasks")) {
                     sendNotFound(exchange);
                 }
+                String etag = buildEtag("epic-subtasks", taskManager.getEntityVersion(id.get()),
+                        taskManager.getCollectionVersion(TaskType.SUBTASK));
                 List<Subtask> epicSubtasks = taskManager.getEpicSubtasks(id.get());
-                sendText(exchange, gson.toJson(epicSubtasks), OK.code());
+                if (sendNotModifiedIfMatches(exchange, etag)) {
+                    return;
+                }
+                sendJson(exchange, epicSubtasks, OK.code());
             } else {
                 sendNotFound(exchange);
             }
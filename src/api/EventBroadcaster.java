@@ -0,0 +1,212 @@
+package api;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import entities.TaskChange;
+import exceptions.ChangesExpiredException;
+import interfaces.TaskChangeListener;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static enums.HttpStatusCode.OK;
+
+// Рассылает изменения менеджера подписчикам в формате Server-Sent Events.
+// У каждого подписчика своя ограниченная очередь кадров: переполнение означает медленного клиента, и его отключаем.
+// Запись в сокет выполняет виртуальный поток, запускаемый только при наличии кадров в очереди,
+// поэтому простаивающие подписчики не занимают потоков вовсе.
+// id события - эпоха и версия изменения через двоеточие ("<метка экземпляра сервера>:<версия>"): версии начинаются
+// заново после перезапуска, и Last-Event-ID из прошлой эпохи не должен совпасть с версией нового сервера.
+public class EventBroadcaster implements TaskChangeListener {
+    private static final int SUBSCRIBER_QUEUE_CAPACITY = 1024;
+    private static final long HEARTBEAT_INTERVAL_SECONDS = 15;
+    private static final byte[] CONNECTED_FRAME = ": connected\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] HEARTBEAT_FRAME = ": ping\n\n".getBytes(StandardCharsets.UTF_8);
+    private static final String RESET_EVENT = "reset";
+    private static final char EVENT_ID_DELIMITER = ':';
+
+    private final Gson gson;
+    private final String epoch;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService heartbeat = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sse-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public EventBroadcaster(Gson gson, String epoch) {
+        this.gson = gson;
+        this.epoch = epoch;
+        // Периодический комментарий не даёт прокси закрыть соединение и выявляет отвалившихся клиентов
+        heartbeat.scheduleAtFixedRate(() -> subscribers.forEach(subscriber -> subscriber.enqueue(HEARTBEAT_FRAME)),
+                HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    // Отправляет заголовки потока и регистрирует подписчика; пропущенные изменения (например, после переподключения)
+    // отправляются первыми. Всё выполняется под тем же замком, что и рассылка, поэтому клиент, получивший заголовки,
+    // не пропустит изменений: повторы между журналом и рассылкой отсекаются по версии.
+    // Если пропущенное уже не восстановить (ChangesExpiredException), вместо него отправляется событие reset
+    // с текущей версией: клиенту нужно заново получить полные списки, а дальше поток продолжится с этой версии.
+    public synchronized void subscribe(HttpExchange exchange, Supplier<List<TaskChange>> missedChangesSupplier,
+                                       LongSupplier versionSupplier) throws IOException {
+        exchange.sendResponseHeaders(OK.code(), 0);
+        List<TaskChange> missedChanges;
+        try {
+            missedChanges = missedChangesSupplier.get();
+        } catch (ChangesExpiredException ex) {
+            missedChanges = null;
+        }
+        Subscriber subscriber = new Subscriber(exchange);
+        subscribers.add(subscriber);
+        // Первый кадр сразу отправляет клиенту заголовки ответа
+        subscriber.enqueue(CONNECTED_FRAME);
+        if (missedChanges == null) {
+            long version = versionSupplier.getAsLong();
+            subscriber.enqueue(version, toResetFrame(version));
+        } else {
+            missedChanges.forEach(change -> subscriber.enqueue(change.getVersion(), toFrame(change)));
+        }
+    }
+
+    @Override
+    public synchronized void onChange(TaskChange change) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        // Сериализуем один раз для всех подписчиков
+        byte[] frame = toFrame(change);
+        subscribers.forEach(subscriber -> subscriber.enqueue(change.getVersion(), frame));
+    }
+
+    public int getSubscribersCount() {
+        return subscribers.size();
+    }
+
+    public void close() {
+        heartbeat.shutdownNow();
+        subscribers.forEach(Subscriber::disconnect);
+        writers.shutdown();
+    }
+
+    private byte[] toFrame(TaskChange change) {
+        String frame = "id: " + eventId(change.getVersion()) + "\n" +
+                "event: " + change.getChangeType().name().toLowerCase() + "\n" +
+                "data: " + gson.toJson(change) + "\n\n";
+        return frame.getBytes(StandardCharsets.UTF_8);
+    }
+
+    public String eventId(long version) {
+        return epoch + EVENT_ID_DELIMITER + version;
+    }
+
+    // Версия из id события этой эпохи; id другой эпохи или без неё не даёт понять, что пропущено
+    public long parseEventId(String eventId) {
+        int delimiter = eventId.lastIndexOf(EVENT_ID_DELIMITER);
+        if (delimiter < 0 || !eventId.substring(0, delimiter).equals(epoch)) {
+            throw new ChangesExpiredException(String.format("Событие '%s' не относится к эпохе '%s'", eventId, epoch));
+        }
+        try {
+            return Long.parseLong(eventId.substring(delimiter + 1));
+        } catch (NumberFormatException ex) {
+            throw new ChangesExpiredException(ex);
+        }
+    }
+
+    private byte[] toResetFrame(long version) {
+        String frame = "id: " + eventId(version) + "\n" +
+                "event: " + RESET_EVENT + "\n" +
+                "data: " + gson.toJson(Map.of("version", version)) + "\n\n";
+        return frame.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private class Subscriber {
+        private final HttpExchange exchange;
+        private final OutputStream outputStream;
+        private final Queue<byte[]> frames = new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_CAPACITY);
+        private final AtomicBoolean writing = new AtomicBoolean(false);
+        private final AtomicBoolean connected = new AtomicBoolean(true);
+        // Версия последнего поставленного в очередь изменения - защищает от повторов и нарушения порядка
+        private long lastVersion = 0;
+
+        Subscriber(HttpExchange exchange) {
+            this.exchange = exchange;
+            this.outputStream = exchange.getResponseBody();
+        }
+
+        void enqueue(long version, byte[] frame) {
+            if (version <= lastVersion) {
+                return;
+            }
+            lastVersion = version;
+            enqueue(frame);
+        }
+
+        void enqueue(byte[] frame) {
+            if (!connected.get()) {
+                return;
+            }
+            if (!frames.offer(frame)) {
+                disconnect();
+                return;
+            }
+            scheduleWrite();
+        }
+
+        // Запускаем запись, только если она ещё не идёт - одновременно у подписчика не более одного пишущего потока
+        private void scheduleWrite() {
+            if (!writing.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                writers.execute(this::writePending);
+            } catch (RejectedExecutionException ex) {
+                disconnect();
+            }
+        }
+
+        private void writePending() {
+            try {
+                byte[] frame;
+                while ((frame = frames.poll()) != null) {
+                    outputStream.write(frame);
+                    if (frames.isEmpty()) {
+                        outputStream.flush();
+                    }
+                }
+            } catch (IOException ex) {
+                disconnect();
+                return;
+            } finally {
+                writing.set(false);
+            }
+            // Кадр мог прийти между опустошением очереди и сбросом флага
+            if (!frames.isEmpty()) {
+                scheduleWrite();
+            }
+        }
+
+        void disconnect() {
+            if (!connected.compareAndSet(true, false)) {
+                return;
+            }
+            subscribers.remove(this);
+            frames.clear();
+            // Закрытие может ждать сокет медленного клиента, поэтому не выполняем его в потоке, изменившем данные
+            try {
+                writers.execute(exchange::close);
+            } catch (RejectedExecutionException ex) {
+                exchange.close();
+            }
+        }
+    }
+}
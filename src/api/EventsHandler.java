@@ -0,0 +1,60 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import entities.TaskChange;
+import enums.HttpMethod;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static enums.HttpMethod.GET;
+import static enums.HttpStatusCode.METHOD_NOT_ALLOWED;
+
+public class EventsHandler extends BaseHttpHandler {
+    private static final String LAST_EVENT_ID_HEADER = "Last-Event-ID";
+
+    private final EventBroadcaster eventBroadcaster;
+
+    public EventsHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+        this.eventBroadcaster = httpTaskServer.getEventBroadcaster();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == GET) {
+                handleSubscribe(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            // Заголовки потока событий уже могли уйти - тогда второй ответ невозможен, соединение просто закрываем
+            if (exchange.getResponseCode() == -1) {
+                sendServerError(exchange);
+            } else {
+                exchange.close();
+            }
+        }
+    }
+
+    // Открываем поток событий и передаём соединение рассыльщику - обработчик сразу освобождает поток сервера.
+    // При переподключении с Last-Event-ID сначала досылаем пропущенные изменения из журнала, а если их уже
+    // не восстановить - событие reset, по которому клиент заново получает полные списки.
+    private void handleSubscribe(HttpExchange exchange) throws IOException {
+        String lastEventId = exchange.getRequestHeaders().getFirst(LAST_EVENT_ID_HEADER);
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream;charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        eventBroadcaster.subscribe(exchange, () -> getMissedChanges(lastEventId), taskManager::getVersion);
+    }
+
+    private List<TaskChange> getMissedChanges(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return new ArrayList<>();
+        }
+        // id другой эпохи или непонятный id разбираются так же, как вытесненная версия, - в reset
+        return taskManager.getChangesSince(eventBroadcaster.parseEventId(lastEventId.trim()));
+    }
+}
@@ -0,0 +1,95 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import entities.Task;
+import entities.TaskCsvWriter;
+import entities.TaskManagerSnapshot;
+import enums.HttpMethod;
+import managers.FileBackedTaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.List;
+
+import static enums.HttpMethod.GET;
+import static enums.HttpStatusCode.METHOD_NOT_ALLOWED;
+import static enums.HttpStatusCode.OK;
+
+// Выгрузка всех сущностей в NDJSON (по умолчанию) или CSV в формате файла хранилища.
+// Снимок менеджера берётся в потоке сервера, а запись идёт в отдельном виртуальном потоке:
+// сервер продолжает обслуживать запросы, а изменения во время выгрузки в неё не попадают.
+// Эпики идут первыми, поэтому NDJSON-выгрузку можно без изменений загрузить обратно через POST /import.
+public class ExportHandler extends BaseHttpHandler {
+    private static final String FORMAT_PARAM = "format";
+    private static final String NDJSON_FORMAT = "ndjson";
+    private static final String CSV_FORMAT = "csv";
+    private static final String SNAPSHOT_VERSION_HEADER = "X-Snapshot-Version";
+
+    public ExportHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == GET) {
+                handleExport(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+
+    private void handleExport(HttpExchange exchange) throws IOException {
+        String format = extractQueryParam(exchange, FORMAT_PARAM).orElse(NDJSON_FORMAT).toLowerCase();
+        if (!format.equals(NDJSON_FORMAT) && !format.equals(CSV_FORMAT)) {
+            sendBadRequest(exchange, String.format("Unknown format '%s', expected ndjson or csv", format));
+            return;
+        }
+
+        TaskManagerSnapshot snapshot = taskManager.snapshot();
+        exchange.getResponseHeaders().set(SNAPSHOT_VERSION_HEADER, String.valueOf(snapshot.getVersion()));
+        exchange.getResponseHeaders().set("Content-Disposition",
+                String.format("attachment; filename=\"export-%d.%s\"", snapshot.getVersion(), format));
+        Thread.ofVirtual().name("export-" + snapshot.getVersion()).start(() -> writeSnapshot(exchange, snapshot, format));
+    }
+
+    private void writeSnapshot(HttpExchange exchange, TaskManagerSnapshot snapshot, String format) {
+        String contentType = format.equals(CSV_FORMAT) ? "text/csv;charset=utf-8" : "application/x-ndjson;charset=utf-8";
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(
+                openResponseBody(exchange, OK.code(), contentType), DEFAULT_CHARSET))) {
+            if (format.equals(CSV_FORMAT)) {
+                writer.write(FileBackedTaskManager.CSV_HEADER);
+                writer.write('\n');
+            }
+            StringBuilder row = new StringBuilder();
+            writeItems(writer, row, snapshot.getEpics(), format);
+            writeItems(writer, row, snapshot.getTasks(), format);
+            writeItems(writer, row, snapshot.getSubtasks(), format);
+        } catch (IOException | RuntimeException ex) {
+            // Клиент прервал загрузку или запись сломалась - снимок отбрасывается, а обмен закрывается,
+            // иначе исключение завершило бы виртуальный поток и клиент ждал бы ответа до таймаута
+            System.out.println(ex.getMessage());
+            exchange.close();
+        }
+    }
+
+    // Строка CSV собирается тем же TaskCsvWriter, что и файл хранилища, в один переиспользуемый буфер
+    private void writeItems(Writer writer, StringBuilder row, List<? extends Task> items, String format)
+            throws IOException {
+        for (Task item : items) {
+            if (format.equals(CSV_FORMAT)) {
+                row.setLength(0);
+                writer.append(TaskCsvWriter.append(row, item));
+            } else {
+                gson.toJson(item, writer);
+            }
+            writer.write('\n');
+        }
+    }
+}
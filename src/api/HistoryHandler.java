@@ -32,7 +32,10 @@ public class HistoryHandler extends BaseHttpHandler {
     }
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
+        if (sendNotModifiedIfMatches(exchange, buildEtag("history", taskManager.getHistoryVersion()))) {
+            return;
+        }
         List<Task> history = taskManager.getHistory();
-        sendText(exchange, gson.toJson(history), OK.code());
+        sendJson(exchange, history, OK.code());
     }
 }
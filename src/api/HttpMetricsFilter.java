@@ -0,0 +1,81 @@
+package api;
+
+import com.sun.net.httpserver.Filter;
+import com.sun.net.httpserver.HttpExchange;
+import enums.HttpMethod;
+import metrics.HttpRequestEvent;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+// Считает запросы и замеряет время их обработки по маршруту и методу, а при включённой записи JFR
+// публикует по каждому запросу событие HttpRequestEvent.
+// Маршрут - путь контекста, а не полный путь запроса, поэтому число серий не растёт с количеством id.
+// По той же причине методы, которых нет в HttpMethod, сводятся в одну метку OTHER: иначе клиент
+// произвольными методами мог бы создавать новые серии без ограничений.
+// Для потоковых ответов (выгрузка, события) замеряется только время до передачи ответа в фоновый поток.
+public class HttpMetricsFilter extends Filter {
+    private static final String REQUESTS_METRIC = "http_requests_total";
+    private static final String DURATION_METRIC = "http_request_duration_seconds";
+    private static final String OTHER_METHOD = "OTHER";
+    private static final Set<String> KNOWN_METHODS = Arrays.stream(HttpMethod.values())
+            .map(Enum::name)
+            .collect(Collectors.toUnmodifiableSet());
+
+    private final MetricsRegistry metrics;
+    // Серии по маршруту, методу и коду ответа - формирование меток в реестре только при первом запросе
+    private final Map<String, LatencyHistogram> routesToHistograms = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> routesToCounters = new ConcurrentHashMap<>();
+
+    public HttpMetricsFilter(MetricsRegistry metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void doFilter(HttpExchange exchange, Chain chain) throws IOException {
+        HttpRequestEvent event = new HttpRequestEvent();
+        event.begin();
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(exchange);
+        } finally {
+            String route = exchange.getHttpContext().getPath();
+            String requestMethod = exchange.getRequestMethod();
+            String method = KNOWN_METHODS.contains(requestMethod) ? requestMethod : OTHER_METHOD;
+            event.end();
+            if (event.shouldCommit()) {
+                event.method = requestMethod;
+                event.route = route;
+                event.path = exchange.getRequestURI().getPath();
+                event.status = exchange.getResponseCode();
+                event.commit();
+            }
+            String routeKey = method + " " + route;
+            LatencyHistogram histogram = routesToHistograms.get(routeKey);
+            if (histogram == null) {
+                histogram = routesToHistograms.computeIfAbsent(routeKey,
+                        key -> metrics.histogram(DURATION_METRIC, "route", route, "method", method));
+            }
+            histogram.record(System.nanoTime() - start);
+            String status = String.valueOf(exchange.getResponseCode());
+            LongAdder counter = routesToCounters.get(routeKey + " " + status);
+            if (counter == null) {
+                counter = routesToCounters.computeIfAbsent(routeKey + " " + status,
+                        key -> metrics.counter(REQUESTS_METRIC, "route", route, "method", method, "status", status));
+            }
+            counter.increment();
+        }
+    }
+
+    @Override
+    public String description() {
+        return "Request counters and latency histograms per route and method";
+    }
+}
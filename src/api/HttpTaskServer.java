@@ -2,33 +2,63 @@ package api;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
+import enums.TaskType;
+import exceptions.ManagerSaveException;
 import interfaces.TaskManager;
+import metrics.MetricsRegistry;
 import utilities.Managers;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 
 public class HttpTaskServer {
     private static final int PORT = 8080;
+    // Ответы меньше порога не сжимаются: на малых телах gzip даёт больше накладных расходов, чем экономии
+    public static final int DEFAULT_COMPRESSION_THRESHOLD = 1024;
     private HttpServer httpServer;
     private final TaskManager taskManager;
     private final Gson gson;
+    private final EventBroadcaster eventBroadcaster;
+    // Метка экземпляра сервера (эпоха) для ETag и журнала изменений - версии менеджера начинаются заново после
+    // перезапуска. Случайная часть различает экземпляры, запущенные в одну миллисекунду
+    private final String instanceTag = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX)
+            + "." + Integer.toString(ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE), Character.MAX_RADIX);
+    private final int compressionThreshold;
+    private final MetricsRegistry metrics;
+    // Менеджер, созданный самим сервером: он закрывается при остановке. Переданный извне закрывает владелец
+    private final TaskManager ownedTaskManager;
 
-    HttpTaskServer(TaskManager taskManager) throws IOException {
-        this.taskManager = taskManager;
+    public HttpTaskServer(TaskManager taskManager, int compressionThreshold) throws IOException {
+        this(taskManager, compressionThreshold, false);
+    }
+
+    private HttpTaskServer(TaskManager taskManager, int compressionThreshold, boolean ownsTaskManager)
+            throws IOException {
+        this.ownedTaskManager = ownsTaskManager ? taskManager : null;
+        this.metrics = new MetricsRegistry();
+        this.taskManager = Managers.getInstrumented(taskManager, metrics);
+        this.compressionThreshold = compressionThreshold;
         this.gson = new GsonBuilder()
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
                 .create();
+        this.eventBroadcaster = new EventBroadcaster(gson, instanceTag);
         createHttpServer();
-        createMapping();
+    }
+
+    HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, DEFAULT_COMPRESSION_THRESHOLD);
     }
 
     HttpTaskServer() throws IOException {
-        this(Managers.getDefault());
+        this(Managers.getDefault(), DEFAULT_COMPRESSION_THRESHOLD, true);
     }
 
     public Gson getGson() {
@@ -39,30 +69,80 @@ public class HttpTaskServer {
         return taskManager;
     }
 
+    public String getInstanceTag() {
+        return instanceTag;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    public EventBroadcaster getEventBroadcaster() {
+        return eventBroadcaster;
+    }
+
     private void createHttpServer() throws IOException {
         httpServer = HttpServer.create(new InetSocketAddress(PORT), 0);
     }
 
     private void createMapping() {
-        httpServer.createContext("/tasks", new TasksHandler(this));
-        httpServer.createContext("/subtasks", new SubtasksHandler(this));
-        httpServer.createContext("/epics", new EpicsHandler(this));
-        httpServer.createContext("/history", new HistoryHandler(this));
-        httpServer.createContext("/prioritized", new PrioritizedHandler(this));
+        HttpMetricsFilter metricsFilter = new HttpMetricsFilter(metrics);
+        Map<String, HttpHandler> pathsToHandlers = new LinkedHashMap<>();
+        pathsToHandlers.put("/tasks", new TasksHandler(this));
+        pathsToHandlers.put("/subtasks", new SubtasksHandler(this));
+        pathsToHandlers.put("/epics", new EpicsHandler(this));
+        pathsToHandlers.put("/history", new HistoryHandler(this));
+        pathsToHandlers.put("/prioritized", new PrioritizedHandler(this));
+        pathsToHandlers.put("/search", new SearchHandler(this));
+        pathsToHandlers.put("/changes", new ChangesHandler(this));
+        pathsToHandlers.put("/events", new EventsHandler(this));
+        pathsToHandlers.put("/batch", new BatchHandler(this));
+        pathsToHandlers.put("/import", new ImportHandler(this));
+        pathsToHandlers.put("/export", new ExportHandler(this));
+        pathsToHandlers.put("/metrics", new MetricsHandler(this));
+        pathsToHandlers.forEach((path, handler) -> httpServer.createContext(path, handler).getFilters().add(metricsFilter));
+    }
+
+    // Датчики читаются при снятии метрик в потоке сервера - там же, где менеджер изменяется
+    private void registerGauges() {
+        for (TaskType type : TaskType.values()) {
+            metrics.gauge("task_manager_items", () -> taskManager.getItemsCount(type), "type", type.name().toLowerCase());
+        }
+        metrics.gauge("task_manager_version", taskManager::getVersion);
+        metrics.gauge("sse_subscribers", eventBroadcaster::getSubscribersCount);
     }
 
+    // Обработчики и датчики получают ссылку на сервер только здесь - после того как он полностью сконструирован
     public void start() {
+        createMapping();
+        registerGauges();
+        taskManager.addChangeListener(eventBroadcaster);
         httpServer.start();
         System.out.println("Http task server started on port " + PORT);
     }
 
     public void stop() {
+        taskManager.removeChangeListener(eventBroadcaster);
+        eventBroadcaster.close();
         httpServer.stop(0);
+        // Закрытие хранилища дописывает буферы, например журнал истории просмотров, и освобождает файлы
+        if (ownedTaskManager instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                throw new ManagerSaveException(e);
+            }
+        }
         System.out.println("Http task server stopped");
     }
 
     public static void main(String[] args) throws IOException {
         HttpTaskServer httpServer = new HttpTaskServer();
+        Runtime.getRuntime().addShutdownHook(new Thread(httpServer::stop));
         httpServer.start();
     }
 }
@@ -0,0 +1,139 @@
+package api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.sun.net.httpserver.HttpExchange;
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.HttpMethod;
+import enums.TaskType;
+import exceptions.TaskIntersectionException;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static enums.HttpMethod.POST;
+import static enums.HttpStatusCode.*;
+
+// Массовый импорт задач, эпиков и подзадач из NDJSON - по одной сущности с полем type в каждой строке.
+// Записи читаются из тела запроса по одной, без разбора всего тела в память, и применяются порциями:
+// каждая порция - отдельная транзакция менеджера, поэтому файловое хранилище сохраняется раз в порцию.
+// Эпики должны идти раньше своих подзадач: id эпиков из источника заменяются на новые, выданные менеджером.
+public class ImportHandler extends BaseHttpHandler {
+    private static final int IMPORT_CHUNK_SIZE = 5_000;
+
+    public ImportHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == POST) {
+                handleImport(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+
+    private void handleImport(HttpExchange exchange) throws IOException {
+        ImportReport report = new ImportReport();
+        // id эпика в источнике -> id в менеджере; растёт только с числом эпиков
+        Map<Integer, Integer> sourceEpicIdsToIds = new HashMap<>();
+        List<JsonElement> chunk = new ArrayList<>(IMPORT_CHUNK_SIZE);
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(exchange.getRequestBody(), DEFAULT_CHARSET))) {
+            // Нестрогий режим позволяет читать подряд несколько JSON-документов верхнего уровня
+            reader.setLenient(true);
+            while (reader.peek() != JsonToken.END_DOCUMENT) {
+                chunk.add(JsonParser.parseReader(reader));
+                if (chunk.size() == IMPORT_CHUNK_SIZE) {
+                    importChunk(chunk, sourceEpicIdsToIds, report);
+                }
+            }
+        } catch (JsonParseException | IllegalStateException ex) {
+            // После синтаксической ошибки границы следующих записей не определить - сохраняем прочитанное и прекращаем
+            importChunk(chunk, sourceEpicIdsToIds, report);
+            sendJson(exchange, Map.of("error", "Malformed NDJSON after record " + report.getProcessed(),
+                    "report", report), BAD_REQUEST.code());
+            return;
+        }
+        importChunk(chunk, sourceEpicIdsToIds, report);
+        sendJson(exchange, report, OK.code());
+    }
+
+    private void importChunk(List<JsonElement> chunk, Map<Integer, Integer> sourceEpicIdsToIds, ImportReport report) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        taskManager.runInTransaction(() -> chunk.forEach(
+                record -> importRecord(report.getProcessed() + 1, record, sourceEpicIdsToIds, report)));
+        chunk.clear();
+        report.addChunk();
+    }
+
+    private void importRecord(long recordNumber, JsonElement record, Map<Integer, Integer> sourceEpicIdsToIds,
+                              ImportReport report) {
+        try {
+            if (!record.isJsonObject()) {
+                throw new IllegalArgumentException("Record must be a JSON object");
+            }
+            JsonObject item = record.getAsJsonObject();
+            JsonElement typeField = item.get("type");
+            if (typeField == null || !typeField.isJsonPrimitive()) {
+                throw new IllegalArgumentException("Field 'type' is required");
+            }
+            TaskType type = TaskType.valueOf(typeField.getAsString().toUpperCase());
+            item.addProperty("type", type.name());
+
+            switch (type) {
+                case TASK -> taskManager.createTask(validate(gson.fromJson(item, Task.class)));
+                case EPIC -> {
+                    Epic epic = validate(gson.fromJson(item, Epic.class));
+                    int sourceId = epic.getId();
+                    // Подзадачи привяжутся к эпику по мере импорта
+                    epic.setSubtasksIds(null);
+                    int id = taskManager.createEpic(epic);
+                    if (sourceId != 0) {
+                        sourceEpicIdsToIds.put(sourceId, id);
+                    }
+                }
+                case SUBTASK -> {
+                    Subtask subtask = validate(gson.fromJson(item, Subtask.class));
+                    subtask.setEpicId(sourceEpicIdsToIds.getOrDefault(subtask.getEpicId(), subtask.getEpicId()));
+                    taskManager.createSubtask(subtask);
+                }
+            }
+            report.addImported();
+        } catch (TaskIntersectionException ex) {
+            report.addConflict(recordNumber);
+        } catch (JsonParseException | IllegalArgumentException | IllegalStateException ex) {
+            report.addFailed(recordNumber, ex.getMessage());
+        }
+    }
+
+    // Gson создаёт сущности без конструктора, поэтому значения по умолчанию выставляем сами
+    private static <T extends Task> T validate(T item) {
+        if (item.getStatus() == null) {
+            throw new IllegalArgumentException("Field 'status' is required");
+        }
+        if (item.getDuration() == null) {
+            item.setDuration(Duration.ZERO);
+        }
+        return item;
+    }
+}
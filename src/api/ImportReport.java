@@ -0,0 +1,73 @@
+package api;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Счётчики хода импорта POST /import. Ошибки хранятся только первые - отчёт не растёт вместе с объёмом импорта
+public class ImportReport {
+    private static final int MAX_ERRORS = 100;
+
+    private long processed;
+    private long imported;
+    private long conflicts;
+    private long failed;
+    private long chunks;
+    private final List<String> errors = new ArrayList<>();
+
+    void addImported() {
+        processed++;
+        imported++;
+    }
+
+    void addConflict(long recordNumber) {
+        processed++;
+        conflicts++;
+        addError(recordNumber, "Entity has time conflict");
+    }
+
+    void addFailed(long recordNumber, String message) {
+        processed++;
+        failed++;
+        addError(recordNumber, message);
+    }
+
+    void addChunk() {
+        chunks++;
+    }
+
+    private void addError(long recordNumber, String message) {
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(String.format("Record %d: %s", recordNumber, message));
+        }
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getFailed() {
+        return failed;
+    }
+
+    public long getChunks() {
+        return chunks;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("processed=%d, imported=%d, conflicts=%d, failed=%d, chunks=%d",
+                processed, imported, conflicts, failed, chunks);
+    }
+}
@@ -0,0 +1,42 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import enums.HttpMethod;
+import metrics.MetricsRegistry;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import static enums.HttpMethod.GET;
+import static enums.HttpStatusCode.METHOD_NOT_ALLOWED;
+import static enums.HttpStatusCode.OK;
+
+// Отдаёт метрики сервера в текстовом формате Prometheus
+public class MetricsHandler extends BaseHttpHandler {
+    private static final String PROMETHEUS_CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final MetricsRegistry metrics;
+
+    public MetricsHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+        this.metrics = httpTaskServer.getMetrics();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == GET) {
+                try (Writer writer = new OutputStreamWriter(
+                        openResponseBody(exchange, OK.code(), PROMETHEUS_CONTENT_TYPE), DEFAULT_CHARSET)) {
+                    metrics.writeTo(writer);
+                }
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// Тело ответа, которое решает о сжатии по мере записи.
+// Пока записано меньше порога, данные копятся в буфере и на закрытии уходят без сжатия с точной длиной.
+// Как только порог достигнут, отправляются заголовки, и дальше данные потоком идут через gzip (если клиент его
+// принимает) - весь ответ в памяти не накапливается, сколько бы он ни весил.
+class NegotiatedResponseStream extends OutputStream {
+    private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
+    private static final String GZIP_ENCODING = "gzip";
+    private static final int GZIP_BUFFER_SIZE = 8192;
+
+    private final HttpExchange exchange;
+    private final int statusCode;
+    private final int compressionThreshold;
+    private final boolean gzipAccepted;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    // Поток тела после отправки заголовков, до этого null
+    private OutputStream body;
+    private boolean closed;
+
+    NegotiatedResponseStream(HttpExchange exchange, int statusCode, int compressionThreshold, boolean gzipAccepted) {
+        this.exchange = exchange;
+        this.statusCode = statusCode;
+        this.compressionThreshold = compressionThreshold;
+        this.gzipAccepted = gzipAccepted;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (body == null && buffer.size() + length < compressionThreshold) {
+            buffer.write(bytes, offset, length);
+            return;
+        }
+        if (body == null) {
+            startStreaming();
+        }
+        body.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (body != null) {
+            body.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (body != null) {
+            body.close();
+            return;
+        }
+        // Ответ меньше порога: сжатие не окупится, отправляем как есть с известной длиной
+        int length = buffer.size();
+        exchange.sendResponseHeaders(statusCode, length == 0 ? -1 : length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            buffer.writeTo(os);
+        }
+        buffer = null;
+    }
+
+    private void startStreaming() throws IOException {
+        if (gzipAccepted) {
+            exchange.getResponseHeaders().set(CONTENT_ENCODING_HEADER, GZIP_ENCODING);
+            exchange.sendResponseHeaders(statusCode, 0);
+            body = new GZIPOutputStream(exchange.getResponseBody(), GZIP_BUFFER_SIZE);
+        } else {
+            exchange.sendResponseHeaders(statusCode, 0);
+            body = exchange.getResponseBody();
+        }
+        buffer.writeTo(body);
+        buffer = null;
+    }
+}
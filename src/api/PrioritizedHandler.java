@@ -3,6 +3,7 @@ package api;
 import com.sun.net.httpserver.HttpExchange;
 import entities.Task;
 import enums.HttpMethod;
+import enums.TaskType;
 
 import java.io.IOException;
 import java.util.List;
@@ -32,7 +33,12 @@ public class PrioritizedHandler extends BaseHttpHandler {
     }
 
     private void handleGetPrioritizedTasks(HttpExchange exchange) throws IOException {
+        String etag = buildEtag("prioritized", taskManager.getCollectionVersion(TaskType.TASK),
+                taskManager.getCollectionVersion(TaskType.SUBTASK));
+        if (sendNotModifiedIfMatches(exchange, etag)) {
+            return;
+        }
         List<Task> prioritizedTasks = taskManager.getPrioritizedTasks();
-        sendText(exchange, gson.toJson(prioritizedTasks), OK.code());
+        sendJson(exchange, prioritizedTasks, OK.code());
     }
 }
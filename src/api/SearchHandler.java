@@ -0,0 +1,60 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import entities.Task;
+import enums.HttpMethod;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static enums.HttpMethod.GET;
+import static enums.HttpStatusCode.METHOD_NOT_ALLOWED;
+import static enums.HttpStatusCode.OK;
+
+public class SearchHandler extends BaseHttpHandler {
+    private static final String QUERY_PARAM = "q";
+    private static final String LIMIT_PARAM = "limit";
+    private static final int DEFAULT_LIMIT = 20;
+
+    public SearchHandler(HttpTaskServer httpTaskServer) {
+        super(httpTaskServer);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (HttpMethod.valueOf(exchange.getRequestMethod()) == GET) {
+                handleSearch(exchange);
+            } else {
+                exchange.sendResponseHeaders(METHOD_NOT_ALLOWED.code(), -1);
+            }
+        } catch (Exception ex) {
+            System.out.println(ex.getMessage());
+            sendServerError(exchange);
+        }
+    }
+
+    // Ищем сущности по словам заголовка и описания, параметр limit ограничивает размер выдачи
+    private void handleSearch(HttpExchange exchange) throws IOException {
+        Optional<String> query = extractQueryParam(exchange, QUERY_PARAM);
+        if (query.isEmpty() || query.get().isBlank()) {
+            sendBadRequest(exchange, "Query parameter 'q' is required");
+            return;
+        }
+
+        int limit = DEFAULT_LIMIT;
+        Optional<String> limitParam = extractQueryParam(exchange, LIMIT_PARAM);
+        if (limitParam.isPresent()) {
+            try {
+                limit = Integer.parseInt(limitParam.get());
+            } catch (NumberFormatException ex) {
+                sendBadRequest(exchange, String.format("Incorrect limit '%s'", limitParam.get()));
+                return;
+            }
+        }
+
+        List<Task> foundItems = taskManager.search(query.get(), limit);
+        sendJson(exchange, foundItems, OK.code());
+    }
+}
@@ -3,12 +3,12 @@ package api;
 import com.sun.net.httpserver.HttpExchange;
 import entities.Subtask;
 import enums.HttpMethod;
+import enums.TaskType;
 import exceptions.NotFoundException;
 import exceptions.TaskIntersectionException;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.List;
 import java.util.Optional;
 
 import static enums.HttpStatusCode.*;
@@ -37,15 +37,19 @@ public class SubtasksHandler extends BaseHttpHandler {
     // В зависимости от длины пути извлекаем все подзадачи или подзадачу по id
     private void handleGetSubtasksOrSubtaskById(HttpExchange exchange) throws IOException {
         if (getPathLengthOfRequest(exchange) == 2) {
-            List<Subtask> tasks = taskManager.getSubtasks();
-            sendText(exchange, gson.toJson(tasks), OK.code());
+            sendItemsFilteredByStatus(exchange, TaskType.SUBTASK, taskManager::getSubtasks);
             return;
         }
 
         try {
             Optional<Integer> id = extractIdFromRequest(exchange);
             if (id.isPresent()) {
+                // Запрос всё равно проходит через менеджер, чтобы просмотр попал в историю
+                String etag = buildEtag("subtask", taskManager.getEntityVersion(id.get()));
                 Subtask subtask = taskManager.getSubtaskById(id.get());
+                if (sendNotModifiedIfMatches(exchange, etag)) {
+                    return;
+                }
                 sendText(exchange, gson.toJson(subtask), OK.code());
             } else {
                 sendNotFound(exchange);
@@ -3,12 +3,12 @@ package api;
 import com.sun.net.httpserver.HttpExchange;
 import entities.Task;
 import enums.HttpMethod;
+import enums.TaskType;
 import exceptions.NotFoundException;
 import exceptions.TaskIntersectionException;
 
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.List;
 import java.util.Optional;
 
 import static enums.HttpStatusCode.*;
@@ -37,15 +37,19 @@ public class TasksHandler extends BaseHttpHandler {
     // В зависимости от длины пути извлекаем все задачи или задачу по id
     private void handleGetTasksOrTaskById(HttpExchange exchange) throws IOException {
         if (getPathLengthOfRequest(exchange) == 2) {
-            List<Task> tasks = taskManager.getTasks();
-            sendText(exchange, gson.toJson(tasks), OK.code());
+            sendItemsFilteredByStatus(exchange, TaskType.TASK, taskManager::getTasks);
             return;
         }
 
         try {
             Optional<Integer> id = extractIdFromRequest(exchange);
             if (id.isPresent()) {
+                // Запрос всё равно проходит через менеджер, чтобы просмотр попал в историю
+                String etag = buildEtag("task", taskManager.getEntityVersion(id.get()));
                 Task task = taskManager.getTaskById(id.get());
+                if (sendNotModifiedIfMatches(exchange, etag)) {
+                    return;
+                }
                 sendText(exchange, gson.toJson(task), OK.code());
             } else {
                 sendNotFound(exchange);
@@ -129,6 +129,6 @@ public class Epic extends Task {
         // Для эпика в строковом представлении не фиксируем текущие значения таймингов,
         // поскольку они высчитываются на основе его подзадач
         return String.format("%d,%s,%s,%s,%s,,0,",
-                id, type, title, status, description);
+                id, type, csvField(title), status, csvField(description));
     }
 }
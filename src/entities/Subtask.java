@@ -50,6 +50,6 @@ public class Subtask extends Task {
     @Override
     public String toString() {
         return String.format("%d,%s,%s,%s,%s,%d,%d,%s",
-                id, type, title, status, description, epicId, duration.toMinutes(), (startTime == null) ? "" : startTime);
+                id, type, csvField(title), status, csvField(description), epicId, duration.toMinutes(), (startTime == null) ? "" : startTime);
     }
 }
@@ -2,7 +2,6 @@ package entities;
 
 import enums.TaskStatus;
 import enums.TaskType;
-import exceptions.TaskStringParseException;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -126,80 +125,19 @@ public class Task {
         return getId();
     }
 
+    // Для отладки; в хранилище записи пишет TaskCsvWriter в том же формате
     @Override
     public String toString() {
         return String.format("%d,%s,%s,%s,%s,,%d,%s",
-                id, type, title, status, description, duration.toMinutes(), (startTime == null) ? "" : startTime);
+                id, type, csvField(title), status, csvField(description), duration.toMinutes(), (startTime == null) ? "" : startTime);
     }
 
     public static Task fromString(String line) {
-        String[] fields = line.trim().split(",");
-
-        // Проверка на базовый набор частей строки для создания объекта с минимально необходимым набором свойств
-        if (fields.length < 5) {
-            throw new TaskStringParseException(String.format("Некорректная длина строки: %s", line));
-        }
-
-        int id;
-        try {
-            id = Integer.parseInt(fields[0]);
-        } catch (NumberFormatException ex) {
-            throw new TaskStringParseException(String.format("Некорректный id строки: %s", line));
-        }
-
-        TaskType type = TaskType.valueOf(fields[1]);
-        String title = fields[2];
-        TaskStatus status = fields[3].isEmpty() ? TaskStatus.NEW : TaskStatus.valueOf(fields[3]);
-        String description = fields[4];
-        Duration duration = Duration.ZERO;
-        LocalDateTime localDateTime = null;
-
-        // Проверка на дополнительный набор частей строки - тайминги
-        if (fields.length > 7) {
-            // Длительность
-            if (!fields[6].isBlank()) {
-                try {
-                    duration = Duration.ofMinutes(Long.parseLong(fields[6]));
-                } catch (NumberFormatException ex) {
-                    throw new TaskStringParseException(String.format("Некорректный epic id строки: %s", line));
-                }
-            }
-            // Дата создания
-            if (!fields[7].isBlank()) {
-                try {
-                    localDateTime = LocalDateTime.parse(fields[7]);
-                } catch (NumberFormatException ex) {
-                    throw new TaskStringParseException(String.format("Некорректный epic id строки: %s", line));
-                }
-            }
-        }
+        return new TaskCsvParser().parse(line);
+    }
 
-        switch (type) {
-            case TASK:
-                Task task = new Task(title, description, status, localDateTime, duration);
-                task.setId(id);
-                return task;
-            case EPIC:
-                Epic epic = new Epic(title, description, status);
-                epic.setId(id);
-                return epic;
-            case SUBTASK:
-                Subtask subtask = new Subtask(title, description, status, localDateTime, duration);
-                subtask.setId(id);
-
-                if (fields.length > 5 && !fields[5].isBlank()) {
-                    int epicId;
-                    try {
-                        epicId = Integer.parseInt(fields[5]);
-                    } catch (NumberFormatException ex) {
-                        throw new TaskStringParseException(String.format("Некорректный epic id строки: %s", line));
-                    }
-                    subtask.setEpicId(epicId);
-                }
-
-                return subtask;
-            default:
-                throw new TaskStringParseException(String.format("Неизвестный тип задачи: %s", type));
-        }
+    // Поле с запятой, кавычкой или переводом строки берётся в кавычки - формат разбирает TaskCsvParser
+    protected static String csvField(String value) {
+        return TaskCsvWriter.appendField(new StringBuilder(), value).toString();
     }
 }
@@ -0,0 +1,51 @@
+package entities;
+
+import enums.ChangeType;
+import enums.TaskType;
+
+// Запись журнала изменений: версия изменения, его вид и состояние сущности после изменения (для удаления - null)
+public class TaskChange {
+    private final long version;
+    private final ChangeType changeType;
+    private final TaskType taskType;
+    private final int id;
+    private final Task task;
+
+    public TaskChange(long version, ChangeType changeType, TaskType taskType, int id, Task task) {
+        this.version = version;
+        this.changeType = changeType;
+        this.taskType = taskType;
+        this.id = id;
+        this.task = task;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ChangeType getChangeType() {
+        return changeType;
+    }
+
+    public TaskType getTaskType() {
+        return taskType;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Task getTask() {
+        return task;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskChange{" +
+                "version=" + version +
+                ", changeType=" + changeType +
+                ", taskType=" + taskType +
+                ", id=" + id +
+                "}";
+    }
+}
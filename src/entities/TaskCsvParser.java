@@ -0,0 +1,278 @@
+package entities;
+
+import enums.TaskStatus;
+import enums.TaskType;
+import exceptions.TaskStringParseException;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Разбор записи хранилища (id,type,name,status,description,epic,duration,startTime) в сущность.
+// Строка не делится на подстроки: границы полей запоминаются в переиспользуемых массивах, числа, статус, тип
+// и время начала разбираются прямо из символов, новые строки создаются только для названия и описания.
+// Поле в кавычках может содержать запятые; кавычка внутри него удваивается, а перевод строки, возврат каретки
+// и обратная косая черта записываются как \n, \r и \\ - запись всегда занимает одну строку файла.
+// Экземпляр хранит состояние разбора и не потокобезопасен
+public final class TaskCsvParser {
+    private static final int FIELDS_COUNT = 8;
+    private static final int ID = 0;
+    private static final int TYPE = 1;
+    private static final int TITLE = 2;
+    private static final int STATUS = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int EPIC_ID = 5;
+    private static final int DURATION = 6;
+    private static final int START_TIME = 7;
+    // Имена значений перечислений для сравнения с полем без создания строки
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final String[] TYPE_NAMES = names(TYPES);
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final String[] STATUS_NAMES = names(STATUSES);
+
+    private final int[] fieldStarts = new int[FIELDS_COUNT];
+    private final int[] fieldEnds = new int[FIELDS_COUNT];
+    private final boolean[] fieldQuoted = new boolean[FIELDS_COUNT];
+    private final StringBuilder unquoted = new StringBuilder();
+    private int fieldsCount;
+
+    public Task parse(CharSequence line) {
+        return parse(line, 0, line.length());
+    }
+
+    // Разбирает запись line[start, end); пробелы по краям записи игнорируются
+    public Task parse(CharSequence line, int start, int end) {
+        while (start < end && Character.isWhitespace(line.charAt(start))) {
+            start++;
+        }
+        while (end > start && Character.isWhitespace(line.charAt(end - 1))) {
+            end--;
+        }
+        splitFields(line, start, end);
+
+        // Проверка на базовый набор частей строки для создания объекта с минимально необходимым набором свойств
+        if (fieldsCount <= DESCRIPTION) {
+            throw error("Некорректная длина строки", line, start, end);
+        }
+        int id = parseInt(line, ID, "Некорректный id строки", start, end);
+        TaskType type = lookup(line, TYPE, TYPES, TYPE_NAMES);
+        if (type == null) {
+            throw error("Неизвестный тип задачи", line, start, end);
+        }
+        TaskStatus status = TaskStatus.NEW;
+        if (!isBlank(line, STATUS)) {
+            status = lookup(line, STATUS, STATUSES, STATUS_NAMES);
+            if (status == null) {
+                throw error("Неизвестный статус задачи", line, start, end);
+            }
+        }
+        String title = text(line, TITLE);
+        String description = text(line, DESCRIPTION);
+
+        Task item = switch (type) {
+            case TASK -> new Task(title, description, status, parseStartTime(line, start, end),
+                    parseDuration(line, start, end));
+            case SUBTASK -> {
+                Subtask subtask = new Subtask(title, description, status, parseStartTime(line, start, end),
+                        parseDuration(line, start, end));
+                if (fieldsCount > EPIC_ID && !isBlank(line, EPIC_ID)) {
+                    subtask.setEpicId(parseInt(line, EPIC_ID, "Некорректный epic id строки", start, end));
+                }
+                yield subtask;
+            }
+            // Тайминги эпика высчитываются по его подзадачам и в записи не хранятся
+            case EPIC -> new Epic(title, description, status);
+        };
+        item.setId(id);
+        return item;
+    }
+
+    // Запоминает границы полей; у полей в кавычках - границы содержимого без кавычек.
+    // Поля после последнего известного игнорируются
+    private void splitFields(CharSequence line, int start, int end) {
+        fieldsCount = 0;
+        int position = start;
+        while (fieldsCount < FIELDS_COUNT) {
+            int field = fieldsCount++;
+            if (position < end && line.charAt(position) == '"') {
+                fieldQuoted[field] = true;
+                fieldStarts[field] = position + 1;
+                position = closingQuote(line, position + 1, end);
+                fieldEnds[field] = position;
+                position++;
+                if (position < end && line.charAt(position) != ',') {
+                    throw error("Символы после закрывающей кавычки", line, start, end);
+                }
+            } else {
+                fieldQuoted[field] = false;
+                fieldStarts[field] = position;
+                while (position < end && line.charAt(position) != ',') {
+                    position++;
+                }
+                fieldEnds[field] = position;
+            }
+            if (position >= end) {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private int closingQuote(CharSequence line, int position, int end) {
+        while (position < end) {
+            char symbol = line.charAt(position);
+            if (symbol == '\\') {
+                position += 2;
+            } else if (symbol == '"') {
+                if (position + 1 < end && line.charAt(position + 1) == '"') {
+                    position += 2;
+                } else {
+                    return position;
+                }
+            } else {
+                position++;
+            }
+        }
+        throw new TaskStringParseException(String.format("Незакрытая кавычка в строке: %s", line));
+    }
+
+    private String text(CharSequence line, int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        if (!fieldQuoted[field]) {
+            return line.subSequence(start, end).toString();
+        }
+        unquoted.setLength(0);
+        for (int i = start; i < end; i++) {
+            char symbol = line.charAt(i);
+            if (symbol == '"') {
+                i++;
+            } else if (symbol == '\\' && i + 1 < end) {
+                i++;
+                symbol = switch (line.charAt(i)) {
+                    case 'n' -> '\n';
+                    case 'r' -> '\r';
+                    default -> line.charAt(i);
+                };
+            }
+            unquoted.append(symbol);
+        }
+        return unquoted.toString();
+    }
+
+    private Duration parseDuration(CharSequence line, int start, int end) {
+        if (fieldsCount <= DURATION || isBlank(line, DURATION)) {
+            return Duration.ZERO;
+        }
+        try {
+            return Duration.ofMinutes(Long.parseLong(line, fieldStarts[DURATION], fieldEnds[DURATION], 10));
+        } catch (NumberFormatException ex) {
+            throw error("Некорректная длительность строки", line, start, end);
+        }
+    }
+
+    // Время начала в формате LocalDateTime.toString: 2024-01-01T09:00[:30[.123456789]].
+    // Всё, что не укладывается в этот вид (например, год из пяти цифр), разбирает LocalDateTime.parse
+    private LocalDateTime parseStartTime(CharSequence line, int start, int end) {
+        if (fieldsCount <= START_TIME || isBlank(line, START_TIME)) {
+            return null;
+        }
+        int from = fieldStarts[START_TIME];
+        int length = fieldEnds[START_TIME] - from;
+        try {
+            if (length >= 16 && line.charAt(from + 4) == '-' && line.charAt(from + 7) == '-'
+                    && line.charAt(from + 10) == 'T' && line.charAt(from + 13) == ':') {
+                int year = digits(line, from, 4);
+                int month = digits(line, from + 5, 2);
+                int day = digits(line, from + 8, 2);
+                int hour = digits(line, from + 11, 2);
+                int minute = digits(line, from + 14, 2);
+                int second = 0;
+                int nano = 0;
+                boolean valid = year >= 0 && month >= 0 && day >= 0 && hour >= 0 && minute >= 0;
+                if (valid && length > 16) {
+                    second = line.charAt(from + 16) == ':' && length >= 19 ? digits(line, from + 17, 2) : -1;
+                    valid = second >= 0;
+                    if (valid && length > 19) {
+                        int fractionDigits = length - 20;
+                        nano = line.charAt(from + 19) == '.' && fractionDigits >= 1 && fractionDigits <= 9
+                                ? digits(line, from + 20, fractionDigits) : -1;
+                        for (int i = fractionDigits; i < 9 && nano > 0; i++) {
+                            nano *= 10;
+                        }
+                        valid = nano >= 0;
+                    }
+                }
+                if (valid) {
+                    return LocalDateTime.of(year, month, day, hour, minute, second, nano);
+                }
+            }
+            return LocalDateTime.parse(line.subSequence(from, from + length));
+        } catch (DateTimeException ex) {
+            throw error("Некорректное время начала строки", line, start, end);
+        }
+    }
+
+    // Неотрицательное число из count десятичных цифр либо -1
+    private static int digits(CharSequence line, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            char symbol = line.charAt(i);
+            if (symbol < '0' || symbol > '9') {
+                return -1;
+            }
+            value = value * 10 + (symbol - '0');
+        }
+        return value;
+    }
+
+    private int parseInt(CharSequence line, int field, String message, int start, int end) {
+        try {
+            return Integer.parseInt(line, fieldStarts[field], fieldEnds[field], 10);
+        } catch (NumberFormatException ex) {
+            throw error(message, line, start, end);
+        }
+    }
+
+    private <E> E lookup(CharSequence line, int field, E[] values, String[] names) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        for (int i = 0; i < names.length; i++) {
+            String name = names[i];
+            if (name.length() == length && regionMatches(line, start, name)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+    private static boolean regionMatches(CharSequence line, int start, String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (line.charAt(start + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isBlank(CharSequence line, int field) {
+        for (int i = fieldStarts[field]; i < fieldEnds[field]; i++) {
+            if (!Character.isWhitespace(line.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TaskStringParseException error(String message, CharSequence line, int start, int end) {
+        return new TaskStringParseException(String.format("%s: %s", message, line.subSequence(start, end)));
+    }
+
+    private static String[] names(Enum<?>[] values) {
+        String[] names = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name();
+        }
+        return names;
+    }
+}
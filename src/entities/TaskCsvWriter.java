@@ -0,0 +1,114 @@
+package entities;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Запись сущности в формате хранилища (id,type,name,status,description,epic,duration,startTime) прямо в
+// переданный StringBuilder - без разбора строки формата, упаковки чисел и промежуточной строки на запись.
+// Результат побайтно совпадает с toString(), который остаётся для отладки; формат разбирает TaskCsvParser
+public final class TaskCsvWriter {
+    private TaskCsvWriter() {
+    }
+
+    public static StringBuilder append(StringBuilder target, Task item) {
+        target.append(item.getId()).append(',')
+                .append(item.getType().name()).append(',');
+        appendField(target, item.getTitle()).append(',')
+                .append(item.getStatus()).append(',');
+        appendField(target, item.getDescription()).append(',');
+        // Тайминги эпика высчитываются по его подзадачам и не сохраняются
+        if (item instanceof Epic) {
+            return target.append(",0,");
+        }
+        if (item instanceof Subtask subtask) {
+            target.append(subtask.getEpicId());
+        }
+        Duration duration = item.getDuration();
+        target.append(',').append(duration == null ? 0 : duration.toMinutes()).append(',');
+        if (item.getStartTime() != null) {
+            appendDateTime(target, item.getStartTime());
+        }
+        return target;
+    }
+
+    // Поле с запятой, кавычкой или переводом строки берётся в кавычки: кавычка удваивается,
+    // а перевод строки, возврат каретки и обратная косая черта записываются как \n, \r и \\
+    public static StringBuilder appendField(StringBuilder target, String value) {
+        if (value == null || !needsQuotes(value)) {
+            return target.append(value);
+        }
+        target.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            switch (symbol) {
+                case '"' -> target.append("\"\"");
+                case '\\' -> target.append("\\\\");
+                case '\n' -> target.append("\\n");
+                case '\r' -> target.append("\\r");
+                default -> target.append(symbol);
+            }
+        }
+        return target.append('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char symbol = value.charAt(i);
+            if (symbol == ',' || symbol == '"' || symbol == '\n' || symbol == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Повторяет LocalDateTime.toString: uuuu-MM-ddTHH:mm, секунды - если они или доли секунды ненулевые,
+    // доли секунды - тремя, шестью или девятью цифрами
+    private static void appendDateTime(StringBuilder target, LocalDateTime dateTime) {
+        int year = dateTime.getYear();
+        int absYear = Math.abs(year);
+        if (absYear < 1000) {
+            if (year < 0) {
+                target.append('-');
+            }
+            appendPadded(target, absYear, 4);
+        } else {
+            if (year > 9999) {
+                target.append('+');
+            }
+            target.append(year);
+        }
+        target.append('-');
+        appendPadded(target, dateTime.getMonthValue(), 2);
+        target.append('-');
+        appendPadded(target, dateTime.getDayOfMonth(), 2);
+        target.append('T');
+        appendPadded(target, dateTime.getHour(), 2);
+        target.append(':');
+        appendPadded(target, dateTime.getMinute(), 2);
+        int second = dateTime.getSecond();
+        int nano = dateTime.getNano();
+        if (second > 0 || nano > 0) {
+            target.append(':');
+            appendPadded(target, second, 2);
+            if (nano > 0) {
+                target.append('.');
+                if (nano % 1_000_000 == 0) {
+                    appendPadded(target, nano / 1_000_000, 3);
+                } else if (nano % 1_000 == 0) {
+                    appendPadded(target, nano / 1_000, 6);
+                } else {
+                    appendPadded(target, nano, 9);
+                }
+            }
+        }
+    }
+
+    private static void appendPadded(StringBuilder target, int value, int width) {
+        for (int limit = 10, digits = 1; digits < width; limit *= 10, digits++) {
+            if (value < limit) {
+                target.append('0');
+            }
+        }
+        target.append(value);
+    }
+}
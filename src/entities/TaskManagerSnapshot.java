@@ -0,0 +1,93 @@
+package entities;
+
+import utilities.PersistentSortedMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Состояние менеджера на момент версии version: неизменяемые карты сущностей и отсортированных по времени задач,
+// которые менеджер разделяет со своими следующими состояниями. Создаётся за O(1), не меняется вместе с менеджером,
+// поэтому его можно читать в другом потоке сколько угодно долго, не блокируя изменения.
+// Сущности снимка общие с менеджером и не должны изменяться
+public class TaskManagerSnapshot {
+    private final long version;
+    private final PersistentSortedMap<Integer, Task> tasks;
+    private final PersistentSortedMap<Integer, Subtask> subtasks;
+    private final PersistentSortedMap<Integer, Epic> epics;
+    private final PersistentSortedMap<Task, Task> prioritizedTasks;
+
+    public TaskManagerSnapshot(long version, PersistentSortedMap<Integer, Task> tasks,
+                               PersistentSortedMap<Integer, Subtask> subtasks, PersistentSortedMap<Integer, Epic> epics,
+                               PersistentSortedMap<Task, Task> prioritizedTasks) {
+        this.version = version;
+        this.tasks = tasks;
+        this.subtasks = subtasks;
+        this.epics = epics;
+        this.prioritizedTasks = prioritizedTasks;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Списки - неизменяемые представления в порядке id
+    public List<Task> getTasks() {
+        return tasks.values();
+    }
+
+    public List<Subtask> getSubtasks() {
+        return subtasks.values();
+    }
+
+    public List<Epic> getEpics() {
+        return epics.values();
+    }
+
+    // Задачи и подзадачи со временем начала в порядке времени
+    public List<Task> getPrioritizedTasks() {
+        return prioritizedTasks.values();
+    }
+
+    // Сущность по id либо null, если её в снимке нет
+    public Task getTask(int id) {
+        return tasks.get(id);
+    }
+
+    public Subtask getSubtask(int id) {
+        return subtasks.get(id);
+    }
+
+    public Epic getEpic(int id) {
+        return epics.get(id);
+    }
+
+    // Подзадачи эпика в порядке его списка подзадач; для отсутствующего эпика - пустой список
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = epics.get(epicId);
+        if (epic == null) {
+            return List.of();
+        }
+        List<Subtask> epicSubtasks = new ArrayList<>(epic.getSubtasksIds().size());
+        for (int subtaskId : epic.getSubtasksIds()) {
+            Subtask subtask = subtasks.get(subtaskId);
+            if (subtask != null) {
+                epicSubtasks.add(subtask);
+            }
+        }
+        return epicSubtasks;
+    }
+
+    public int size() {
+        return tasks.size() + subtasks.size() + epics.size();
+    }
+
+    @Override
+    public String toString() {
+        return "TaskManagerSnapshot{" +
+                "version=" + version +
+                ", tasks=" + tasks.size() +
+                ", subtasks=" + subtasks.size() +
+                ", epics=" + epics.size() +
+                "}";
+    }
+}
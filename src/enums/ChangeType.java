@@ -0,0 +1,7 @@
+package enums;
+
+public enum ChangeType {
+    CREATE,
+    UPDATE,
+    DELETE;
+}
@@ -3,9 +3,12 @@ package enums;
 public enum HttpStatusCode {
     OK(200),
     CREATED(201),
+    NOT_MODIFIED(304),
+    BAD_REQUEST(400),
     NOT_FOUND(404),
     METHOD_NOT_ALLOWED(405),
     NOT_ACCEPTABLE(406),
+    GONE(410),
     INTERNAL_SERVER_ERROR(500);
 
     private final int code;
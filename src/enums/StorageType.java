@@ -0,0 +1,8 @@
+package enums;
+
+public enum StorageType {
+    CSV,
+    CSV_SHARDED,
+    MAPPED,
+    JDBC;
+}
@@ -0,0 +1,11 @@
+package exceptions;
+
+public class ChangesExpiredException extends RuntimeException {
+    public ChangesExpiredException(String message) {
+        super(message);
+    }
+
+    public ChangesExpiredException(Exception ex) {
+        super(ex);
+    }
+}
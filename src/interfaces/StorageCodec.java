@@ -0,0 +1,17 @@
+package interfaces;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+// Сжатие файла хранилища. Сжатый поток начинается с сигнатуры кодека - по ней формат файла определяется
+// при загрузке, поэтому сигнатуры разных кодеков не должны быть префиксами друг друга
+public interface StorageCodec {
+    byte[] getMagic();
+
+    // Поток, сжимающий записанное в out; закрытие потока закрывает и out
+    OutputStream compress(OutputStream out) throws IOException;
+
+    // Поток распакованных данных; in начинается с сигнатуры кодека
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,8 @@
+package interfaces;
+
+import entities.TaskChange;
+
+public interface TaskChangeListener {
+    // Вызывается после каждого изменения в менеджере - в том же потоке, поэтому реализация не должна блокироваться
+    void onChange(TaskChange change);
+}
@@ -3,6 +3,10 @@ package interfaces;
 import entities.Epic;
 import entities.Subtask;
 import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.TaskStatus;
+import enums.TaskType;
 
 import java.util.List;
 
@@ -54,4 +58,28 @@ public interface TaskManager {
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    List<Task> getByStatus(TaskType type, TaskStatus status);
+
+    int getItemsCount(TaskType type);
+
+    List<Task> search(String query, int limit);
+
+    long getVersion();
+
+    List<TaskChange> getChangesSince(long version);
+
+    long getEntityVersion(int id);
+
+    long getCollectionVersion(TaskType type);
+
+    long getHistoryVersion();
+
+    void addChangeListener(TaskChangeListener listener);
+
+    void removeChangeListener(TaskChangeListener listener);
+
+    void runInTransaction(Runnable operations);
+
+    TaskManagerSnapshot snapshot();
 }
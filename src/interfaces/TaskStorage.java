@@ -0,0 +1,39 @@
+package interfaces;
+
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Хранилище состояния менеджера. Менеджер передаёт ему каждое изменение, а по завершении внешней операции
+// или транзакции просит зафиксировать накопленное. Все методы вызываются в потоке, изменяющем менеджер
+public interface TaskStorage {
+    // Сохранённые сущности с их id, в любом порядке
+    List<Task> load();
+
+    // Сохранённая история просмотров - id от самого старого просмотра к последнему; id удалённых сущностей
+    // могут встречаться, менеджер их пропускает
+    default List<Integer> loadHistory() {
+        return List.of();
+    }
+
+    // Вызывается на каждый просмотр сущности, вне операций изменения, поэтому не должен ждать сброса
+    default void recordView(int id) {
+    }
+
+    // Вызывается на каждое изменение, в том числе на пересчёт эпика; сущность в изменении - копия
+    void apply(TaskChange change);
+
+    // Фиксирует изменения, переданные с прошлого сброса. Хранилища, которые пишут состояние целиком,
+    // получают его от allItems, остальные его не запрашивают. Это сами хранимые сущности - ссылки на них не сохраняются
+    void flush(Supplier<List<Task>> allItems);
+
+    // Пора ли заменить накопленные изменения полным снимком состояния
+    boolean isSnapshotDue();
+
+    // Записывает полный снимок состояния; запись может продолжаться в фоне
+    CompletableFuture<Void> snapshot(TaskManagerSnapshot snapshot);
+}
@@ -0,0 +1,109 @@
+package managers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32C;
+
+// Байты записей CSV-хранилища. Запись собирается в переиспользуемом StringBuilder и кодируется в UTF-8 прямо
+// в буфер - один раз и без промежуточных строк; перед ней ставится CRC32C её байт (8 шестнадцатеричных цифр
+// и запятая), после - перевод строки. Экземпляр не потокобезопасен
+final class ChecksummedRecordBuffer {
+    static final int CHECKSUM_LENGTH = 9;
+    private static final byte[] HEX_DIGITS = "0123456789abcdef".getBytes();
+
+    private final StringBuilder record = new StringBuilder(256);
+    private final CRC32C checksum = new CRC32C();
+    private byte[] bytes;
+    private int length = 0;
+    private int recordsCount = 0;
+
+    ChecksummedRecordBuffer(int initialCapacity) {
+        bytes = new byte[initialCapacity];
+    }
+
+    // Очищенная запись для заполнения; в буфер она попадает по commitRecord()
+    StringBuilder startRecord() {
+        record.setLength(0);
+        return record;
+    }
+
+    void commitRecord() {
+        ensureCapacity(CHECKSUM_LENGTH + 3 * record.length() + 1);
+        int checksumStart = length;
+        int recordStart = checksumStart + CHECKSUM_LENGTH;
+        length = encodeUtf8(record, 0, record.length(), bytes, recordStart);
+        checksum.reset();
+        checksum.update(bytes, recordStart, length - recordStart);
+        int value = (int) checksum.getValue();
+        for (int i = CHECKSUM_LENGTH - 2; i >= 0; i--) {
+            bytes[checksumStart + i] = HEX_DIGITS[value & 0xF];
+            value >>>= 4;
+        }
+        bytes[recordStart - 1] = ',';
+        bytes[length++] = '\n';
+        recordsCount++;
+    }
+
+    // Строка без контрольной суммы - заголовок файла
+    void appendLine(String line) {
+        ensureCapacity(3 * line.length() + 1);
+        length = encodeUtf8(line, 0, line.length(), bytes, length);
+        bytes[length++] = '\n';
+    }
+
+    int size() {
+        return length;
+    }
+
+    int recordsCount() {
+        return recordsCount;
+    }
+
+    boolean isEmpty() {
+        return length == 0;
+    }
+
+    void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, length);
+    }
+
+    void clear() {
+        length = 0;
+        recordsCount = 0;
+    }
+
+    private void ensureCapacity(int extraBytes) {
+        if (length + extraBytes > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, length + extraBytes));
+        }
+    }
+
+    // Кодирует text[start, end) в UTF-8 с позиции offset так же, как String.getBytes: одиночный суррогат
+    // заменяется на '?'. В target должно быть не меньше трёх байт на символ. Возвращает позицию после записанного
+    static int encodeUtf8(CharSequence text, int start, int end, byte[] target, int offset) {
+        for (int i = start; i < end; i++) {
+            char symbol = text.charAt(i);
+            if (symbol < 0x80) {
+                target[offset++] = (byte) symbol;
+            } else if (symbol < 0x800) {
+                target[offset++] = (byte) (0xC0 | (symbol >> 6));
+                target[offset++] = (byte) (0x80 | (symbol & 0x3F));
+            } else if (Character.isHighSurrogate(symbol) && i + 1 < end
+                    && Character.isLowSurrogate(text.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(symbol, text.charAt(++i));
+                target[offset++] = (byte) (0xF0 | (codePoint >> 18));
+                target[offset++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                target[offset++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                target[offset++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(symbol)) {
+                target[offset++] = '?';
+            } else {
+                target[offset++] = (byte) (0xE0 | (symbol >> 12));
+                target[offset++] = (byte) (0x80 | ((symbol >> 6) & 0x3F));
+                target[offset++] = (byte) (0x80 | (symbol & 0x3F));
+            }
+        }
+        return offset;
+    }
+}
@@ -0,0 +1,328 @@
+package managers;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskManagerSnapshot;
+import exceptions.NotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+// Менеджер с одним потоком-писателем вместо блокировок. Изменения ставятся в ограниченный кольцевой буфер
+// и возвращают CompletableFuture; поток-писатель забирает их пачками, применяет к менеджеру-делегату в одной
+// транзакции (у файлового делегата - один сброс хранилища на пачку) и публикует снимок состояния.
+// Чтение идёт из последнего опубликованного снимка и никогда не блокируется; после завершения future
+// изменения видны в чтении. Ошибка команды, например TaskIntersectionException, завершает только её future.
+//
+// Менеджер создаётся методом start, который запускает поток-писатель уже после конструктора.
+// Делегат после передачи в start принадлежит потоку-писателю - обращаться к нему напрямую нельзя.
+// Переданные в команды сущности копируются и не меняются. Чтение из снимка не попадает в историю просмотров.
+// Зависимые от future действия без Async выполняются в потоке-писателе и должны быть короткими
+public class CommandLoopTaskManager implements AutoCloseable {
+    public static final int DEFAULT_CAPACITY = 1024;
+    public static final int DEFAULT_MAX_BATCH_SIZE = 256;
+    // Ожидание места в заполненном буфере: сначала активное, затем с засыпанием
+    private static final int SPINS_BEFORE_PARK = 100;
+    private static final long FULL_BUFFER_PARK_NANOS = 50_000;
+
+    private final InMemoryTaskManager delegate;
+    private final CommandRingBuffer<Command<?>> commands;
+    private final int maxBatchSize;
+    private Thread writer;
+    private volatile TaskManagerSnapshot published;
+    private volatile boolean writerWaiting = false;
+    private volatile boolean closed = false;
+    // Потоки, которые прошли проверку закрытия и ставят команду в буфер
+    private final AtomicInteger enqueuingThreads = new AtomicInteger();
+
+    private CommandLoopTaskManager(InMemoryTaskManager delegate, int capacity, int maxBatchSize) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Размер пачки должен быть положительным");
+        }
+        this.delegate = delegate;
+        this.commands = new CommandRingBuffer<>(capacity);
+        this.maxBatchSize = maxBatchSize;
+        this.published = delegate.snapshot();
+    }
+
+    public static CommandLoopTaskManager start(InMemoryTaskManager delegate) {
+        return start(delegate, DEFAULT_CAPACITY, DEFAULT_MAX_BATCH_SIZE);
+    }
+
+    // Поток-писатель получает ссылку только на полностью сконструированный менеджер
+    public static CommandLoopTaskManager start(InMemoryTaskManager delegate, int capacity, int maxBatchSize) {
+        CommandLoopTaskManager manager = new CommandLoopTaskManager(delegate, capacity, maxBatchSize);
+        manager.writer = Thread.ofPlatform().name("task-command-loop").daemon(true).start(manager::runWriter);
+        return manager;
+    }
+
+    public CompletableFuture<Integer> createTask(Task task) {
+        Task command = task == null ? null : new Task(task);
+        return submit(() -> delegate.createTask(command));
+    }
+
+    public CompletableFuture<Integer> createSubtask(Subtask subtask) {
+        Subtask command = subtask == null ? null : new Subtask(subtask);
+        return submit(() -> delegate.createSubtask(command));
+    }
+
+    public CompletableFuture<Integer> createEpic(Epic epic) {
+        Epic command = epic == null ? null : new Epic(epic);
+        return submit(() -> delegate.createEpic(command));
+    }
+
+    public CompletableFuture<Void> updateTask(Task task) {
+        Task command = task == null ? null : new Task(task);
+        return submit(() -> delegate.updateTask(command));
+    }
+
+    public CompletableFuture<Void> updateSubtask(Subtask subtask) {
+        Subtask command = subtask == null ? null : new Subtask(subtask);
+        return submit(() -> delegate.updateSubtask(command));
+    }
+
+    public CompletableFuture<Void> updateEpic(Epic epic) {
+        Epic command = epic == null ? null : new Epic(epic);
+        return submit(() -> delegate.updateEpic(command));
+    }
+
+    public CompletableFuture<Void> deleteTask(int id) {
+        return submit(() -> delegate.deleteTask(id));
+    }
+
+    public CompletableFuture<Void> deleteSubtask(int id) {
+        return submit(() -> delegate.deleteSubtask(id));
+    }
+
+    public CompletableFuture<Void> deleteEpic(int id) {
+        return submit(() -> delegate.deleteEpic(id));
+    }
+
+    public CompletableFuture<Void> deleteAllTasks() {
+        return submit(delegate::deleteAllTasks);
+    }
+
+    public CompletableFuture<Void> deleteAllSubtasks() {
+        return submit(delegate::deleteAllSubtasks);
+    }
+
+    public CompletableFuture<Void> deleteAllEpics() {
+        return submit(delegate::deleteAllEpics);
+    }
+
+    public Task getTaskById(int id) {
+        Task task = published.getTask(id);
+        if (task == null) {
+            throw new NotFoundException(String.format("Задача с id '%d' не найдена", id));
+        }
+        return new Task(task);
+    }
+
+    public Subtask getSubtaskById(int id) {
+        Subtask subtask = published.getSubtask(id);
+        if (subtask == null) {
+            throw new NotFoundException(String.format("Подзадача с id '%d' не найдена", id));
+        }
+        return new Subtask(subtask);
+    }
+
+    public Epic getEpicById(int id) {
+        Epic epic = published.getEpic(id);
+        if (epic == null) {
+            throw new NotFoundException(String.format("Эпик с id '%d' не найден", id));
+        }
+        return new Epic(epic);
+    }
+
+    // Списки ниже - неизменяемые представления одного снимка; их сущности общие со снимком и не должны меняться
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        TaskManagerSnapshot snapshot = published;
+        if (snapshot.getEpic(epicId) == null) {
+            throw new NotFoundException(String.format("Эпик с id '%d' не найден", epicId));
+        }
+        return snapshot.getEpicSubtasks(epicId);
+    }
+
+    public List<Task> getPrioritizedTasks() {
+        return published.getPrioritizedTasks();
+    }
+
+    public List<Task> getTasks() {
+        return published.getTasks();
+    }
+
+    public List<Subtask> getSubtasks() {
+        return published.getSubtasks();
+    }
+
+    public List<Epic> getEpics() {
+        return published.getEpics();
+    }
+
+    // Последний опубликованный снимок - согласованное состояние после целой пачки команд
+    public TaskManagerSnapshot snapshot() {
+        return published;
+    }
+
+    public long getVersion() {
+        return published.getVersion();
+    }
+
+    // Новые команды отклоняются, уже поставленные в буфер выполняются до конца
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        while (enqueuingThreads.get() > 0) {
+            Thread.onSpinWait();
+        }
+        // Команда остановки встаёт в буфер последней - после неё новых команд уже не будет
+        enqueue(new Command<>(null));
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<Void> submit(Runnable operation) {
+        return submit(() -> {
+            operation.run();
+            return null;
+        });
+    }
+
+    // Проверка закрытия и постановка в буфер под счётчиком: close дожидается уже прошедших проверку потоков
+    private <R> CompletableFuture<R> submit(Supplier<R> operation) {
+        Command<R> command = new Command<>(operation);
+        enqueuingThreads.incrementAndGet();
+        try {
+            if (closed) {
+                command.result.completeExceptionally(
+                        new RejectedExecutionException("Менеджер закрыт: изменения не принимаются"));
+                return command.result;
+            }
+            enqueue(command);
+        } finally {
+            enqueuingThreads.decrementAndGet();
+        }
+        return command.result;
+    }
+
+    // Заполненный буфер притормаживает писателей, пока поток-писатель не освободит место
+    private void enqueue(Command<?> command) {
+        int spins = 0;
+        while (!commands.offer(command)) {
+            if (++spins < SPINS_BEFORE_PARK) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(FULL_BUFFER_PARK_NANOS);
+            }
+        }
+        if (writerWaiting) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void runWriter() {
+        List<Command<?>> batch = new ArrayList<>(Math.min(maxBatchSize, commands.capacity()));
+        try {
+            boolean stopping = false;
+            while (!stopping) {
+                Command<?> command = commands.poll();
+                if (command == null) {
+                    // Флаг ожидания выставляется до повторной проверки - поставленная после неё команда разбудит поток
+                    writerWaiting = true;
+                    if (commands.isEmpty()) {
+                        LockSupport.park(this);
+                    }
+                    writerWaiting = false;
+                    continue;
+                }
+                while (command != null && !stopping) {
+                    if (command.operation == null) {
+                        stopping = true;
+                    } else {
+                        batch.add(command);
+                        command = batch.size() < maxBatchSize ? commands.poll() : null;
+                    }
+                }
+                applyBatch(batch);
+                batch.clear();
+            }
+        } catch (Throwable e) {
+            failPendingCommands(batch, e);
+            throw e;
+        }
+    }
+
+    // Ошибка вне команды (например, Error) останавливает поток-писатель: менеджер закрывается, а команды
+    // текущей пачки и буфера завершаются исключением, чтобы ожидающие их потоки не зависли навсегда.
+    // Буфер вычерпывается, пока в него ставят команды потоки, прошедшие проверку закрытия до ошибки
+    private void failPendingCommands(List<Command<?>> batch, Throwable cause) {
+        closed = true;
+        RejectedExecutionException error = new RejectedExecutionException("Поток-писатель остановлен ошибкой", cause);
+        batch.forEach(command -> command.result.completeExceptionally(error));
+        do {
+            for (Command<?> command = commands.poll(); command != null; command = commands.poll()) {
+                command.result.completeExceptionally(error);
+            }
+        } while (enqueuingThreads.get() > 0 || !commands.isEmpty());
+    }
+
+    // Команды пачки применяются по отдельности - ошибка одной не отменяет остальные, а хранилище
+    // делегата сбрасывается один раз в конце транзакции. Future завершаются после публикации снимка
+    private void applyBatch(List<Command<?>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        RuntimeException flushError = null;
+        try {
+            delegate.runInTransaction(() -> batch.forEach(Command::apply));
+        } catch (RuntimeException e) {
+            flushError = e;
+        }
+        published = delegate.snapshot();
+        for (Command<?> command : batch) {
+            command.complete(flushError);
+        }
+    }
+
+    private static final class Command<R> {
+        private final Supplier<R> operation;
+        private final CompletableFuture<R> result = new CompletableFuture<>();
+        private R value;
+        private RuntimeException error;
+
+        private Command(Supplier<R> operation) {
+            this.operation = operation;
+        }
+
+        private void apply() {
+            try {
+                value = operation.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+        }
+
+        // Ошибка сброса хранилища относится ко всем командам пачки, изменения которых уже применены в памяти
+        private void complete(RuntimeException flushError) {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (flushError != null) {
+                result.completeExceptionally(flushError);
+            } else {
+                result.complete(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Ограниченный кольцевой буфер для многих писателей и одного читателя без блокировок.
+// У каждой ячейки есть номер последовательности: писатель занимает позицию CAS-ом хвоста и, записав элемент,
+// публикует ячейку номером позиция + 1; читатель, забрав элемент, освобождает её номером позиция + ёмкость.
+// poll и isEmpty вызываются только из потока-читателя
+final class CommandRingBuffer<E> {
+    private final Object[] items;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head = 0;
+
+    // Ёмкость округляется вверх до степени двойки
+    CommandRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость буфера должна быть положительной");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        items = new Object[size];
+        sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+        mask = size - 1;
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    // false - буфер заполнен
+    boolean offer(E item) {
+        while (true) {
+            long position = tail.get();
+            int slot = (int) position & mask;
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    items[slot] = item;
+                    sequences.set(slot, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            // Позицию уже занял другой писатель - повтор с новым хвостом
+        }
+    }
+
+    // null - опубликованных элементов нет
+    @SuppressWarnings("unchecked")
+    E poll() {
+        int slot = (int) head & mask;
+        if (sequences.get(slot) != head + 1) {
+            return null;
+        }
+        E item = (E) items[slot];
+        items[slot] = null;
+        sequences.set(slot, head + items.length);
+        head++;
+        return item;
+    }
+
+    boolean isEmpty() {
+        return sequences.get((int) head & mask) != head + 1;
+    }
+}
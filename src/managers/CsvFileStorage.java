@@ -0,0 +1,21 @@
+package managers;
+
+import interfaces.TaskStorage;
+import metrics.LatencyHistogram;
+
+import java.util.List;
+
+// Общее у CSV-хранилищ FileBackedTaskManager - в одном файле и в файлах-шардах
+interface CsvFileStorage extends TaskStorage, AutoCloseable {
+    // null - изменения не журналируются, каждый сброс перезаписывает файлы
+    StorageCompactionPolicy getCompactionPolicy();
+
+    LatencyHistogram getSaveDurations();
+
+    // Записи, отброшенные при загрузке: файл, номер строки и сама строка
+    List<String> getDroppedRecords();
+
+    // Дописывает и закрывает журнал истории просмотров
+    @Override
+    void close();
+}
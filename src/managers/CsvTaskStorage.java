@@ -0,0 +1,549 @@
+package managers;
+
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskCsvParser;
+import entities.TaskCsvWriter;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import interfaces.StorageCodec;
+import metrics.LatencyHistogram;
+import metrics.StorageLoadEvent;
+import metrics.StorageSaveEvent;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Хранилище в CSV-файле: по строке на сущность в формате Task.toString.
+// Без политики сжатия каждый сброс перезаписывает файл целиком. С политикой изменения дописываются в сегменты
+// журнала рядом с файлом, а сам файл становится снимком, который периодически обновляется в фоне.
+// История просмотров ведётся отдельным журналом id рядом с файлом (ViewHistoryLog).
+//
+// Файл хранилища заменяется только целиком через временный файл и атомарное переименование, а каждая запись
+// снимка и журнала предваряется контрольной суммой CRC32C. Недописанная при сбое последняя запись отбрасывается
+// всегда; повреждённые записи в середине файла обычная загрузка считает ошибкой, а загрузка в режиме
+// восстановления пропускает. Отброшенные записи доступны в getDroppedRecords(), а файлы после этого
+// перезаписываются без них. Файлы без контрольных сумм (экспорт, старые версии) читаются как раньше.
+//
+// Файл снимка может сжиматься кодеком (StorageCodec) - потоково и при записи, и при чтении. Кодек файла
+// определяется при загрузке по сигнатуре в его начале; если кодек не задан явно, файл перезаписывается
+// в том же виде, в каком был загружен. Журнал и история не сжимаются: они только дописываются небольшими порциями
+public class CsvTaskStorage implements CsvFileStorage {
+    public static final String CSV_HEADER = "id,type,name,status,description,epic,duration,startTime";
+    private static final String CHECKSUMMED_HEADER = "crc32c," + CSV_HEADER;
+    // Файл снимка пишется порциями такого размера
+    private static final int WRITE_CHUNK_BYTES = 1 << 20;
+    // Записи журнала: новое состояние сущности в формате файла хранилища либо удаление сущности по id
+    private static final String JOURNAL_UPSERT = "U,";
+    private static final String JOURNAL_DELETE = "D,";
+    private static final String JOURNAL_SEGMENT_SUFFIX = ".journal.";
+    private static final String HISTORY_SUFFIX = ".history";
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+    // Кодеки, распознаваемые при загрузке независимо от настроек хранилища
+    private static final List<StorageCodec> KNOWN_CODECS = List.of(new GzipStorageCodec(),
+            new FastDeflateStorageCodec());
+    private static final Executor COMPACTION_EXECUTOR =
+            runnable -> Thread.ofVirtual().name("storage-compaction").start(runnable);
+
+    private final File tasksStorage;
+    private final StorageCompactionPolicy compactionPolicy;
+    // Длительности сброса в файл - для метрик сервера
+    private final LatencyHistogram saveDurations = new LatencyHistogram();
+    // Записи журнала, ещё не дописанные в файл сегмента
+    private final ChecksummedRecordBuffer pendingJournalRecords = new ChecksummedRecordBuffer(4096);
+    // Буфер перезаписи файла в потоке, изменяющем менеджер; фоновое сжатие пишет через свой
+    private final ChecksummedRecordBuffer snapshotRecords = new ChecksummedRecordBuffer(WRITE_CHUNK_BYTES);
+    private int journalSegment = 1;
+    private long journalBytes = 0;
+    private long lastSnapshotNanos = System.nanoTime();
+    private CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private final ViewHistoryLog historyLog;
+    // Пропускать ли повреждённые записи вместо ошибки загрузки
+    private final boolean recovery;
+    // Записи, отброшенные при загрузке: файл, номер строки и сама строка
+    private final List<String> droppedRecords = new ArrayList<>();
+    // Только для потока, изменяющего менеджер; фоновое сжатие считает суммы своим экземпляром
+    private final CRC32C checksum = new CRC32C();
+    private byte[] checksumBuffer = new byte[8192];
+    private final TaskCsvParser parser = new TaskCsvParser();
+    // Явно заданный кодек и кодек, которым пишется файл снимка; null - без сжатия
+    private final StorageCodec configuredCodec;
+    private StorageCodec codec;
+
+    public CsvTaskStorage(File tasksStorage, StorageCompactionPolicy compactionPolicy) {
+        this(tasksStorage, compactionPolicy, false, null);
+    }
+
+    public CsvTaskStorage(File tasksStorage, StorageCompactionPolicy compactionPolicy, boolean recovery,
+                          StorageCodec codec) {
+        this.tasksStorage = tasksStorage;
+        this.compactionPolicy = compactionPolicy;
+        this.recovery = recovery;
+        this.configuredCodec = codec;
+        this.codec = codec;
+        this.historyLog = new ViewHistoryLog(new File(tasksStorage.getPath() + HISTORY_SUFFIX));
+    }
+
+    public File getFile() {
+        return tasksStorage;
+    }
+
+    @Override
+    public StorageCompactionPolicy getCompactionPolicy() {
+        return compactionPolicy;
+    }
+
+    @Override
+    public LatencyHistogram getSaveDurations() {
+        return saveDurations;
+    }
+
+    @Override
+    public List<String> getDroppedRecords() {
+        return Collections.unmodifiableList(droppedRecords);
+    }
+
+    // Состояние - снимок из файла хранилища, поверх которого по порядку применяются сегменты журнала.
+    // Записи журнала содержат полное состояние сущности, поэтому повторное применение сегмента, уже вошедшего
+    // в снимок (сбой между подменой снимка и удалением сегментов), не искажает результат
+    @Override
+    public List<Task> load() {
+        StorageLoadEvent event = new StorageLoadEvent();
+        event.begin();
+        try {
+            List<File> segments = findJournalSegments();
+            Map<Integer, Task> idsToItems = new TreeMap<>();
+            // Снимка может ещё не быть, если с начала ведения журнала сжатие не выполнялось
+            if (segments.isEmpty() || tasksStorage.exists()) {
+                event.bytes = tasksStorage.length();
+                event.records += readSnapshot(idsToItems, segments.isEmpty());
+            }
+            for (File segment : segments) {
+                event.bytes += segment.length();
+                event.records += replayJournalSegment(segment, idsToItems, segment == segments.getLast());
+            }
+            List<Task> items = new ArrayList<>(idsToItems.values());
+
+            if (!droppedRecords.isEmpty() || (!segments.isEmpty() && compactionPolicy == null)) {
+                // Без журнала файл должен содержать всё состояние, иначе старый журнал применится поверх новых данных.
+                // Отброшенные записи убираются из файлов, чтобы новые записи журнала не дописывались к оборванной
+                if (!droppedRecords.isEmpty()) {
+                    System.out.printf("Хранилище '%s': отброшено повреждённых записей - %d%n",
+                            tasksStorage.getAbsolutePath(), droppedRecords.size());
+                }
+                writeFile(items, snapshotRecords, codec);
+                deleteJournalSegments(Integer.MAX_VALUE);
+            } else if (!segments.isEmpty()) {
+                journalSegment = segmentNumber(segments.getLast());
+                journalBytes = segments.stream().mapToLong(File::length).sum();
+            }
+            return items;
+        } catch (IOException e) {
+            throw new ManagerLoadException(String.format("Ошибка при загрузке задач из файла '%s': %s",
+                    tasksStorage.getAbsolutePath(), e.getMessage()));
+        } finally {
+            event.file = tasksStorage.getPath();
+            event.commit();
+        }
+    }
+
+    // Записи разбираются прямо из содержимого файла, без деления его на строки
+    private int readSnapshot(Map<Integer, Task> idsToItems, boolean isLastFile) throws IOException {
+        String content = readSnapshotContent();
+        int headerEnd = lineEnd(content, 0);
+        boolean checksummed = headerEnd == CHECKSUMMED_HEADER.length() && content.startsWith(CHECKSUMMED_HEADER);
+        int records = 0;
+        int lineNumber = 1;
+        // Первая строка - заголовок
+        for (int start = headerEnd + 1, end; start < content.length(); start = end + 1) {
+            end = lineEnd(content, start);
+            lineNumber++;
+            if (isBlank(content, start, end)) {
+                continue;
+            }
+            int recordStart = checksummed ? verifyChecksum(content, start, end) : start;
+            Task item = recordStart < 0 ? null : parseItem(content, recordStart, end);
+            if (item == null) {
+                dropRecord(tasksStorage, lineNumber, content.substring(start, end),
+                        isLastFile && end == content.length());
+            } else {
+                idsToItems.put(item.getId(), item);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    @Override
+    public List<Integer> loadHistory() {
+        return historyLog.load(this::dropRecord);
+    }
+
+    @Override
+    public void recordView(int id) {
+        historyLog.recordView(id);
+    }
+
+    @Override
+    public void apply(TaskChange change) {
+        if (change.getChangeType() == ChangeType.DELETE) {
+            historyLog.recordDelete(change.getId());
+        }
+        if (compactionPolicy == null) {
+            return;
+        }
+        if (change.getChangeType() == ChangeType.DELETE) {
+            pendingJournalRecords.startRecord().append(JOURNAL_DELETE).append(change.getId());
+        } else {
+            TaskCsvWriter.append(pendingJournalRecords.startRecord().append(JOURNAL_UPSERT), change.getTask());
+        }
+        pendingJournalRecords.commitRecord();
+    }
+
+    @Override
+    public void flush(Supplier<List<Task>> allItems) {
+        historyLog.flush();
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        long start = System.nanoTime();
+        File writtenFile = tasksStorage;
+        try {
+            if (compactionPolicy == null) {
+                List<Task> items = allItems.get();
+                event.records = items.size();
+                writeFile(items, snapshotRecords, codec);
+            } else {
+                writtenFile = journalSegmentFile(journalSegment);
+                event.records = pendingJournalRecords.recordsCount();
+                event.bytes = appendToJournal(writtenFile);
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при сохранении задачи в файл '%s': %s",
+                    writtenFile.getAbsolutePath(), e.getMessage()));
+        } finally {
+            saveDurations.record(System.nanoTime() - start);
+            if (event.shouldCommit()) {
+                event.file = writtenFile.getPath();
+                if (compactionPolicy == null) {
+                    event.bytes = tasksStorage.length();
+                }
+                event.commit();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        historyLog.close();
+    }
+
+    @Override
+    public boolean isSnapshotDue() {
+        return compactionPolicy != null && compaction.isDone() && compactionPolicy.shouldCompact(journalBytes,
+                Duration.ofNanos(System.nanoTime() - lastSnapshotNanos));
+    }
+
+    // Сжатие журнала: новые изменения сразу пишутся в следующий сегмент, а запись снимка, fsync, подмена файла
+    // хранилища и удаление вошедших в снимок сегментов выполняются в фоне. Если сжатие уже идёт,
+    // возвращается его результат. Без журнала снимок просто перезаписывает файл
+    @Override
+    public CompletableFuture<Void> snapshot(TaskManagerSnapshot snapshot) {
+        if (compactionPolicy == null) {
+            flush(() -> allItems(snapshot));
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!compaction.isDone()) {
+            return compaction;
+        }
+        int lastCoveredSegment = journalSegment;
+        journalSegment++;
+        journalBytes = 0;
+        lastSnapshotNanos = System.nanoTime();
+        StorageCodec snapshotCodec = codec;
+        compaction = CompletableFuture.runAsync(() -> writeSnapshot(snapshot, lastCoveredSegment, snapshotCodec),
+                COMPACTION_EXECUTOR);
+        return compaction;
+    }
+
+    // Новое состояние пишется во временный файл, сбрасывается на диск и атомарно подменяет файл хранилища -
+    // при сбое на любом шаге остаётся прежний файл целиком
+    private void writeFile(List<Task> items, ChecksummedRecordBuffer records, StorageCodec fileCodec)
+            throws IOException {
+        Path storagePath = tasksStorage.toPath().toAbsolutePath();
+        Path tempPath = storagePath.resolveSibling(storagePath.getFileName() + ".tmp");
+        records.clear();
+        try (FileOutputStream file = new FileOutputStream(tempPath.toFile())) {
+            // Закрытие потока кодека завершает сжатие, но файл должен оставаться открытым до fsync
+            OutputStream out = new FilterOutputStream(file) {
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    file.write(bytes, offset, length);
+                }
+
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+            if (fileCodec != null) {
+                out = fileCodec.compress(out);
+            }
+            records.appendLine(CHECKSUMMED_HEADER);
+            for (Task item : items) {
+                TaskCsvWriter.append(records.startRecord(), item);
+                records.commitRecord();
+                if (records.size() >= WRITE_CHUNK_BYTES) {
+                    records.writeTo(out);
+                    records.clear();
+                }
+            }
+            records.writeTo(out);
+            out.close();
+            file.getChannel().force(true);
+        } finally {
+            records.clear();
+        }
+        Files.move(tempPath, storagePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory(storagePath.getParent());
+    }
+
+    // Начало записи после контрольной суммы либо -1, если сумма не сходится
+    private int verifyChecksum(String content, int start, int end) {
+        int recordStart = start + ChecksummedRecordBuffer.CHECKSUM_LENGTH;
+        if (recordStart > end || content.charAt(recordStart - 1) != ',') {
+            return -1;
+        }
+        int expected;
+        try {
+            expected = Integer.parseUnsignedInt(content, start, recordStart - 1, 16);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        checksum.reset();
+        updateChecksum(checksum, content, recordStart, end);
+        return expected == (int) checksum.getValue() ? recordStart : -1;
+    }
+
+    // Сумма считается по байтам UTF-8 участка строки, кодируемого в переиспользуемый буфер
+    private void updateChecksum(CRC32C checksum, String content, int start, int end) {
+        if (checksumBuffer.length < 3 * (end - start)) {
+            checksumBuffer = new byte[3 * (end - start)];
+        }
+        int length = ChecksummedRecordBuffer.encodeUtf8(content, start, end, checksumBuffer, 0);
+        checksum.update(checksumBuffer, 0, length);
+    }
+
+    private Task parseItem(String content, int start, int end) {
+        try {
+            return parser.parse(content, start, end);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Распаковывает файл снимка кодеком, сигнатура которого стоит в начале файла
+    private String readSnapshotContent() throws IOException {
+        try (BufferedInputStream in = new BufferedInputStream(new FileInputStream(tasksStorage), READ_BUFFER_BYTES)) {
+            StorageCodec fileCodec = detectCodec(in);
+            if (configuredCodec == null) {
+                codec = fileCodec;
+            }
+            InputStream source = fileCodec == null ? in : fileCodec.decompress(in);
+            try (source) {
+                return new String(source.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private StorageCodec detectCodec(BufferedInputStream in) throws IOException {
+        List<StorageCodec> candidates = new ArrayList<>(KNOWN_CODECS);
+        if (configuredCodec != null) {
+            candidates.addFirst(configuredCodec);
+        }
+        int maxMagicLength = candidates.stream().mapToInt(candidate -> candidate.getMagic().length).max().orElse(0);
+        in.mark(maxMagicLength);
+        byte[] head = in.readNBytes(maxMagicLength);
+        in.reset();
+        for (StorageCodec candidate : candidates) {
+            byte[] magic = candidate.getMagic();
+            if (head.length >= magic.length && Arrays.equals(head, 0, magic.length, magic, 0, magic.length)) {
+                return candidate;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isBlank(String content, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(content.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int lineEnd(String content, int start) {
+        int end = content.indexOf('\n', start);
+        return end < 0 ? content.length() : end;
+    }
+
+    // Оборванная последняя запись - обычное следствие сбоя посреди дописывания, она отбрасывается всегда.
+    // Повреждение в середине файла без режима восстановления - ошибка загрузки
+    private void dropRecord(File file, int lineNumber, String line, boolean isTail) {
+        if (!recovery && !isTail) {
+            throw new ManagerLoadException(String.format("Повреждённая запись в файле '%s', строка %d: %s",
+                    file.getAbsolutePath(), lineNumber, line));
+        }
+        droppedRecords.add(String.format("%s:%d: %s", file.getPath(), lineNumber, line));
+    }
+
+    private static List<Task> allItems(TaskManagerSnapshot snapshot) {
+        List<Task> allItems = new ArrayList<>(snapshot.getTasks());
+        allItems.addAll(snapshot.getSubtasks());
+        allItems.addAll(snapshot.getEpics());
+        return allItems;
+    }
+
+    // Дописывает накопленные записи в сегмент журнала; при ошибке записи они остаются до следующего сброса
+    private long appendToJournal(File segment) throws IOException {
+        if (pendingJournalRecords.isEmpty()) {
+            return 0;
+        }
+        try (FileOutputStream out = new FileOutputStream(segment, true)) {
+            pendingJournalRecords.writeTo(out);
+        }
+        long appendedBytes = pendingJournalRecords.size();
+        journalBytes += appendedBytes;
+        pendingJournalRecords.clear();
+        return appendedBytes;
+    }
+
+    // Записи журнала без контрольной суммы начинаются сразу с вида записи - так писали прежние версии
+    private int replayJournalSegment(File segment, Map<Integer, Task> idsToItems, boolean isLastFile)
+            throws IOException {
+        String content = Files.readString(segment.toPath(), StandardCharsets.UTF_8);
+        int records = 0;
+        int lineNumber = 0;
+        for (int start = 0, end; start < content.length(); start = end + 1) {
+            end = lineEnd(content, start);
+            lineNumber++;
+            if (isBlank(content, start, end)) {
+                continue;
+            }
+            boolean checksummed = !content.startsWith(JOURNAL_UPSERT, start)
+                    && !content.startsWith(JOURNAL_DELETE, start);
+            int recordStart = checksummed ? verifyChecksum(content, start, end) : start;
+            if (recordStart < 0 || !replayJournalRecord(content, recordStart, end, idsToItems)) {
+                dropRecord(segment, lineNumber, content.substring(start, end), isLastFile && end == content.length());
+            } else {
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private boolean replayJournalRecord(String content, int start, int end, Map<Integer, Task> idsToItems) {
+        if (content.startsWith(JOURNAL_UPSERT, start)) {
+            Task item = parseItem(content, start + JOURNAL_UPSERT.length(), end);
+            if (item != null) {
+                idsToItems.put(item.getId(), item);
+                return true;
+            }
+        } else if (content.startsWith(JOURNAL_DELETE, start)) {
+            try {
+                idsToItems.remove(Integer.parseInt(content, start + JOURNAL_DELETE.length(), end, 10));
+                return true;
+            } catch (NumberFormatException ignored) {
+                // Отбрасывается вместе с остальными некорректными записями
+            }
+        }
+        return false;
+    }
+
+    // Выполняется в фоновом потоке и работает только со снимком и файлами, а не с состоянием менеджера.
+    // При сбое на любом шаге остаются прежний снимок и полный журнал
+    private void writeSnapshot(TaskManagerSnapshot snapshot, int lastCoveredSegment, StorageCodec snapshotCodec) {
+        StorageSaveEvent event = new StorageSaveEvent();
+        event.begin();
+        try {
+            List<Task> items = allItems(snapshot);
+            writeFile(items, new ChecksummedRecordBuffer(WRITE_CHUNK_BYTES), snapshotCodec);
+            deleteJournalSegments(lastCoveredSegment);
+            event.records = items.size();
+            event.bytes = tasksStorage.length();
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при сжатии журнала в файл '%s': %s",
+                    tasksStorage.getAbsolutePath(), e.getMessage()));
+        } finally {
+            event.file = tasksStorage.getPath();
+            event.commit();
+        }
+    }
+
+    // Переименование становится устойчивым к сбою питания только после fsync каталога; не все ОС это позволяют
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            // Переименование уже выполнено - в худшем случае после сбоя останутся старый снимок и весь журнал
+        }
+    }
+
+    private File journalSegmentFile(int number) {
+        return new File(tasksStorage.getAbsoluteFile().getParentFile(),
+                tasksStorage.getName() + JOURNAL_SEGMENT_SUFFIX + number);
+    }
+
+    // Сегменты журнала этого хранилища в порядке записи
+    private List<File> findJournalSegments() {
+        String prefix = tasksStorage.getName() + JOURNAL_SEGMENT_SUFFIX;
+        File[] files = tasksStorage.getAbsoluteFile().getParentFile().listFiles((directory, name) ->
+                name.length() > prefix.length() && name.startsWith(prefix)
+                        && name.substring(prefix.length()).chars().allMatch(Character::isDigit));
+        if (files == null) {
+            return List.of();
+        }
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparingInt(this::segmentNumber));
+        return segments;
+    }
+
+    private int segmentNumber(File segment) {
+        return Integer.parseInt(segment.getName().substring(tasksStorage.getName().length()
+                + JOURNAL_SEGMENT_SUFFIX.length()));
+    }
+
+    private void deleteJournalSegments(int lastSegment) throws IOException {
+        for (File segment : findJournalSegments()) {
+            if (segmentNumber(segment) <= lastSegment) {
+                Files.deleteIfExists(segment.toPath());
+            }
+        }
+    }
+}
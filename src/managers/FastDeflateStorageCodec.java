@@ -0,0 +1,59 @@
+package managers;
+
+import interfaces.StorageCodec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+// Deflate с самым быстрым уровнем сжатия и без заголовка и контрольной суммы gzip - целостность записей
+// и так проверяет CsvTaskStorage. На повторяющемся тексте хранилища сжимает в разы при заметно меньших
+// затратах процессора, чем gzip по умолчанию
+public class FastDeflateStorageCodec implements StorageCodec {
+    private static final byte[] MAGIC = {'K', 'N', 'Z', 1};
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    @Override
+    public byte[] getMagic() {
+        return MAGIC.clone();
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) throws IOException {
+        out.write(MAGIC);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            // Собственный Deflater поток не освобождает
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) throws IOException {
+        if (in.readNBytes(MAGIC.length).length != MAGIC.length) {
+            throw new IOException("Unexpected end of compressed storage header");
+        }
+        Inflater inflater = new Inflater(true);
+        return new InflaterInputStream(in, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+}
@@ -4,162 +4,97 @@ import entities.Epic;
 import entities.Subtask;
 import entities.Task;
 import enums.TaskStatus;
-import exceptions.ManagerSaveException;
-import exceptions.ManagerLoadException;
+import interfaces.StorageCodec;
 import interfaces.TaskManager;
+import metrics.LatencyHistogram;
 
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
-    private final File tasksStorage;
+// Менеджер поверх CSV-хранилища: вся работа с файлом и журналом - в CsvTaskStorage,
+// с файлами-шардами по типам сущностей - в ShardedCsvTaskStorage
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    public static final String CSV_HEADER = CsvTaskStorage.CSV_HEADER;
 
-    public FileBackedTaskManager(File tasksStorage) {
-        super();
-        this.tasksStorage = tasksStorage;
-    }
-
-    public static FileBackedTaskManager loadFromFile(File tasksStorage) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(tasksStorage);
-        manager.loadFromFile();
-        return manager;
-    }
-
-    private void loadFromFile() {
-        try {
-            String fileContent = Files.readString(tasksStorage.toPath());
-
-            if (fileContent.isBlank()) {
-                return;
-            }
-            String[] lines = fileContent.split("\n");
-            if (lines.length < 2) { // Файл содержит только заголовок
-                return;
-            }
-
-            // Убираем строку-заголовок и сортируем строки по возрастанию для сохранения порядка id задач
-            String[] filteredAndSortedLines = Arrays.copyOfRange(lines, 1, lines.length);
-            Arrays.sort(filteredAndSortedLines, Comparator.comparingInt(line -> Integer.parseInt(line.split(",")[0])));
-
-            // Добавляем задачи без вызова метода сохранения
-            Arrays.stream(filteredAndSortedLines)
-                .map(Task::fromString)
-                .forEach(task -> {
-                    switch (task.getType()) {
-                        case TASK -> super.createTask(task);
-                        case SUBTASK -> super.createSubtask((Subtask) task);
-                        case EPIC -> super.createEpic((Epic) task);
-                    }
-                });
-
-        } catch (IOException e) {
-            throw new ManagerLoadException(String.format("Ошибка при загрузке задач из файла '%s': %s",
-                    tasksStorage.getAbsolutePath(), e.getMessage()));
-        }
-    }
+    private final CsvFileStorage storage;
 
-    private void save() {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(tasksStorage))) {
-            writer.write("id,type,name,status,description,epic,duration,startTime\n"); // Заголовок CSV
-
-            List<Task> allItems = new ArrayList<>(getTasks());
-            allItems.addAll(getSubtasks());
-            allItems.addAll(getEpics());
-            allItems.forEach(task -> {
-                try {
-                    writer.write(task + "\n");
-                } catch (IOException e) {
-                    throw new ManagerSaveException(String.format("Ошибка при сохранении задачи в файл '%s': %s",
-                            tasksStorage.getAbsolutePath(), e.getMessage()));
-                }
-            });
-        } catch (IOException e) {
-            throw new ManagerSaveException(String.format("Ошибка при сохранении задачи в файл '%s': %s",
-                    tasksStorage.getAbsolutePath(), e.getMessage()));
-        }
+    public FileBackedTaskManager(File tasksStorage) {
+        this(tasksStorage, null);
     }
 
-    @Override
-    public void deleteAllTasks() {
-        super.deleteAllTasks();
-        save();
+    // С политикой сжатия изменения дописываются в журнал, а файл хранилища - снимок, периодически обновляемый в фоне
+    public FileBackedTaskManager(File tasksStorage, StorageCompactionPolicy compactionPolicy) {
+        this(new CsvTaskStorage(tasksStorage, compactionPolicy));
     }
 
-    @Override
-    public void deleteAllSubtasks() {
-        super.deleteAllSubtasks();
-        save();
+    private FileBackedTaskManager(CsvFileStorage storage) {
+        super(storage);
+        this.storage = storage;
     }
 
-    @Override
-    public void deleteAllEpics() {
-        super.deleteAllEpics();
-        save();
+    public static FileBackedTaskManager loadFromFile(File tasksStorage) {
+        return loadFromFile(tasksStorage, null);
     }
 
-    @Override
-    public int createTask(Task task) {
-        int id = super.createTask(task);
-        save();
-        return id;
+    public static FileBackedTaskManager loadFromFile(File tasksStorage, StorageCompactionPolicy compactionPolicy) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(tasksStorage, compactionPolicy);
+        manager.loadFromStorage();
+        return manager;
     }
 
-    @Override
-    public int createSubtask(Subtask subtask) {
-        int id = super.createSubtask(subtask);
-        save();
-        return id;
+    // Файл снимка пишется сжатым кодеком; читается сжатый файл и без этого - кодек определяется по сигнатуре
+    public static FileBackedTaskManager loadFromFile(File tasksStorage, StorageCompactionPolicy compactionPolicy,
+                                                     StorageCodec codec) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(
+                new CsvTaskStorage(tasksStorage, compactionPolicy, false, codec));
+        manager.loadFromStorage();
+        return manager;
     }
 
-    @Override
-    public int createEpic(Epic epic) {
-        int id = super.createEpic(epic);
-        save();
-        return id;
+    // Сущности хранятся в отдельных файлах по типам, а при idsPerShard > 0 ещё и по диапазонам id такого размера:
+    // изменение сущности перезаписывает только её шард, а шарды загружаются параллельно
+    public static FileBackedTaskManager loadSharded(File tasksStorage, int idsPerShard) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(new ShardedCsvTaskStorage(tasksStorage, idsPerShard));
+        manager.loadFromStorage();
+        return manager;
     }
 
-    @Override
-    public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+    // Загрузка в режиме восстановления: повреждённые записи пропускаются, а не прерывают загрузку
+    public static FileBackedTaskManager recoverFromFile(File tasksStorage) {
+        return recoverFromFile(tasksStorage, null);
     }
 
-    @Override
-    public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+    public static FileBackedTaskManager recoverFromFile(File tasksStorage, StorageCompactionPolicy compactionPolicy) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(
+                new CsvTaskStorage(tasksStorage, compactionPolicy, true, null));
+        manager.loadFromStorage();
+        return manager;
     }
 
-    @Override
-    public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+    // Записи, отброшенные при загрузке: файл, номер строки и сама строка
+    public List<String> getDroppedRecords() {
+        return storage.getDroppedRecords();
     }
 
-    @Override
-    public void deleteTask(int id) {
-        super.deleteTask(id);
-        save();
+    public LatencyHistogram getSaveDurations() {
+        return storage.getSaveDurations();
     }
 
-    @Override
-    public void deleteSubtask(int id) {
-        super.deleteSubtask(id);
-        save();
+    // Запускает сжатие журнала: состояние копируется в вызывающем потоке, остальное выполняется в фоне
+    public CompletableFuture<Void> compact() {
+        if (storage.getCompactionPolicy() == null) {
+            throw new IllegalStateException("Журнал хранилища не ведётся: сжимать нечего");
+        }
+        return storage.snapshot(snapshot());
     }
 
     @Override
-    public void deleteEpic(int id) {
-        super.deleteEpic(id);
-        save();
+    public void close() {
+        storage.close();
     }
 
     public static void main(String[] args) throws IOException {
@@ -3,26 +3,77 @@ package managers;
 import entities.Epic;
 import entities.Subtask;
 import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
+import enums.TaskStatus;
+import enums.TaskType;
+import exceptions.ChangesExpiredException;
 import exceptions.NotFoundException;
 import exceptions.TaskIntersectionException;
 import interfaces.HistoryManager;
+import interfaces.TaskChangeListener;
 import interfaces.TaskManager;
+import interfaces.TaskStorage;
+import metrics.EpicRecalculationEvent;
 import utilities.Managers;
+import utilities.PersistentSortedMap;
 
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 
 public class InMemoryTaskManager implements TaskManager {
+    // Сколько последних изменений хранится в журнале для инкрементальной синхронизации клиентов
+    private static final int CHANGE_LOG_CAPACITY = 10_000;
+
     private final HistoryManager historyManager;
+    // Без хранилища состояние живёт только в памяти
+    private final TaskStorage storage;
+    // Глубина вложенных операций: хранилище сбрасывается по завершении внешней операции или транзакции
+    private int mutationDepth = 0;
+    private boolean hasUnflushedChanges = false;
+    private boolean restoring = false;
     private int idsCount = 1;
-
-    private final Map<Integer, Task> tasksIdsToTasks = new HashMap<>();
-    private final Map<Integer, Subtask> subtasksIdsToSubtasks = new HashMap<>();
-    private final Map<Integer, Epic> epicsIdsToEpics = new HashMap<>();
-    private final Set<Task> prioritizedTasks = new TreeSet<>(Comparator.comparing(Task::getStartTime));
+    private long version = 0;
+    // Версия последнего вытесненного из журнала изменения: изменения до неё включительно отдать уже нельзя
+    private long evictedVersion = 0;
+    private final Deque<TaskChange> changeLog = new ArrayDeque<>();
+    private final List<TaskChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    // Версии для условных запросов: последнее изменение каждой сущности и каждой коллекции, а также истории
+    private final Map<Integer, Long> idsToVersions = new HashMap<>();
+    private final Map<TaskType, Long> typesToVersions = new EnumMap<>(TaskType.class);
+    private long historyVersion = 0;
+
+    // Сущности и отсортированные по времени задачи хранятся в неизменяемых картах: изменение заменяет карту новой,
+    // разделяющей с прежней почти все узлы, поэтому снимок состояния - это просто ссылки на текущие карты.
+    // Сохранённая сущность после публикации не меняется - изменение сохраняет её новую копию
+    private PersistentSortedMap<Integer, Task> tasksIdsToTasks = PersistentSortedMap.empty();
+    private PersistentSortedMap<Integer, Subtask> subtasksIdsToSubtasks = PersistentSortedMap.empty();
+    private PersistentSortedMap<Integer, Epic> epicsIdsToEpics = PersistentSortedMap.empty();
+    private PersistentSortedMap<Task, Task> prioritizedTasks =
+            PersistentSortedMap.empty(Comparator.comparing(Task::getStartTime));
+    // Вторичный индекс: тип сущности -> статус -> id сущностей с этим статусом
+    private final Map<TaskType, Map<TaskStatus, Set<Integer>>> typesToStatusesToIds = new EnumMap<>(TaskType.class);
+    private final TaskSearchIndex searchIndex = new TaskSearchIndex();
+    private final TaskIntervalIndex intervalIndex = new TaskIntervalIndex();
 
     public InMemoryTaskManager() {
+        this(null);
+    }
+
+    public InMemoryTaskManager(TaskStorage storage) {
+        this.storage = storage;
         historyManager = Managers.getDefaultHistory();
+        for (TaskType type : TaskType.values()) {
+            Map<TaskStatus, Set<Integer>> statusesToIds = new EnumMap<>(TaskStatus.class);
+            for (TaskStatus status : TaskStatus.values()) {
+                statusesToIds.put(status, new TreeSet<>());
+            }
+            typesToStatusesToIds.put(type, statusesToIds);
+        }
     }
 
     @Override
@@ -30,245 +81,359 @@ public class InMemoryTaskManager implements TaskManager {
         return idsCount++;
     }
 
+    // Списки чтения, как и getXById, отдают копии: сохранённые сущности общие со снимками и не должны меняться
     @Override
     public List<Task> getTasks() {
-        return new ArrayList<>(tasksIdsToTasks.values());
+        return copiesOf(tasksIdsToTasks.values(), Task::new);
     }
 
     @Override
     public List<Subtask> getSubtasks() {
-        return new ArrayList<>(subtasksIdsToSubtasks.values());
+        return copiesOf(subtasksIdsToSubtasks.values(), Subtask::new);
     }
 
     @Override
     public List<Epic> getEpics() {
-        return new ArrayList<>(epicsIdsToEpics.values());
+        return copiesOf(epicsIdsToEpics.values(), Epic::new);
     }
 
     // Зачищаем информацию о задачах во всех структурах
     @Override
     public void deleteAllTasks() {
-        tasksIdsToTasks.values().forEach(task -> {
-            historyManager.remove(task.getId());
-            prioritizedTasks.remove(task);
+        mutate(() -> {
+            tasksIdsToTasks.values().forEach(task -> {
+                historyManager.remove(task.getId());
+                removeFromPrioritized(task);
+                unindexItem(task);
+                recordChange(ChangeType.DELETE, task);
+            });
+            tasksIdsToTasks = PersistentSortedMap.empty();
         });
-        tasksIdsToTasks.clear();
     }
 
     // Зачищаем информацию о подзадачах во всех структурах, затем актуализируем данные эпиков
     @Override
     public void deleteAllSubtasks() {
-        subtasksIdsToSubtasks.values().forEach(subtask -> {
-            historyManager.remove(subtask.getId());
-            prioritizedTasks.remove(subtask);
+        mutate(() -> {
+            subtasksIdsToSubtasks.values().forEach(subtask -> {
+                historyManager.remove(subtask.getId());
+                removeFromPrioritized(subtask);
+                unindexItem(subtask);
+                recordChange(ChangeType.DELETE, subtask);
+            });
+            subtasksIdsToSubtasks = PersistentSortedMap.empty();
+
+            getEpics().forEach(this::updateEpic);
         });
-        subtasksIdsToSubtasks.clear();
-
-        getEpics().forEach(this::updateEpic);
     }
 
     // Зачищаем информацию об эпиках во всех структурах и удаляем подзадачи эпиков
     @Override
     public void deleteAllEpics() {
-        epicsIdsToEpics.values().forEach(epic -> {
-            historyManager.remove(epic.getId());
-            deleteEpicSubtasks(epic);
+        mutate(() -> {
+            epicsIdsToEpics.values().forEach(epic -> {
+                historyManager.remove(epic.getId());
+                deleteEpicSubtasks(epic);
+                unindexItem(epic);
+                recordChange(ChangeType.DELETE, epic);
+            });
+            epicsIdsToEpics = PersistentSortedMap.empty();
         });
-        epicsIdsToEpics.clear();
     }
 
     @Override
     public Task getTaskById(int id) {
-        Task task = tasksIdsToTasks.getOrDefault(id, null);
+        Task task = tasksIdsToTasks.get(id);
         if (task == null) {
 //            return null;
             throw new NotFoundException(String.format("Задача с id '%d' не найдена", id));
         }
-        historyManager.add(task);
+        addToHistory(task);
         return new Task(task);
     }
 
     @Override
     public Subtask getSubtaskById(int id) {
-        Subtask subtask = subtasksIdsToSubtasks.getOrDefault(id, null);
+        Subtask subtask = subtasksIdsToSubtasks.get(id);
         if (subtask == null) {
 //            return null;
             throw new NotFoundException(String.format("Подзадача с id '%d' не найдена", id));
         }
-        historyManager.add(subtask);
+        addToHistory(subtask);
         return new Subtask(subtask);
     }
 
     @Override
     public Epic getEpicById(int id) {
-        Epic epic = epicsIdsToEpics.getOrDefault(id, null);
+        Epic epic = epicsIdsToEpics.get(id);
         if (epic == null) {
 //            return null;
             throw new NotFoundException(String.format("Эпик с id '%d' не найден", id));
         }
-        historyManager.add(epic);
+        addToHistory(epic);
         return new Epic(epic);
     }
 
     @Override
     public int createTask(Task task) {
-        if (task == null) {
-            return -1;
-        }
-
-        // Проверяем на пересечение с задачами и подзадачами
-        boolean hasIntersection = prioritizedTasks.stream()
-                .anyMatch(taskOrSubtask -> taskOrSubtask.intersectsByTimeIntervals(task));
-        if (hasIntersection) {
-            throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
-        }
-
-        int id = getNewId();
-        task.setId(id);
-        tasksIdsToTasks.put(id, new Task(task));
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(new Task(task));
-        }
-        return id;
+        return mutate(() -> {
+            if (task == null) {
+                return -1;
+            }
+
+            // Проверяем на пересечение с задачами и подзадачами
+            if (intervalIndex.hasIntersection(task)) {
+                throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
+            }
+
+            int id = getNewId();
+            task.setId(id);
+            Task storedTask = new Task(task);
+            tasksIdsToTasks = tasksIdsToTasks.put(id, storedTask);
+            indexItem(storedTask);
+            recordChange(ChangeType.CREATE, storedTask);
+            addToPrioritized(new Task(task));
+            return id;
+        });
     }
 
     @Override
     public int createSubtask(Subtask subtask) {
-        if (subtask == null) {
-            return -1;
-        }
-
-        // Проверяем на пересечение с задачами и подзадачами
-        boolean hasIntersection = prioritizedTasks.stream()
-                .anyMatch(taskOrSubtask -> taskOrSubtask.intersectsByTimeIntervals(subtask));
-        if (hasIntersection) {
-            throw new TaskIntersectionException("Подзадача пересекается по времени выполнения с уже существующими");
-        }
-
-        int id = getNewId();
-        subtask.setId(id);
-        subtasksIdsToSubtasks.put(id, new Subtask(subtask));
-        updateEpicDataBySubtask(subtask);
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(new Subtask(subtask));
-        }
-        return id;
+        return mutate(() -> {
+            if (subtask == null) {
+                return -1;
+            }
+
+            // Проверяем на пересечение с задачами и подзадачами
+            if (intervalIndex.hasIntersection(subtask)) {
+                throw new TaskIntersectionException("Подзадача пересекается по времени выполнения с уже существующими");
+            }
+
+            int id = getNewId();
+            subtask.setId(id);
+            Subtask storedSubtask = new Subtask(subtask);
+            subtasksIdsToSubtasks = subtasksIdsToSubtasks.put(id, storedSubtask);
+            indexItem(storedSubtask);
+            recordChange(ChangeType.CREATE, storedSubtask);
+            updateEpicDataBySubtask(subtask);
+            addToPrioritized(new Subtask(subtask));
+            return id;
+        });
     }
 
     @Override
     public int createEpic(Epic epic) {
-        if (epic == null) {
-            return -1;
-        }
-        int id = getNewId();
-        epic.setId(id);
-        updateEpicData(epic);
-        epicsIdsToEpics.put(id, new Epic(epic));
-        return id;
+        return mutate(() -> {
+            if (epic == null) {
+                return -1;
+            }
+            int id = getNewId();
+            epic.setId(id);
+            updateEpicData(epic);
+            Epic storedEpic = new Epic(epic);
+            epicsIdsToEpics = epicsIdsToEpics.put(id, storedEpic);
+            indexItem(storedEpic);
+            recordChange(ChangeType.CREATE, storedEpic);
+            return id;
+        });
     }
 
-    @Override
-    public void updateTask(Task task) {
-        if (task == null) {
-            return;
-        }
-
-        // Проверяем на пересечение с задачами и подзадачами
-        boolean hasIntersection = prioritizedTasks.stream()
-                .anyMatch(taskOrSubtask -> taskOrSubtask.intersectsByTimeIntervals(task));
-        if (hasIntersection) {
-            throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
+    // Загружает состояние из хранилища. Эпики восстанавливаются первыми: подзадачу могли перенести в эпик,
+    // созданный позже неё; остальные - по возрастанию id, как их создавал менеджер.
+    // История просмотров восстанавливается последней - по id уже загруженных сущностей
+    protected void loadFromStorage() {
+        List<Task> items = new ArrayList<>(storage.load());
+        items.sort(Comparator.comparingInt(Task::getId));
+        restoring = true;
+        try {
+            items.stream().filter(item -> item instanceof Epic).forEach(this::restoreItem);
+            items.stream().filter(item -> !(item instanceof Epic)).forEach(this::restoreItem);
+            // Данные эпика пересчитываются один раз по всем его подзадачам, а не после каждой из них.
+            // До завершения загрузки снимков ещё нет, поэтому эпики можно менять на месте
+            for (Epic epic : epicsIdsToEpics.values()) {
+                unindexStatus(epic);
+                updateEpicData(epic);
+                indexStatus(epic);
+                recordChange(ChangeType.UPDATE, epic);
+            }
+            for (int id : storage.loadHistory()) {
+                Task item = findItemById(id);
+                if (item != null) {
+                    addToHistory(item);
+                }
+            }
+        } finally {
+            restoring = false;
         }
+    }
 
-        int id = task.getId();
-        Task oldTask = null;
-        if (tasksIdsToTasks.containsKey(id)) {
-            oldTask = tasksIdsToTasks.get(id);
-            tasksIdsToTasks.replace(id, new Task(task));
+    // Восстанавливает сохранённую сущность с её прежним id - между id в хранилище бывают пропуски.
+    // Пересечения не проверяются: в хранилище попадают только принятые менеджером сущности.
+    // Эпик должен восстанавливаться раньше своих подзадач, а его данные пересчитываются уже после них
+    private void restoreItem(Task item) {
+        int id = item.getId();
+        idsCount = Math.max(idsCount, id + 1);
+        switch (item.getType()) {
+            case TASK -> {
+                Task storedTask = new Task(item);
+                tasksIdsToTasks = tasksIdsToTasks.put(id, storedTask);
+                indexItem(storedTask);
+                recordChange(ChangeType.CREATE, storedTask);
+                addToPrioritized(new Task(item));
+            }
+            case SUBTASK -> {
+                Subtask subtask = (Subtask) item;
+                Subtask storedSubtask = new Subtask(subtask);
+                subtasksIdsToSubtasks = subtasksIdsToSubtasks.put(id, storedSubtask);
+                indexItem(storedSubtask);
+                recordChange(ChangeType.CREATE, storedSubtask);
+                Epic epic = epicsIdsToEpics.get(subtask.getEpicId());
+                if (epic != null) {
+                    epic.getSubtasksIds().add(id);
+                } else {
+                    subtask.setEpicId(0);
+                }
+                addToPrioritized(new Subtask(subtask));
+            }
+            case EPIC -> {
+                Epic epic = (Epic) item;
+                updateEpicData(epic);
+                Epic storedEpic = new Epic(epic);
+                epicsIdsToEpics = epicsIdsToEpics.put(id, storedEpic);
+                indexItem(storedEpic);
+                recordChange(ChangeType.CREATE, storedEpic);
+            }
         }
+    }
 
-        // Обновляем задачу в отсортированных - удаляем старый объект при наличии и добавляем новый
-        // Проверка на наличие времени для того, чтобы не сломался компаратор дерева
-        if (oldTask != null && oldTask.getStartTime() != null) {
-            prioritizedTasks.remove(oldTask);
-        }
-        if (task.getStartTime() != null) {
-            prioritizedTasks.add(new Task(task));
-        }
+    @Override
+    public void updateTask(Task task) {
+        mutate(() -> {
+            if (task == null) {
+                return;
+            }
+
+            // Проверяем на пересечение с задачами и подзадачами
+            if (intervalIndex.hasIntersection(task, task.getId())) {
+                throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
+            }
+
+            int id = task.getId();
+            Task oldTask = null;
+            if (tasksIdsToTasks.containsKey(id)) {
+                oldTask = tasksIdsToTasks.get(id);
+                Task storedTask = new Task(task);
+                tasksIdsToTasks = tasksIdsToTasks.put(id, storedTask);
+                unindexItem(oldTask);
+                indexItem(storedTask);
+                recordChange(ChangeType.UPDATE, storedTask);
+            }
+
+            // Обновляем задачу в отсортированных - удаляем старый объект и добавляем новый.
+            // Неизвестную менеджеру сущность не добавляем, иначе в отсортированных и индексе интервалов появится фантом
+            if (oldTask != null) {
+                removeFromPrioritized(oldTask);
+                addToPrioritized(new Task(task));
+            }
+        });
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtask == null) {
-            return;
-        }
-
-        // Проверяем на пересечение с задачами и подзадачами
-        boolean hasIntersection = prioritizedTasks.stream()
-                .anyMatch(taskOrSubtask -> taskOrSubtask.intersectsByTimeIntervals(subtask));
-        if (hasIntersection) {
-            throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
-        }
-
-        int id = subtask.getId();
-        Subtask oldSubtask = null;
-        if (subtasksIdsToSubtasks.containsKey(id)) {
-            oldSubtask = subtasksIdsToSubtasks.get(id);
-            subtasksIdsToSubtasks.replace(id, new Subtask(subtask));
-            updateEpicDataBySubtask(subtask);
-        }
-
-        // Обновляем подзадачу в отсортированных - удаляем старый объект при наличии и добавляем новый
-        // Проверка на наличие времени для того, чтобы не сломался компаратор дерева
-        if (oldSubtask != null && oldSubtask.getStartTime() != null) {
-            prioritizedTasks.remove(oldSubtask);
-        }
-        if (subtask.getStartTime() != null) {
-            prioritizedTasks.add(new Subtask(subtask));
-        }
+        mutate(() -> {
+            if (subtask == null) {
+                return;
+            }
+
+            // Проверяем на пересечение с задачами и подзадачами
+            if (intervalIndex.hasIntersection(subtask, subtask.getId())) {
+                throw new TaskIntersectionException("Задача пересекается по времени выполнения с уже существующими");
+            }
+
+            int id = subtask.getId();
+            Subtask oldSubtask = null;
+            if (subtasksIdsToSubtasks.containsKey(id)) {
+                oldSubtask = subtasksIdsToSubtasks.get(id);
+                Subtask storedSubtask = new Subtask(subtask);
+                subtasksIdsToSubtasks = subtasksIdsToSubtasks.put(id, storedSubtask);
+                unindexItem(oldSubtask);
+                indexItem(storedSubtask);
+                recordChange(ChangeType.UPDATE, storedSubtask);
+                updateEpicDataBySubtask(subtask);
+            }
+
+            // Обновляем подзадачу в отсортированных - удаляем старый объект и добавляем новый.
+            // Неизвестную менеджеру сущность не добавляем, иначе в отсортированных и индексе интервалов появится фантом
+            if (oldSubtask != null) {
+                removeFromPrioritized(oldSubtask);
+                addToPrioritized(new Subtask(subtask));
+            }
+        });
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epic == null) {
-            return;
-        }
-        int id = epic.getId();
-        if (epicsIdsToEpics.containsKey(id)) {
-            updateEpicData(epic);
-            epicsIdsToEpics.replace(id, new Epic(epic));
-        }
+        mutate(() -> {
+            if (epic == null) {
+                return;
+            }
+            int id = epic.getId();
+            if (epicsIdsToEpics.containsKey(id)) {
+                updateEpicData(epic);
+                Epic storedEpic = new Epic(epic);
+                unindexItem(epicsIdsToEpics.get(id));
+                epicsIdsToEpics = epicsIdsToEpics.put(id, storedEpic);
+                indexItem(storedEpic);
+                recordChange(ChangeType.UPDATE, storedEpic);
+            }
+        });
     }
 
     @Override
     public void deleteTask(int id) {
-        Task task = tasksIdsToTasks.remove(id);
-        if (task == null) {
-            return;
-        }
-        historyManager.remove(id);
-        prioritizedTasks.remove(task);
+        mutate(() -> {
+            Task task = tasksIdsToTasks.get(id);
+            if (task == null) {
+                return;
+            }
+            tasksIdsToTasks = tasksIdsToTasks.remove(id);
+            historyManager.remove(id);
+            removeFromPrioritized(task);
+            unindexItem(task);
+            recordChange(ChangeType.DELETE, task);
+        });
     }
 
     @Override
     public void deleteSubtask(int id) {
-        Subtask subtask = subtasksIdsToSubtasks.remove(id);
-        if (subtask == null) {
-            return;
-        }
-        historyManager.remove(id);
-        prioritizedTasks.remove(subtask);
-        updateEpicDataBySubtask(subtask);
+        mutate(() -> {
+            Subtask subtask = subtasksIdsToSubtasks.get(id);
+            if (subtask == null) {
+                return;
+            }
+            subtasksIdsToSubtasks = subtasksIdsToSubtasks.remove(id);
+            historyManager.remove(id);
+            removeFromPrioritized(subtask);
+            unindexItem(subtask);
+            recordChange(ChangeType.DELETE, subtask);
+            // Удалённая подзадача может оставаться в снимках - сбрасывать ей эпик нельзя
+            updateEpicDataBySubtask(new Subtask(subtask));
+        });
     }
 
     @Override
     public void deleteEpic(int id) {
-        Epic epic = epicsIdsToEpics.remove(id);
-        if (epic == null) {
-            return;
-        }
-        historyManager.remove(id);
-        deleteEpicSubtasks(epic);
+        mutate(() -> {
+            Epic epic = epicsIdsToEpics.get(id);
+            if (epic == null) {
+                return;
+            }
+            epicsIdsToEpics = epicsIdsToEpics.remove(id);
+            historyManager.remove(id);
+            deleteEpicSubtasks(epic);
+            unindexItem(epic);
+            recordChange(ChangeType.DELETE, epic);
+        });
     }
 
     @Override
@@ -278,6 +443,11 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public List<Subtask> getEpicSubtasks(Epic epic) {
+        return copiesOf(storedEpicSubtasks(epic), Subtask::new);
+    }
+
+    // Сохранённые подзадачи эпика без копирования - для пересчёта эпика внутри менеджера
+    private List<Subtask> storedEpicSubtasks(Epic epic) {
         if (epic == null || epic.getSubtasksIds().isEmpty()) {
             return new ArrayList<>();
         }
@@ -292,23 +462,186 @@ public class InMemoryTaskManager implements TaskManager {
     // Зачищаем информацию о подзадачах эпика во всех структурах
     @Override
     public void deleteEpicSubtasks(Epic epic) {
-        epic.getSubtasksIds().stream()
-                .map(subtasksIdsToSubtasks::remove)
-                .filter(Objects::nonNull)
-                .forEach(subtask -> {
-                    historyManager.remove(subtask.getId());
-                    prioritizedTasks.remove(subtask);
-                });
+        mutate(() -> {
+            epic.getSubtasksIds().stream()
+                    .map(subtasksIdsToSubtasks::get)
+                    .filter(Objects::nonNull)
+                    .forEach(subtask -> {
+                        subtasksIdsToSubtasks = subtasksIdsToSubtasks.remove(subtask.getId());
+                        historyManager.remove(subtask.getId());
+                        removeFromPrioritized(subtask);
+                        unindexItem(subtask);
+                        recordChange(ChangeType.DELETE, subtask);
+                    });
+        });
     }
 
     @Override
     public List<Task> getHistory() {
-        return historyManager.getHistory();
+        return copiesOf(historyManager.getHistory(), InMemoryTaskManager::copyOf);
     }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return prioritizedTasks.stream().toList();
+        return Collections.unmodifiableList(copiesOf(prioritizedTasks.values(), InMemoryTaskManager::copyOf));
+    }
+
+    // Выборка через индекс по статусам - стоимость пропорциональна размеру результата, а не всего хранилища
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        if (type == null || status == null) {
+            return new ArrayList<>();
+        }
+        PersistentSortedMap<Integer, ? extends Task> idsToItems = switch (type) {
+            case TASK -> tasksIdsToTasks;
+            case SUBTASK -> subtasksIdsToSubtasks;
+            case EPIC -> epicsIdsToEpics;
+        };
+        Set<Integer> ids = typesToStatusesToIds.get(type).get(status);
+        List<Task> items = new ArrayList<>(ids.size());
+        ids.forEach(id -> items.add(copyOf(idsToItems.get(id))));
+        return items;
+    }
+
+    @Override
+    public int getItemsCount(TaskType type) {
+        return switch (type) {
+            case TASK -> tasksIdsToTasks.size();
+            case SUBTASK -> subtasksIdsToSubtasks.size();
+            case EPIC -> epicsIdsToEpics.size();
+        };
+    }
+
+    @Override
+    public long getVersion() {
+        return version;
+    }
+
+    // Возвращает изменения с версией больше переданной - стоимость пропорциональна количеству изменений.
+    // Если часть изменений уже вытеснена из журнала или версия клиента из будущего (например, после перезапуска),
+    // клиенту нужно заново получить полные списки.
+    @Override
+    public List<TaskChange> getChangesSince(long sinceVersion) {
+        if (sinceVersion < evictedVersion || sinceVersion > version) {
+            throw new ChangesExpiredException(String.format(
+                    "Изменения после версии '%d' недоступны, текущая версия '%d'", sinceVersion, version));
+        }
+        List<TaskChange> changes = new ArrayList<>();
+        Iterator<TaskChange> newestFirst = changeLog.descendingIterator();
+        while (newestFirst.hasNext()) {
+            TaskChange change = newestFirst.next();
+            if (change.getVersion() <= sinceVersion) {
+                break;
+            }
+            changes.add(change);
+        }
+        Collections.reverse(changes);
+        return changes;
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return idsToVersions.getOrDefault(id, 0L);
+    }
+
+    @Override
+    public long getCollectionVersion(TaskType type) {
+        return typesToVersions.getOrDefault(type, 0L);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return historyVersion;
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        if (listener != null) {
+            changeListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeChangeListener(TaskChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // В памяти изменения применяются сразу, откладывать нечего
+    @Override
+    public void runInTransaction(Runnable operations) {
+        mutate(operations);
+    }
+
+    // Изменения операции фиксируются в хранилище одним сбросом по завершении внешней операции - в том числе
+    // при исключении, чтобы уже применённые в памяти изменения не потерялись
+    private <R> R mutate(Supplier<R> mutation) {
+        mutationDepth++;
+        try {
+            return mutation.get();
+        } finally {
+            mutationDepth--;
+            if (mutationDepth == 0) {
+                flushStorage();
+            }
+        }
+    }
+
+    private void mutate(Runnable mutation) {
+        mutate(() -> {
+            mutation.run();
+            return null;
+        });
+    }
+
+    // Снимок проверяется только здесь, после сброса изменений (см. StorageCompactionPolicy)
+    private void flushStorage() {
+        if (storage == null || !hasUnflushedChanges) {
+            return;
+        }
+        hasUnflushedChanges = false;
+        storage.flush(() -> {
+            List<Task> allItems = new ArrayList<>(tasksIdsToTasks.values());
+            allItems.addAll(subtasksIdsToSubtasks.values());
+            allItems.addAll(epicsIdsToEpics.values());
+            return allItems;
+        });
+        if (storage.isSnapshotDue()) {
+            storage.snapshot(snapshot());
+        }
+    }
+
+    // Снимок за O(1): карты неизменяемы, а сохранённые сущности не меняются после публикации
+    @Override
+    public TaskManagerSnapshot snapshot() {
+        return new TaskManagerSnapshot(version, tasksIdsToTasks, subtasksIdsToSubtasks, epicsIdsToEpics,
+                prioritizedTasks);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        if (query == null) {
+            return new ArrayList<>();
+        }
+        List<Integer> ids = searchIndex.search(query, limit);
+        List<Task> items = new ArrayList<>(ids.size());
+        ids.forEach(id -> items.add(findItemById(id)));
+        return items;
+    }
+
+    // Задачи без времени не попадают в отсортированные, а компаратор дерева не принимает пустое время
+    private void addToPrioritized(Task task) {
+        // Как и TreeSet, не заменяет задачу с тем же временем начала
+        if (task.getStartTime() != null && !prioritizedTasks.containsKey(task)) {
+            prioritizedTasks = prioritizedTasks.put(task, task);
+            intervalIndex.add(task);
+        }
+    }
+
+    private void removeFromPrioritized(Task task) {
+        if (task.getStartTime() != null) {
+            prioritizedTasks = prioritizedTasks.remove(task);
+            intervalIndex.remove(task);
+        }
     }
 
     // Обновление эпика подзадачи:
@@ -321,11 +654,13 @@ public class InMemoryTaskManager implements TaskManager {
         }
         int epicId = subtask.getEpicId();
 
-        Epic epic = epicsIdsToEpics.get(epicId);
-        if (epic == null) {
+        Epic storedEpic = epicsIdsToEpics.get(epicId);
+        if (storedEpic == null) {
             subtask.setEpicId(0);
             return;
         }
+        // Сохранённый эпик может входить в снимки, поэтому пересчитывается его копия
+        Epic epic = new Epic(storedEpic);
 
         // Добавление id подзадачи в список подзадач эпика, если его ещё нет в нём
         int currentSubtaskId = subtask.getId();
@@ -334,11 +669,111 @@ public class InMemoryTaskManager implements TaskManager {
             epicSubtasksIds.add(currentSubtaskId);
         }
 
+        // Статус эпика пересчитывается в Epic.calcEpicStatus, поэтому переносим его id в индексе по статусам
+        unindexStatus(storedEpic);
         updateEpicData(epic);
+        epicsIdsToEpics = epicsIdsToEpics.put(epicId, epic);
+        indexStatus(epic);
+        recordChange(ChangeType.UPDATE, epic);
+    }
+
+    // Просмотр дописывается в хранилище по одному id, а не вместе со всей историей
+    private void addToHistory(Task item) {
+        historyManager.add(item);
+        historyVersion++;
+        if (storage != null && !restoring) {
+            storage.recordView(item.getId());
+        }
+    }
+
+    // Ищет сохранённую сущность любого типа - id уникальны в пределах менеджера
+    private Task findItemById(int id) {
+        Task task = tasksIdsToTasks.get(id);
+        if (task != null) {
+            return task;
+        }
+        Subtask subtask = subtasksIdsToSubtasks.get(id);
+        if (subtask != null) {
+            return subtask;
+        }
+        return epicsIdsToEpics.get(id);
+    }
+
+    // Присваивает изменению следующую версию, добавляет его в ограниченный журнал изменений и оповещает слушателей.
+    // Сущность копируется, поскольку сохранённые эпики актуализируются на месте.
+    private void recordChange(ChangeType changeType, Task task) {
+        Task taskState = (changeType == ChangeType.DELETE) ? null : copyOf(task);
+        TaskChange change = new TaskChange(++version, changeType, task.getType(), task.getId(), taskState);
+        changeLog.addLast(change);
+        typesToVersions.put(task.getType(), version);
+        if (changeType == ChangeType.DELETE) {
+            idsToVersions.remove(task.getId());
+            historyVersion++; // Удалённая сущность пропадает из истории
+        } else {
+            idsToVersions.put(task.getId(), version);
+        }
+        if (changeLog.size() > CHANGE_LOG_CAPACITY) {
+            evictedVersion = changeLog.removeFirst().getVersion();
+        }
+        if (storage != null && !restoring) {
+            storage.apply(change);
+            hasUnflushedChanges = true;
+        }
+        changeListeners.forEach(listener -> listener.onChange(change));
+    }
+
+    private static <T extends Task> List<T> copiesOf(Collection<T> items, UnaryOperator<T> copier) {
+        List<T> copies = new ArrayList<>(items.size());
+        items.forEach(item -> copies.add(copier.apply(item)));
+        return copies;
+    }
+
+    private static Task copyOf(Task task) {
+        return switch (task.getType()) {
+            case TASK -> new Task(task);
+            case SUBTASK -> new Subtask((Subtask) task);
+            case EPIC -> new Epic((Epic) task);
+        };
+    }
+
+    // Добавляет сохранённую сущность во вторичные индексы
+    private void indexItem(Task task) {
+        indexStatus(task);
+        searchIndex.add(task);
+    }
+
+    // Убирает сохранённую сущность из вторичных индексов
+    private void unindexItem(Task task) {
+        unindexStatus(task);
+        searchIndex.remove(task);
+    }
+
+    // Добавляет id сохранённой сущности в индекс по статусам
+    private void indexStatus(Task task) {
+        if (task == null || task.getStatus() == null) {
+            return;
+        }
+        typesToStatusesToIds.get(task.getType()).get(task.getStatus()).add(task.getId());
+    }
+
+    // Убирает id сохранённой сущности из индекса по статусам
+    private void unindexStatus(Task task) {
+        if (task == null || task.getStatus() == null) {
+            return;
+        }
+        typesToStatusesToIds.get(task.getType()).get(task.getStatus()).remove(task.getId());
     }
 
     private void updateEpicData(Epic epic) {
-        List<Subtask> subtasksOfEpic = getEpicSubtasks(epic);
+        EpicRecalculationEvent event = new EpicRecalculationEvent();
+        event.begin();
+        List<Subtask> subtasksOfEpic = storedEpicSubtasks(epic);
         epic.updateData(subtasksOfEpic);
+        event.end();
+        if (event.shouldCommit()) {
+            event.epicId = epic.getId();
+            event.subtasks = subtasksOfEpic.size();
+            event.commit();
+        }
     }
 }
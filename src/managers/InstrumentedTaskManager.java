@@ -0,0 +1,285 @@
+package managers;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.TaskStatus;
+import enums.TaskType;
+import interfaces.TaskChangeListener;
+import interfaces.TaskManager;
+import metrics.MetricsRegistry;
+import metrics.OperationStats;
+import metrics.OperationStatsSnapshot;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+// Декоратор менеджера, который по каждой операции считает вызовы и ошибки, замеряет длительность
+// и память, выделенную вызывающим потоком. Данные попадают в реестр метрик и доступны срезом getOperationsSnapshot().
+// Не замеряются только тривиальные чтения версий и счётчиков - их замер стоил бы дороже самой операции.
+// Вложенные вызовы (операции внутри runInTransaction) учитываются и у себя, и во внешней операции.
+public class InstrumentedTaskManager implements TaskManager {
+    private static final String OPERATION_METRIC = "task_manager_operation_seconds";
+    private static final String CALLS_METRIC = "task_manager_operation_calls_total";
+    private static final String ERRORS_METRIC = "task_manager_operation_errors_total";
+    private static final String ALLOCATED_BYTES_METRIC = "task_manager_operation_allocated_bytes_total";
+    private static final com.sun.management.ThreadMXBean THREAD_MX_BEAN = allocationMeasuringBean();
+
+    private final TaskManager taskManager;
+    private final MetricsRegistry metrics;
+    // Статистика по имени операции - реестр не разбирает метки на каждом вызове
+    private final Map<String, OperationStats> operationsToStats = new ConcurrentHashMap<>();
+
+    public InstrumentedTaskManager(TaskManager taskManager, MetricsRegistry metrics) {
+        this.taskManager = taskManager;
+        this.metrics = metrics;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationMeasuringBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threadMXBean
+                && threadMXBean.isThreadAllocatedMemorySupported()) {
+            threadMXBean.setThreadAllocatedMemoryEnabled(true);
+            return threadMXBean;
+        }
+        return null;
+    }
+
+    public TaskManager getDelegate() {
+        return taskManager;
+    }
+
+    @Override
+    public int getNewId() {
+        return taskManager.getNewId();
+    }
+
+    @Override
+    public List<Task> getTasks() {
+        return timed("getTasks", taskManager::getTasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasks() {
+        return timed("getSubtasks", taskManager::getSubtasks);
+    }
+
+    @Override
+    public List<Epic> getEpics() {
+        return timed("getEpics", taskManager::getEpics);
+    }
+
+    @Override
+    public void deleteAllTasks() {
+        timed("deleteAllTasks", taskManager::deleteAllTasks);
+    }
+
+    @Override
+    public void deleteAllSubtasks() {
+        timed("deleteAllSubtasks", taskManager::deleteAllSubtasks);
+    }
+
+    @Override
+    public void deleteAllEpics() {
+        timed("deleteAllEpics", taskManager::deleteAllEpics);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return timed("getTaskById", () -> taskManager.getTaskById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return timed("getSubtaskById", () -> taskManager.getSubtaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return timed("getEpicById", () -> taskManager.getEpicById(id));
+    }
+
+    @Override
+    public int createTask(Task task) {
+        return timed("createTask", () -> taskManager.createTask(task));
+    }
+
+    @Override
+    public int createSubtask(Subtask subtask) {
+        return timed("createSubtask", () -> taskManager.createSubtask(subtask));
+    }
+
+    @Override
+    public int createEpic(Epic epic) {
+        return timed("createEpic", () -> taskManager.createEpic(epic));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        timed("updateTask", () -> taskManager.updateTask(task));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        timed("updateSubtask", () -> taskManager.updateSubtask(subtask));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        timed("updateEpic", () -> taskManager.updateEpic(epic));
+    }
+
+    @Override
+    public void deleteTask(int id) {
+        timed("deleteTask", () -> taskManager.deleteTask(id));
+    }
+
+    @Override
+    public void deleteSubtask(int id) {
+        timed("deleteSubtask", () -> taskManager.deleteSubtask(id));
+    }
+
+    @Override
+    public void deleteEpic(int id) {
+        timed("deleteEpic", () -> taskManager.deleteEpic(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int id) {
+        return timed("getEpicSubtasks", () -> taskManager.getEpicSubtasks(id));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(Epic epic) {
+        return timed("getEpicSubtasks", () -> taskManager.getEpicSubtasks(epic));
+    }
+
+    @Override
+    public void deleteEpicSubtasks(Epic epic) {
+        timed("deleteEpicSubtasks", () -> taskManager.deleteEpicSubtasks(epic));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return timed("getHistory", taskManager::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return timed("getPrioritizedTasks", taskManager::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getByStatus(TaskType type, TaskStatus status) {
+        return timed("getByStatus", () -> taskManager.getByStatus(type, status));
+    }
+
+    @Override
+    public int getItemsCount(TaskType type) {
+        return taskManager.getItemsCount(type);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return timed("search", () -> taskManager.search(query, limit));
+    }
+
+    @Override
+    public long getVersion() {
+        return taskManager.getVersion();
+    }
+
+    @Override
+    public List<TaskChange> getChangesSince(long version) {
+        return timed("getChangesSince", () -> taskManager.getChangesSince(version));
+    }
+
+    @Override
+    public long getEntityVersion(int id) {
+        return taskManager.getEntityVersion(id);
+    }
+
+    @Override
+    public long getCollectionVersion(TaskType type) {
+        return taskManager.getCollectionVersion(type);
+    }
+
+    @Override
+    public long getHistoryVersion() {
+        return taskManager.getHistoryVersion();
+    }
+
+    @Override
+    public void addChangeListener(TaskChangeListener listener) {
+        taskManager.addChangeListener(listener);
+    }
+
+    @Override
+    public void removeChangeListener(TaskChangeListener listener) {
+        taskManager.removeChangeListener(listener);
+    }
+
+    @Override
+    public void runInTransaction(Runnable operations) {
+        timed("runInTransaction", () -> taskManager.runInTransaction(operations));
+    }
+
+    @Override
+    public TaskManagerSnapshot snapshot() {
+        return timed("snapshot", taskManager::snapshot);
+    }
+
+    // Срез статистики по всем вызывавшимся операциям, упорядоченный по имени операции
+    public Map<String, OperationStatsSnapshot> getOperationsSnapshot() {
+        Map<String, OperationStatsSnapshot> snapshot = new TreeMap<>();
+        operationsToStats.forEach((operation, stats) -> snapshot.put(operation, stats.snapshot(operation)));
+        return snapshot;
+    }
+
+    private <T> T timed(String operation, Supplier<T> call) {
+        OperationStats stats = stats(operation);
+        long allocatedBefore = currentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            long allocatedAfter = currentThreadAllocatedBytes();
+            long allocated = (allocatedBefore < 0 || allocatedAfter < 0) ? -1 : allocatedAfter - allocatedBefore;
+            stats.record(nanos, allocated, failed);
+        }
+    }
+
+    private void timed(String operation, Runnable call) {
+        timed(operation, () -> {
+            call.run();
+            return null;
+        });
+    }
+
+    private OperationStats stats(String operation) {
+        OperationStats stats = operationsToStats.get(operation);
+        if (stats == null) {
+            stats = operationsToStats.computeIfAbsent(operation, key -> new OperationStats(
+                    metrics.counter(CALLS_METRIC, "operation", key),
+                    metrics.counter(ERRORS_METRIC, "operation", key),
+                    metrics.counter(ALLOCATED_BYTES_METRIC, "operation", key),
+                    metrics.histogram(OPERATION_METRIC, "operation", key)));
+        }
+        return stats;
+    }
+
+    // Память, выделенная текущим потоком с его старта, или -1, если JVM этого не поддерживает
+    // (в том числе для виртуальных потоков)
+    private static long currentThreadAllocatedBytes() {
+        return THREAD_MX_BEAN == null ? -1 : THREAD_MX_BEAN.getCurrentThreadAllocatedBytes();
+    }
+}
@@ -0,0 +1,26 @@
+package managers;
+
+// Менеджер поверх встраиваемой SQL-базы: схема и запись строк - в JdbcTaskStorage
+public class JdbcTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private final JdbcTaskStorage storage;
+
+    public JdbcTaskManager(String url) {
+        this(new JdbcTaskStorage(url));
+    }
+
+    private JdbcTaskManager(JdbcTaskStorage storage) {
+        super(storage);
+        this.storage = storage;
+    }
+
+    public static JdbcTaskManager loadFromDatabase(String url) {
+        JdbcTaskManager manager = new JdbcTaskManager(url);
+        manager.loadFromStorage();
+        return manager;
+    }
+
+    @Override
+    public void close() {
+        storage.close();
+    }
+}
@@ -0,0 +1,185 @@
+package managers;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
+import enums.TaskStatus;
+import enums.TaskType;
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import interfaces.TaskStorage;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+// Хранилище во встраиваемой SQL-базе: по строке таблицы на сущность.
+// Между сбросами копится последнее состояние каждой изменённой сущности, а сброс одной транзакцией
+// пакетно переписывает только эти строки - неизменившиеся сущности базу не затрагивают.
+// Используется только переносимый SQL, поэтому подойдёт любой JDBC-драйвер из classpath.
+// Название и описание хранятся в CLOB: длина строк в менеджере не ограничена, и VARCHAR обрезал бы их
+// или отклонял бы сброс уже применённых в памяти изменений
+public class JdbcTaskStorage implements TaskStorage, AutoCloseable {
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS tasks (id INT PRIMARY KEY, "
+            + "type VARCHAR(16) NOT NULL, title CLOB, status VARCHAR(16) NOT NULL, "
+            + "description CLOB, epic_id INT, duration_seconds BIGINT, start_time TIMESTAMP)";
+    private static final String SELECT_ALL = "SELECT id, type, title, status, description, epic_id, "
+            + "duration_seconds, start_time FROM tasks";
+    private static final String DELETE_BY_ID = "DELETE FROM tasks WHERE id = ?";
+    private static final String INSERT = "INSERT INTO tasks (id, type, title, status, description, epic_id, "
+            + "duration_seconds, start_time) VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final String url;
+    private final Connection connection;
+    // Последнее состояние изменённых с прошлого сброса сущностей по id; null - сущность удалена
+    private final Map<Integer, Task> changedItems = new LinkedHashMap<>();
+
+    public JdbcTaskStorage(String url) {
+        this.url = url;
+        try {
+            connection = DriverManager.getConnection(url);
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+            connection.commit();
+        } catch (SQLException e) {
+            throw new ManagerLoadException(String.format("Ошибка при подключении к базе '%s': %s",
+                    url, e.getMessage()));
+        }
+    }
+
+    @Override
+    public List<Task> load() {
+        List<Task> items = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(SELECT_ALL)) {
+            while (rows.next()) {
+                items.add(readItem(rows));
+            }
+            connection.commit();
+        } catch (SQLException | IllegalArgumentException e) {
+            throw new ManagerLoadException(String.format("Ошибка при загрузке задач из базы '%s': %s",
+                    url, e.getMessage()));
+        }
+        return items;
+    }
+
+    @Override
+    public void apply(TaskChange change) {
+        changedItems.put(change.getId(), change.getChangeType() == ChangeType.DELETE ? null : change.getTask());
+    }
+
+    // Переносимой замены строки (MERGE/UPSERT) в SQL нет, поэтому изменённые строки удаляются и вставляются заново
+    // двумя пакетами в одной транзакции. При ошибке транзакция откатывается, а изменения остаются до следующего сброса
+    @Override
+    public void flush(Supplier<List<Task>> allItems) {
+        if (changedItems.isEmpty()) {
+            return;
+        }
+        try (PreparedStatement delete = connection.prepareStatement(DELETE_BY_ID);
+             PreparedStatement insert = connection.prepareStatement(INSERT)) {
+            for (Map.Entry<Integer, Task> entry : changedItems.entrySet()) {
+                delete.setInt(1, entry.getKey());
+                delete.addBatch();
+                if (entry.getValue() != null) {
+                    bindItem(insert, entry.getValue());
+                    insert.addBatch();
+                }
+            }
+            delete.executeBatch();
+            insert.executeBatch();
+            connection.commit();
+            changedItems.clear();
+        } catch (SQLException e) {
+            rollback();
+            throw new ManagerSaveException(String.format("Ошибка при сохранении задач в базу '%s': %s",
+                    url, e.getMessage()));
+        }
+    }
+
+    @Override
+    public boolean isSnapshotDue() {
+        return false;
+    }
+
+    // Таблица и есть актуальное состояние: после сброса снимку дописывать нечего
+    @Override
+    public CompletableFuture<Void> snapshot(TaskManagerSnapshot snapshot) {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    @Override
+    public void close() {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new ManagerSaveException(String.format("Ошибка при закрытии базы '%s': %s",
+                    url, e.getMessage()));
+        }
+    }
+
+    private static void bindItem(PreparedStatement insert, Task item) throws SQLException {
+        insert.setInt(1, item.getId());
+        insert.setString(2, item.getType().name());
+        insert.setString(3, item.getTitle());
+        insert.setString(4, item.getStatus().name());
+        insert.setString(5, item.getDescription());
+        if (item instanceof Subtask subtask) {
+            insert.setInt(6, subtask.getEpicId());
+        } else {
+            insert.setNull(6, Types.INTEGER);
+        }
+        if (item.getDuration() == null) {
+            insert.setNull(7, Types.BIGINT);
+        } else {
+            insert.setLong(7, item.getDuration().getSeconds());
+        }
+        if (item.getStartTime() == null) {
+            insert.setNull(8, Types.TIMESTAMP);
+        } else {
+            insert.setTimestamp(8, Timestamp.valueOf(item.getStartTime()));
+        }
+    }
+
+    private static Task readItem(ResultSet rows) throws SQLException {
+        String title = rows.getString("title");
+        String description = rows.getString("description");
+        TaskStatus status = TaskStatus.valueOf(rows.getString("status"));
+        long durationSeconds = rows.getLong("duration_seconds");
+        Duration duration = rows.wasNull() ? Duration.ZERO : Duration.ofSeconds(durationSeconds);
+        Timestamp startTime = rows.getTimestamp("start_time");
+        Task item = switch (TaskType.valueOf(rows.getString("type"))) {
+            case TASK -> new Task(title, description, status,
+                    startTime == null ? null : startTime.toLocalDateTime(), duration);
+            case SUBTASK -> new Subtask(title, description, status, rows.getInt("epic_id"),
+                    startTime == null ? null : startTime.toLocalDateTime(), duration);
+            case EPIC -> new Epic(title, description, status);
+        };
+        item.setId(rows.getInt("id"));
+        return item;
+    }
+
+    private void rollback() {
+        try {
+            connection.rollback();
+        } catch (SQLException ignored) {
+            // Исходная ошибка сброса важнее; незафиксированная транзакция откатится и при закрытии соединения
+        }
+    }
+}
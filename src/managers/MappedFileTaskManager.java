@@ -0,0 +1,38 @@
+package managers;
+
+import java.io.File;
+import java.util.List;
+
+// Файловый менеджер поверх отображённого в память файла слотов: формат и запись - в MappedSlotsTaskStorage
+public class MappedFileTaskManager extends InMemoryTaskManager implements AutoCloseable {
+    private final MappedSlotsTaskStorage storage;
+
+    public MappedFileTaskManager(File slotsFile) {
+        this(new MappedSlotsTaskStorage(slotsFile));
+    }
+
+    private MappedFileTaskManager(MappedSlotsTaskStorage storage) {
+        super(storage);
+        this.storage = storage;
+    }
+
+    public static MappedFileTaskManager loadFromFile(File slotsFile) {
+        MappedFileTaskManager manager = new MappedFileTaskManager(slotsFile);
+        manager.loadFromStorage();
+        return manager;
+    }
+
+    public List<Integer> getDroppedSlots() {
+        return storage.getDroppedSlots();
+    }
+
+    // Сбрасывает изменённые страницы слотов и кучи на диск
+    public void force() {
+        storage.force();
+    }
+
+    @Override
+    public void close() {
+        storage.close();
+    }
+}
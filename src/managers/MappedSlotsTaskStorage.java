@@ -0,0 +1,445 @@
+package managers;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
+import enums.TaskStatus;
+import enums.TaskType;
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import interfaces.TaskStorage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.zip.CRC32C;
+
+// Хранилище в отображённом в память файле из слотов фиксированного размера - по слоту на сущность.
+// Изменение сущности переписывает только её слот на месте, а не весь файл; строки (название и описание)
+// лежат в отдельной дописываемой куче и переписываются, только если изменились.
+// Каждый слот защищён контрольной суммой: при загрузке повреждённые слоты отбрасываются, а не ломают загрузку.
+// Прежние версии изменённых строк остаются в куче мусором, пока куча не вырастет в COMPACTION_RATIO раз
+// больше живых строк - тогда при ближайшем сбросе она переписывается (см. compactHeap), так что её размер ограничен.
+// Файл слотов отображается одним буфером с int-индексами, поэтому слотов не больше MAX_CAPACITY (~38 млн).
+//
+// Слот (56 байт): id, тип (0 - свободный слот), статус, id эпика, длина и смещение строк в куче,
+// начало выполнения в секундах UTC (Long.MIN_VALUE - не задано) и наносекундах, длительность в секундах
+// и наносекундах, CRC32C байт 0..47.
+// Заголовок файла слотов: сигнатура, версия формата, размер слота и поколение файла кучи.
+public class MappedSlotsTaskStorage implements TaskStorage, AutoCloseable {
+    private static final int MAGIC = 0x4B4E4253;
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 16;
+    private static final int HEAP_GENERATION_OFFSET = 12;
+    private static final int SLOT_SIZE = 56;
+    private static final int CHECKSUM_OFFSET = 48;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = (Integer.MAX_VALUE - HEADER_SIZE) / SLOT_SIZE;
+    // Куча переписывается, когда она больше живых строк в COMPACTION_RATIO раз, но не раньше минимального размера
+    private static final int COMPACTION_RATIO = 2;
+    private static final long MIN_COMPACTION_HEAP_SIZE = 64 * 1024;
+    private static final long NO_START_TIME = Long.MIN_VALUE;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+
+    private final File slotsFile;
+    private File heapFile;
+    private FileChannel slotsChannel;
+    private FileChannel heapChannel;
+    private MappedByteBuffer slots;
+    private int capacity;
+    private long heapSize;
+    // Байты строк, на которые ссылаются слоты сущностей; остальное в куче - мусор
+    private long liveHeapSize = 0;
+    // Слот и строки каждой сохранённой сущности: неизменившиеся строки не дописываются в кучу повторно
+    private final Map<Integer, SlotEntry> idsToSlots = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextUnusedSlot = 0;
+    // Слоты, отброшенные при загрузке из-за несовпадения контрольной суммы
+    private final List<Integer> droppedSlots = new ArrayList<>();
+    private final CRC32C checksum = new CRC32C();
+
+    public MappedSlotsTaskStorage(File slotsFile) {
+        this.slotsFile = slotsFile;
+        try {
+            if (openSlots() == 0) {
+                slots.putInt(0, MAGIC).putInt(4, FORMAT_VERSION).putInt(8, SLOT_SIZE).putInt(HEAP_GENERATION_OFFSET, 0);
+            } else if (slots.getInt(0) != MAGIC || slots.getInt(4) != FORMAT_VERSION
+                    || slots.getInt(8) != SLOT_SIZE) {
+                throw new ManagerLoadException(String.format("Файл '%s' не является файлом слотов версии %d",
+                        slotsFile.getAbsolutePath(), FORMAT_VERSION));
+            }
+            heapFile = heapFile(slots.getInt(HEAP_GENERATION_OFFSET));
+            heapChannel = FileChannel.open(heapFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            heapSize = heapChannel.size();
+        } catch (IOException e) {
+            throw new ManagerLoadException(String.format("Ошибка при открытии файла слотов '%s': %s",
+                    slotsFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    public List<Integer> getDroppedSlots() {
+        return Collections.unmodifiableList(droppedSlots);
+    }
+
+    // Сбрасывает изменённые страницы слотов и кучи на диск
+    public void force() {
+        try {
+            slots.force();
+            heapChannel.force(false);
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при сбросе файла слотов '%s': %s",
+                    slotsFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public void close() {
+        force();
+        try {
+            slotsChannel.close();
+            heapChannel.close();
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при закрытии файла слотов '%s': %s",
+                    slotsFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    @Override
+    public List<Task> load() {
+        List<Task> items = new ArrayList<>();
+        int lastUsedSlot = -1;
+        for (int slot = 0; slot < capacity; slot++) {
+            int position = slotPosition(slot);
+            if (isEmptySlot(position)) {
+                continue;
+            }
+            lastUsedSlot = slot;
+            if (slots.getInt(position + CHECKSUM_OFFSET) != slotChecksum(slots, position)) {
+                droppedSlots.add(slot);
+                continue;
+            }
+            int typeCode = slots.get(position + 4);
+            if (typeCode == 0) {
+                freeSlots.add(slot);
+                continue;
+            }
+            Task item = readSlot(slot, position, typeCode);
+            if (item == null) {
+                droppedSlots.add(slot);
+            } else {
+                items.add(item);
+            }
+        }
+        nextUnusedSlot = lastUsedSlot + 1;
+        // Отброшенные слоты перезапишутся новыми сущностями
+        freeSlots.addAll(droppedSlots);
+        return items;
+    }
+
+    private Task readSlot(int slot, int position, int typeCode) {
+        int id = slots.getInt(position);
+        int statusCode = slots.get(position + 5);
+        int epicId = slots.getInt(position + 8);
+        int stringsLength = slots.getInt(position + 12);
+        long startEpochSecond = slots.getLong(position + 16);
+        long durationSeconds = slots.getLong(position + 24);
+        long stringsOffset = slots.getLong(position + 32);
+        int startNano = slots.getInt(position + 40);
+        int durationNano = slots.getInt(position + 44);
+        if (typeCode < 0 || typeCode > TYPES.length || statusCode < 0 || statusCode >= STATUSES.length
+                || stringsOffset < 0 || stringsLength < 0 || stringsOffset + stringsLength > heapSize
+                || startNano < 0 || startNano > 999_999_999 || durationNano < 0 || durationNano > 999_999_999) {
+            return null;
+        }
+        String[] strings;
+        try {
+            strings = readStrings(stringsOffset, stringsLength);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+
+        LocalDateTime startTime = startEpochSecond == NO_START_TIME
+                ? null : LocalDateTime.ofEpochSecond(startEpochSecond, startNano, ZoneOffset.UTC);
+        Duration duration = Duration.ofSeconds(durationSeconds, durationNano);
+        TaskStatus status = STATUSES[statusCode];
+        Task item = switch (TYPES[typeCode - 1]) {
+            case TASK -> new Task(strings[0], strings[1], status, startTime, duration);
+            case SUBTASK -> new Subtask(strings[0], strings[1], status, epicId, startTime, duration);
+            case EPIC -> new Epic(strings[0], strings[1], status);
+        };
+        item.setId(id);
+        idsToSlots.put(id, new SlotEntry(slot, strings[0], strings[1], stringsOffset, stringsLength));
+        liveHeapSize += stringsLength;
+        return item;
+    }
+
+    // Слот сущности переписывается сразу при изменении - копить до сброса нечего
+    @Override
+    public void apply(TaskChange change) {
+        try {
+            if (change.getChangeType() == ChangeType.DELETE) {
+                SlotEntry entry = idsToSlots.remove(change.getId());
+                if (entry != null) {
+                    int position = slotPosition(entry.slot);
+                    slots.put(position + 4, (byte) 0);
+                    slots.putInt(position + CHECKSUM_OFFSET, slotChecksum(slots, position));
+                    freeSlots.push(entry.slot);
+                    liveHeapSize -= entry.stringsLength;
+                }
+            } else {
+                writeSlot(change.getTask());
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при сохранении задачи в файл '%s': %s",
+                    heapFile.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    // Сброс уплотняет разросшуюся кучу вне пути изменения и сбрасывает изменённые страницы на диск
+    @Override
+    public void flush(Supplier<List<Task>> allItems) {
+        if (heapSize >= MIN_COMPACTION_HEAP_SIZE && heapSize > COMPACTION_RATIO * liveHeapSize) {
+            try {
+                compactHeap();
+            } catch (IOException e) {
+                throw new ManagerSaveException(String.format("Ошибка при уплотнении файла '%s': %s",
+                        heapFile.getAbsolutePath(), e.getMessage()));
+            }
+        }
+        force();
+    }
+
+    @Override
+    public boolean isSnapshotDue() {
+        return false;
+    }
+
+    // Файл слотов и есть актуальное состояние: снимок сводится к сбросу изменённых страниц на диск
+    @Override
+    public CompletableFuture<Void> snapshot(TaskManagerSnapshot snapshot) {
+        force();
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Переписывает слот сущности на месте; строки дописываются в кучу, только если они изменились
+    private void writeSlot(Task item) throws IOException {
+        SlotEntry entry = idsToSlots.get(item.getId());
+        if (entry == null) {
+            entry = new SlotEntry(allocateSlot(), null, null, 0, 0);
+            idsToSlots.put(item.getId(), entry);
+        }
+        if (entry.stringsLength == 0 || !Objects.equals(entry.title, item.getTitle())
+                || !Objects.equals(entry.description, item.getDescription())) {
+            liveHeapSize -= entry.stringsLength;
+            entry.title = item.getTitle();
+            entry.description = item.getDescription();
+            entry.stringsOffset = heapSize;
+            entry.stringsLength = appendStrings(entry.title, entry.description);
+            liveHeapSize += entry.stringsLength;
+        }
+
+        int position = slotPosition(entry.slot);
+        LocalDateTime startTime = item.getStartTime();
+        Duration duration = item.getDuration();
+        slots.putInt(position, item.getId());
+        slots.put(position + 4, (byte) (item.getType().ordinal() + 1));
+        slots.put(position + 5, (byte) item.getStatus().ordinal());
+        slots.putInt(position + 8, item instanceof Subtask subtask ? subtask.getEpicId() : 0);
+        slots.putInt(position + 12, entry.stringsLength);
+        slots.putLong(position + 16, startTime == null ? NO_START_TIME : startTime.toEpochSecond(ZoneOffset.UTC));
+        slots.putLong(position + 24, duration == null ? 0 : duration.getSeconds());
+        slots.putLong(position + 32, entry.stringsOffset);
+        slots.putInt(position + 40, startTime == null ? 0 : startTime.getNano());
+        slots.putInt(position + 44, duration == null ? 0 : duration.getNano());
+        slots.putInt(position + CHECKSUM_OFFSET, slotChecksum(slots, position));
+    }
+
+    private int allocateSlot() throws IOException {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        if (nextUnusedSlot == capacity) {
+            if (capacity == MAX_CAPACITY) {
+                throw new ManagerSaveException(String.format("Файл слотов '%s' заполнен: не больше %d сущностей",
+                        slotsFile.getAbsolutePath(), MAX_CAPACITY));
+            }
+            // Отображение большего размера растягивает файл; прежнее отображение освободит сборщик мусора
+            capacity = (int) Math.min(2L * capacity, MAX_CAPACITY);
+            slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        }
+        return nextUnusedSlot++;
+    }
+
+    // Живые строки переписываются подряд в кучу следующего поколения, а копия слотов с новыми смещениями и
+    // поколением - во временный файл, который атомарно подменяет файл слотов. До подмены файл слотов ссылается
+    // на прежнюю целую кучу, после - на уже сброшенную на диск новую, поэтому сбой на любом шаге ничего не теряет
+    private void compactHeap() throws IOException {
+        int generation = slots.getInt(HEAP_GENERATION_OFFSET) + 1;
+        File compactedHeapFile = heapFile(generation);
+        File compactedSlotsFile = new File(slotsFile.getPath() + ".compacting");
+        ByteBuffer compactedSlots = ByteBuffer.allocate(slotPosition(capacity));
+        compactedSlots.put(slots.slice(0, compactedSlots.capacity())).clear();
+        compactedSlots.putInt(HEAP_GENERATION_OFFSET, generation);
+        Map<SlotEntry, Long> entriesToOffsets = new HashMap<>();
+        long compactedHeapSize = 0;
+        try (FileChannel compactedHeap = FileChannel.open(compactedHeapFile.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            for (SlotEntry entry : idsToSlots.values()) {
+                write(compactedHeap, readHeap(entry.stringsOffset, entry.stringsLength), compactedHeapSize);
+                int position = slotPosition(entry.slot);
+                compactedSlots.putLong(position + 32, compactedHeapSize);
+                compactedSlots.putInt(position + CHECKSUM_OFFSET, slotChecksum(compactedSlots, position));
+                entriesToOffsets.put(entry, compactedHeapSize);
+                compactedHeapSize += entry.stringsLength;
+            }
+            compactedHeap.force(false);
+        }
+        try (FileChannel compactedSlotsChannel = FileChannel.open(compactedSlotsFile.toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            write(compactedSlotsChannel, compactedSlots, 0);
+            compactedSlotsChannel.force(false);
+        }
+        Files.move(compactedSlotsFile.toPath(), slotsFile.toPath(), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+
+        slotsChannel.close();
+        heapChannel.close();
+        openSlots();
+        File previousHeapFile = heapFile;
+        heapFile = compactedHeapFile;
+        heapChannel = FileChannel.open(heapFile.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+        heapSize = compactedHeapSize;
+        entriesToOffsets.forEach((entry, offset) -> entry.stringsOffset = offset);
+        Files.deleteIfExists(previousHeapFile.toPath());
+    }
+
+    // Открывает и отображает файл слотов целиком, не меньше начальной ёмкости; возвращает прежний размер файла
+    private long openSlots() throws IOException {
+        slotsChannel = FileChannel.open(slotsFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        long fileSize = slotsChannel.size();
+        long fileSlots = (Math.max(fileSize, HEADER_SIZE) - HEADER_SIZE) / SLOT_SIZE;
+        if (fileSlots > MAX_CAPACITY) {
+            throw new ManagerLoadException(String.format("Файл слотов '%s' больше %d слотов",
+                    slotsFile.getAbsolutePath(), MAX_CAPACITY));
+        }
+        capacity = Math.max(INITIAL_CAPACITY, (int) fileSlots);
+        slots = slotsChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * SLOT_SIZE);
+        return fileSize;
+    }
+
+    // Куча нулевого поколения - файл .heap, следующие - .heap.1, .heap.2 и т.д.
+    private File heapFile(int generation) {
+        return new File(slotsFile.getPath() + ".heap" + (generation == 0 ? "" : "." + generation));
+    }
+
+    // Строка в куче - длина в байтах UTF-8 (-1 для null) и сами байты
+    private int appendStrings(String title, String description) throws IOException {
+        byte[] titleBytes = title == null ? new byte[0] : title.getBytes(StandardCharsets.UTF_8);
+        byte[] descriptionBytes = description == null ? new byte[0] : description.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.allocate(8 + titleBytes.length + descriptionBytes.length);
+        buffer.putInt(title == null ? -1 : titleBytes.length).put(titleBytes);
+        buffer.putInt(description == null ? -1 : descriptionBytes.length).put(descriptionBytes);
+        buffer.flip();
+        int length = buffer.remaining();
+        write(heapChannel, buffer, heapSize);
+        heapSize += length;
+        return length;
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private String[] readStrings(long offset, int length) throws IOException {
+        ByteBuffer buffer = readHeap(offset, length);
+        return new String[]{readString(buffer), readString(buffer)};
+    }
+
+    private ByteBuffer readHeap(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            int read = heapChannel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of string heap");
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int slotChecksum(ByteBuffer buffer, int position) {
+        checksum.reset();
+        checksum.update(buffer.slice(position, CHECKSUM_OFFSET));
+        return (int) checksum.getValue();
+    }
+
+    // Слот, в который ещё ничего не записывалось, целиком состоит из нулей
+    private boolean isEmptySlot(int position) {
+        for (int offset = 0; offset < SLOT_SIZE; offset += Long.BYTES) {
+            if (slots.getLong(position + offset) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Ёмкость не больше MAX_CAPACITY, поэтому позиция слота помещается в int; toIntExact ловит нарушение этого
+    private static int slotPosition(int slot) {
+        return Math.toIntExact(HEADER_SIZE + (long) slot * SLOT_SIZE);
+    }
+
+    private static class SlotEntry {
+        private final int slot;
+        private String title;
+        private String description;
+        private long stringsOffset;
+        private int stringsLength;
+
+        private SlotEntry(int slot, String title, String description, long stringsOffset, int stringsLength) {
+            this.slot = slot;
+            this.title = title;
+            this.description = description;
+            this.stringsOffset = stringsOffset;
+            this.stringsLength = stringsLength;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+package managers;
+
+import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
+import enums.TaskType;
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+import interfaces.StorageCodec;
+import metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+// CSV-хранилище, разбитое на файлы-шарды по типу сущности и, если задан размер диапазона, по диапазону id:
+// tasks.csv.task, tasks.csv.subtask, tasks.csv.epic либо tasks.csv.subtask.0, tasks.csv.subtask.1 и т.д.
+// Каждый шард - отдельный CsvTaskStorage в режиме перезаписи со всеми его гарантиями (контрольные суммы,
+// атомарная подмена, сжатие кодеком). Хранилище держит сущности каждого шарда, поэтому сброс перезаписывает
+// только шарды, в которых были изменения, и не перебирает остальные сущности менеджера; загрузка читает шарды
+// параллельно. Сам файл tasks.csv не создаётся, история просмотров ведётся рядом в
+// tasks.csv.history. Шарды, оставшиеся от другого размера диапазона, при первом сбросе раскладываются заново
+public class ShardedCsvTaskStorage implements CsvFileStorage {
+    private static final String HISTORY_SUFFIX = ".history";
+
+    private final File tasksStorage;
+    // Число id в шарде одного типа; 0 - по одному шарду на тип
+    private final int idsPerShard;
+    private final boolean recovery;
+    private final StorageCodec codec;
+    private final Pattern shardNamePattern;
+    // Шарды по имени файла
+    private final Map<String, CsvTaskStorage> shards = new HashMap<>();
+    // Сущности по имени шарда и id - последнее состояние, полученное при загрузке или в изменениях
+    private final Map<String, NavigableMap<Integer, Task>> shardsToItems = new HashMap<>();
+    // Шарды с изменениями, ещё не записанными в файл
+    private final Set<String> dirtyShards = new LinkedHashSet<>();
+    private final ViewHistoryLog historyLog;
+    private final LatencyHistogram saveDurations = new LatencyHistogram();
+    private final List<String> droppedRecords = new ArrayList<>();
+
+    public ShardedCsvTaskStorage(File tasksStorage, int idsPerShard) {
+        this(tasksStorage, idsPerShard, false, null);
+    }
+
+    public ShardedCsvTaskStorage(File tasksStorage, int idsPerShard, boolean recovery, StorageCodec codec) {
+        if (idsPerShard < 0) {
+            throw new IllegalArgumentException("Размер диапазона id шарда не может быть отрицательным");
+        }
+        this.tasksStorage = tasksStorage;
+        this.idsPerShard = idsPerShard;
+        this.recovery = recovery;
+        this.codec = codec;
+        this.shardNamePattern = Pattern.compile(Pattern.quote(tasksStorage.getName()) + "\\.("
+                + String.join("|", Arrays.stream(TaskType.values()).map(ShardedCsvTaskStorage::typeSuffix).toList())
+                + ")(\\.\\d+)?");
+        this.historyLog = new ViewHistoryLog(new File(tasksStorage.getPath() + HISTORY_SUFFIX));
+    }
+
+    public File getFile() {
+        return tasksStorage;
+    }
+
+    // Шарды только перезаписываются - журнала изменений и его сжатия нет
+    @Override
+    public StorageCompactionPolicy getCompactionPolicy() {
+        return null;
+    }
+
+    @Override
+    public LatencyHistogram getSaveDurations() {
+        return saveDurations;
+    }
+
+    @Override
+    public List<String> getDroppedRecords() {
+        List<String> allDroppedRecords = new ArrayList<>(droppedRecords);
+        shards.values().forEach(shard -> allDroppedRecords.addAll(shard.getDroppedRecords()));
+        return Collections.unmodifiableList(allDroppedRecords);
+    }
+
+    // Каждый шард читается и разбирается в своём потоке; сущности, лежащие не в своём шарде, помечают
+    // изменёнными оба шарда - при сбросе они перекладываются. После прерванной перекладки сущность может
+    // лежать в двух шардах: берётся копия из своего шарда, он записывается раньше удаления прежнего
+    @Override
+    public List<Task> load() {
+        List<File> shardFiles = findShardFiles();
+        List<CompletableFuture<List<Task>>> loads = new ArrayList<>();
+        for (File shardFile : shardFiles) {
+            CsvTaskStorage shard = new CsvTaskStorage(shardFile, null, recovery, codec);
+            shards.put(shardFile.getName(), shard);
+            loads.add(CompletableFuture.supplyAsync(shard::load));
+        }
+        Map<Integer, Task> idsToItems = new LinkedHashMap<>();
+        for (int i = 0; i < loads.size(); i++) {
+            String shardName = shardFiles.get(i).getName();
+            for (Task item : join(loads.get(i))) {
+                String targetShard = shardName(item.getType(), item.getId());
+                if (targetShard.equals(shardName)) {
+                    idsToItems.put(item.getId(), item);
+                } else {
+                    dirtyShards.add(shardName);
+                    dirtyShards.add(targetShard);
+                    idsToItems.putIfAbsent(item.getId(), item);
+                }
+            }
+        }
+        idsToItems.values().forEach(this::putItem);
+        return new ArrayList<>(idsToItems.values());
+    }
+
+    @Override
+    public List<Integer> loadHistory() {
+        return historyLog.load(this::dropRecord);
+    }
+
+    @Override
+    public void recordView(int id) {
+        historyLog.recordView(id);
+    }
+
+    @Override
+    public void apply(TaskChange change) {
+        String shardName = shardName(change.getTaskType(), change.getId());
+        if (change.getChangeType() == ChangeType.DELETE) {
+            historyLog.recordDelete(change.getId());
+            NavigableMap<Integer, Task> shardItems = shardsToItems.get(shardName);
+            if (shardItems != null) {
+                shardItems.remove(change.getId());
+            }
+        } else {
+            putItem(change.getTask());
+        }
+        dirtyShards.add(shardName);
+    }
+
+    // Перезаписываются только изменённые шарды - из своих сущностей, без обхода всех сущностей менеджера.
+    // Шард, в котором не осталось сущностей, удаляется только после записи остальных - иначе сбой при
+    // перекладке потерял бы её сущности. При ошибке записи шард остаётся изменённым до следующего сброса
+    @Override
+    public void flush(Supplier<List<Task>> allItems) {
+        historyLog.flush();
+        if (dirtyShards.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            List<String> emptiedShards = new ArrayList<>();
+            for (String shardName : new ArrayList<>(dirtyShards)) {
+                NavigableMap<Integer, Task> shardItems = shardsToItems.get(shardName);
+                if (shardItems == null || shardItems.isEmpty()) {
+                    emptiedShards.add(shardName);
+                } else {
+                    writeShard(shardName, new ArrayList<>(shardItems.values()));
+                    dirtyShards.remove(shardName);
+                }
+            }
+            for (String shardName : emptiedShards) {
+                deleteShard(shardName);
+                shardsToItems.remove(shardName);
+                dirtyShards.remove(shardName);
+            }
+        } finally {
+            saveDurations.record(System.nanoTime() - start);
+        }
+    }
+
+    @Override
+    public void close() {
+        historyLog.close();
+    }
+
+    @Override
+    public boolean isSnapshotDue() {
+        return false;
+    }
+
+    // Снимок перезаписывает все шарды: сущности раскладываются по шардам заново из снимка
+    @Override
+    public CompletableFuture<Void> snapshot(TaskManagerSnapshot snapshot) {
+        dirtyShards.addAll(shards.keySet());
+        dirtyShards.addAll(shardsToItems.keySet());
+        shardsToItems.clear();
+        List<Task> allItems = new ArrayList<>(snapshot.getTasks());
+        allItems.addAll(snapshot.getSubtasks());
+        allItems.addAll(snapshot.getEpics());
+        allItems.forEach(item -> dirtyShards.add(putItem(item)));
+        flush(() -> allItems);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    // Кладёт сущность в её шард и возвращает имя шарда
+    private String putItem(Task item) {
+        String shardName = shardName(item.getType(), item.getId());
+        shardsToItems.computeIfAbsent(shardName, name -> new TreeMap<>()).put(item.getId(), item);
+        return shardName;
+    }
+
+    private void deleteShard(String shardName) {
+        CsvTaskStorage shard = shards.get(shardName);
+        if (shard == null) {
+            return;
+        }
+        File shardFile = shard.getFile();
+        try {
+            Files.deleteIfExists(shardFile.toPath());
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при удалении файла шарда '%s': %s",
+                    shardFile.getAbsolutePath(), e.getMessage()));
+        }
+        shards.remove(shardName);
+    }
+
+    private void writeShard(String shardName, List<Task> items) {
+        CsvTaskStorage shard = shards.get(shardName);
+        if (shard == null) {
+            shard = new CsvTaskStorage(new File(tasksStorage.getAbsoluteFile().getParentFile(), shardName), null,
+                    recovery, codec);
+            shards.put(shardName, shard);
+        }
+        shard.flush(() -> items);
+    }
+
+    private String shardName(TaskType type, int id) {
+        String name = tasksStorage.getName() + "." + typeSuffix(type);
+        return idsPerShard == 0 ? name : name + "." + id / idsPerShard;
+    }
+
+    private static String typeSuffix(TaskType type) {
+        return type.name().toLowerCase(Locale.ROOT);
+    }
+
+    private List<File> findShardFiles() {
+        File[] files = tasksStorage.getAbsoluteFile().getParentFile().listFiles((directory, name) ->
+                shardNamePattern.matcher(name).matches());
+        return files == null ? List.of() : Arrays.asList(files);
+    }
+
+    private static List<Task> join(CompletableFuture<List<Task>> load) {
+        try {
+            return load.join();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof ManagerLoadException loadException) {
+                throw loadException;
+            }
+            throw e;
+        }
+    }
+
+    // Оборванная последняя строка журнала истории отбрасывается всегда, повреждение в середине -
+    // только в режиме восстановления
+    private void dropRecord(File file, int lineNumber, String line, boolean isTail) {
+        if (!recovery && !isTail) {
+            throw new ManagerLoadException(String.format("Повреждённая запись в файле '%s', строка %d: %s",
+                    file.getAbsolutePath(), lineNumber, line));
+        }
+        droppedRecords.add(String.format("%s:%d: %s", file.getPath(), lineNumber, line));
+    }
+}
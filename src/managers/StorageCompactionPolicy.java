@@ -0,0 +1,42 @@
+package managers;
+
+import java.time.Duration;
+
+// Условия сжатия журнала файлового хранилища: по размеру журнала с последнего снимка и по времени с него.
+// Сжатие запускается, когда выполнено любое из заданных условий; нулевое значение отключает условие.
+// Условия проверяются только при сбросе изменений, своего таймера нет: на простаивающем или только читающем
+// сервере порог по времени сработает при следующем изменении. Журнал без изменений не растёт, так что ожидание
+// лишь откладывает укорачивание его воспроизведения при загрузке; сжать раньше можно FileBackedTaskManager.compact()
+public class StorageCompactionPolicy {
+    private final long maxJournalBytes;
+    private final Duration maxSnapshotAge;
+
+    public StorageCompactionPolicy(long maxJournalBytes, Duration maxSnapshotAge) {
+        if (maxJournalBytes < 0 || maxSnapshotAge == null || maxSnapshotAge.isNegative()) {
+            throw new IllegalArgumentException("Compaction thresholds must not be negative");
+        }
+        this.maxJournalBytes = maxJournalBytes;
+        this.maxSnapshotAge = maxSnapshotAge;
+    }
+
+    public static StorageCompactionPolicy byJournalSize(long maxJournalBytes) {
+        return new StorageCompactionPolicy(maxJournalBytes, Duration.ZERO);
+    }
+
+    public static StorageCompactionPolicy bySnapshotAge(Duration maxSnapshotAge) {
+        return new StorageCompactionPolicy(0, maxSnapshotAge);
+    }
+
+    public long getMaxJournalBytes() {
+        return maxJournalBytes;
+    }
+
+    public Duration getMaxSnapshotAge() {
+        return maxSnapshotAge;
+    }
+
+    public boolean shouldCompact(long journalBytes, Duration snapshotAge) {
+        return (maxJournalBytes > 0 && journalBytes >= maxJournalBytes)
+                || (!maxSnapshotAge.isZero() && snapshotAge.compareTo(maxSnapshotAge) >= 0);
+    }
+}
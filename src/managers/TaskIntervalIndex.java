@@ -0,0 +1,86 @@
+package managers;
+
+import entities.Task;
+import metrics.IntersectionCheckEvent;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+// Индекс интервалов выполнения задач и подзадач для проверки пересечений за O(log n).
+// Хранятся только интервалы ненулевой длины - остальные ни с чем не пересекаются. Менеджер не допускает пересечений,
+// поэтому интервалы в индексе не перекрываются, и новому интервалу достаточно сравниться с двумя соседями по началу.
+public class TaskIntervalIndex {
+    // id сущностей положительны, поэтому такой id не исключает ни одного интервала
+    private static final int NO_EXCLUDED_ID = -1;
+
+    private final NavigableMap<LocalDateTime, Task> startTimesToItems = new TreeMap<>();
+
+    public void add(Task task) {
+        if (task != null && task.getEndTime() != null) {
+            startTimesToItems.put(task.getStartTime(), task);
+        }
+    }
+
+    public void remove(Task task) {
+        if (task == null || task.getEndTime() == null) {
+            return;
+        }
+        Task indexedItem = startTimesToItems.get(task.getStartTime());
+        if (indexedItem != null && indexedItem.getId() == task.getId()) {
+            startTimesToItems.remove(task.getStartTime());
+        }
+    }
+
+    // Без исключений: новая сущность может нести чужой id (импорт, пакет) и всё равно не должна пересекаться ни с кем
+    public boolean hasIntersection(Task task) {
+        return hasIntersection(task, NO_EXCLUDED_ID);
+    }
+
+    // Ищет пересечение с интервалами других сущностей: при обновлении прежняя версия сущности excludedId не мешает
+    public boolean hasIntersection(Task task, int excludedId) {
+        if (task == null || task.getEndTime() == null) {
+            return false;
+        }
+        IntersectionCheckEvent event = new IntersectionCheckEvent();
+        event.begin();
+        int candidatesExamined = 0;
+        boolean intersects = false;
+
+        // Ближайший интервал, начавшийся не позже нового: пересекается, если заканчивается после его начала
+        Map.Entry<LocalDateTime, Task> previous = startTimesToItems.floorEntry(task.getStartTime());
+        if (previous != null && previous.getValue().getId() == excludedId) {
+            // Интервалы левее прежней версии заканчиваются до её начала, а значит, и до начала нового
+            previous = null;
+            candidatesExamined++;
+        }
+        if (previous != null) {
+            candidatesExamined++;
+            intersects = previous.getValue().intersectsByTimeIntervals(task);
+        }
+
+        if (!intersects) {
+            // Ближайший интервал, начавшийся позже нового: пересекается, если начинается до его окончания
+            Map.Entry<LocalDateTime, Task> next = startTimesToItems.higherEntry(task.getStartTime());
+            if (next != null && next.getValue().getId() == excludedId) {
+                next = startTimesToItems.higherEntry(next.getKey());
+                candidatesExamined++;
+            }
+            if (next != null) {
+                candidatesExamined++;
+                intersects = next.getValue().intersectsByTimeIntervals(task);
+            }
+        }
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.itemId = task.getId();
+            event.candidatesExamined = candidatesExamined;
+            event.scheduledItems = startTimesToItems.size();
+            event.intersects = intersects;
+            event.commit();
+        }
+        return intersects;
+    }
+}
@@ -0,0 +1,204 @@
+package managers;
+
+import entities.Task;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+// Инвертированный индекс по словам заголовков и описаний сущностей.
+// Слова приводятся к нижнему регистру, «ё» приравнивается к «е», поэтому поиск одинаково работает для латиницы и кириллицы.
+public class TaskSearchIndex {
+    // Слово -> список вхождений слова в сущности
+    private final Map<String, Posting> termsToPostings = new HashMap<>();
+    // id сущности -> частоты проиндексированных слов, нужны для удаления без повторной токенизации
+    private final Map<Integer, Map<String, Integer>> idsToTermsFrequencies = new HashMap<>();
+
+    public void add(Task task) {
+        if (task == null) {
+            return;
+        }
+        int id = task.getId();
+        Map<String, Integer> termsToFrequencies = new HashMap<>();
+        tokenize(task.getTitle(), term -> termsToFrequencies.merge(term, 1, Integer::sum));
+        tokenize(task.getDescription(), term -> termsToFrequencies.merge(term, 1, Integer::sum));
+        if (termsToFrequencies.isEmpty()) {
+            return;
+        }
+
+        termsToFrequencies.forEach((term, frequency) -> termsToPostings
+                .computeIfAbsent(term, key -> new Posting())
+                .add(id, frequency));
+        idsToTermsFrequencies.put(id, termsToFrequencies);
+    }
+
+    public void remove(Task task) {
+        if (task == null) {
+            return;
+        }
+        int id = task.getId();
+        Map<String, Integer> termsToFrequencies = idsToTermsFrequencies.remove(id);
+        if (termsToFrequencies == null) {
+            return;
+        }
+        termsToFrequencies.forEach((term, frequency) -> {
+            Posting posting = termsToPostings.get(term);
+            posting.remove(id, frequency);
+            if (posting.isEmpty()) {
+                termsToPostings.remove(term);
+            }
+        });
+    }
+
+    // Ищет сущности, содержащие все слова запроса, и возвращает до limit id по убыванию суммарной частоты слов.
+    // Списки вхождений обходятся поочерёдно от больших частот к меньшим, частоты остальных слов добираются
+    // поиском по хеш-таблице. Обход прекращается, как только ни одна непросмотренная сущность не может
+    // набрать больше, чем худший из уже найденных результатов, либо как только исчерпан любой из списков.
+    public List<Integer> search(String query, int limit) {
+        if (limit <= 0) {
+            return new ArrayList<>();
+        }
+        Set<String> queryTerms = new LinkedHashSet<>();
+        tokenize(query, queryTerms::add);
+        if (queryTerms.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Posting> postings = new ArrayList<>(queryTerms.size());
+        for (String term : queryTerms) {
+            Posting posting = termsToPostings.get(term);
+            if (posting == null) {
+                return new ArrayList<>();
+            }
+            postings.add(posting);
+        }
+
+        // Куча размера limit: в вершине худший из лучших результатов
+        Comparator<long[]> byScoreThenId = Comparator.<long[]>comparingLong(scoreAndId -> scoreAndId[0])
+                .thenComparing(scoreAndId -> -scoreAndId[1]);
+        PriorityQueue<long[]> topResults = new PriorityQueue<>(limit + 1, byScoreThenId);
+        // Совпадение может встретиться в нескольких списках - запоминаем только найденные, чтобы не учесть дважды
+        Set<Integer> matchedIds = new HashSet<>();
+
+        List<Posting.Cursor> cursors = postings.stream().map(Posting::cursor).toList();
+        while (true) {
+            long threshold = 0;
+            for (Posting.Cursor cursor : cursors) {
+                // Сущность обязана содержать все слова: если один список исчерпан, новых совпадений быть не может
+                if (!cursor.hasNext()) {
+                    return collectIds(topResults);
+                }
+                threshold += cursor.frequency();
+                int id = cursor.next();
+
+                long score = score(postings, id);
+                if (score > 0 && matchedIds.add(id)) {
+                    topResults.offer(new long[]{score, id});
+                    if (topResults.size() > limit) {
+                        topResults.poll();
+                    }
+                }
+            }
+            if (topResults.size() == limit && topResults.peek()[0] >= threshold) {
+                return collectIds(topResults);
+            }
+        }
+    }
+
+    // Суммарная частота слов запроса в сущности или 0, если какого-то слова в ней нет
+    private static long score(List<Posting> postings, int id) {
+        long score = 0;
+        for (Posting posting : postings) {
+            Integer frequency = posting.idsToFrequencies.get(id);
+            if (frequency == null) {
+                return 0;
+            }
+            score += frequency;
+        }
+        return score;
+    }
+
+    private static List<Integer> collectIds(PriorityQueue<long[]> topResults) {
+        List<Integer> ids = new ArrayList<>(topResults.size());
+        while (!topResults.isEmpty()) {
+            ids.add((int) topResults.poll()[1]);
+        }
+        Collections.reverse(ids);
+        return ids;
+    }
+
+    // Разбивает текст на слова из букв и цифр любого алфавита, приводя их к нижнему регистру
+    private static void tokenize(String text, Consumer<String> termConsumer) {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        StringBuilder term = new StringBuilder();
+        int length = text.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                codePoint = Character.toLowerCase(codePoint);
+                term.appendCodePoint(codePoint == 'ё' ? 'е' : codePoint);
+            } else if (!term.isEmpty()) {
+                termConsumer.accept(term.toString());
+                term.setLength(0);
+            }
+        }
+        if (!term.isEmpty()) {
+            termConsumer.accept(term.toString());
+        }
+    }
+
+    // Вхождения одного слова: частота по id для точечных проверок и группы id по убыванию частоты для обхода
+    private static class Posting {
+        private final Map<Integer, Integer> idsToFrequencies = new HashMap<>();
+        private final NavigableMap<Integer, Set<Integer>> frequenciesToIds = new TreeMap<>(Comparator.reverseOrder());
+
+        void add(int id, int frequency) {
+            idsToFrequencies.put(id, frequency);
+            frequenciesToIds.computeIfAbsent(frequency, key -> new HashSet<>()).add(id);
+        }
+
+        void remove(int id, int frequency) {
+            idsToFrequencies.remove(id);
+            Set<Integer> ids = frequenciesToIds.get(frequency);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                frequenciesToIds.remove(frequency);
+            }
+        }
+
+        boolean isEmpty() {
+            return idsToFrequencies.isEmpty();
+        }
+
+        Cursor cursor() {
+            return new Cursor();
+        }
+
+        // Последовательный обход id от самой большой частоты к самой маленькой
+        class Cursor {
+            private final Iterator<Map.Entry<Integer, Set<Integer>>> groups = frequenciesToIds.entrySet().iterator();
+            private Iterator<Integer> groupIds = Collections.emptyIterator();
+            private int frequency;
+
+            boolean hasNext() {
+                while (!groupIds.hasNext() && groups.hasNext()) {
+                    Map.Entry<Integer, Set<Integer>> group = groups.next();
+                    frequency = group.getKey();
+                    groupIds = group.getValue().iterator();
+                }
+                return groupIds.hasNext();
+            }
+
+            // Частота группы, из которой будет выдан следующий id; вызывается после hasNext()
+            int frequency() {
+                return frequency;
+            }
+
+            int next() {
+                return groupIds.next();
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package managers;
+
+import exceptions.ManagerLoadException;
+import exceptions.ManagerSaveException;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+// Журнал истории просмотров файлового хранилища: просмотр дописывает строку с id, удаление сущности -
+// строку с минусом. Когда устаревших строк становится больше живых, журнал переписывается.
+// Строки копятся в буфере журнала и пишутся в файл при сбросе хранилища, а не системным вызовом на каждый просмотр
+final class ViewHistoryLog implements AutoCloseable {
+    private static final int MIN_LOG_LINES = 1024;
+
+    private final File file;
+    // История просмотров в порядке от старых к новым - по ней переписывается разросшийся журнал
+    private final Set<Integer> ids = new LinkedHashSet<>();
+    // Удаления из истории дописываются в журнал при сбросе, просмотры - сразу
+    private final StringBuilder pendingRecords = new StringBuilder();
+    private OutputStream log;
+    private int logLines = 0;
+
+    ViewHistoryLog(File file) {
+        this.file = file;
+    }
+
+    // Некорректные строки передаются в dropper: оборванную последнюю строку он отбрасывает,
+    // а на повреждение в середине журнала может ответить ошибкой загрузки
+    List<Integer> load(RecordDropper dropper) {
+        if (!file.exists()) {
+            return List.of();
+        }
+        try {
+            String[] lines = Files.readString(file.toPath(), StandardCharsets.UTF_8).split("\n", -1);
+            for (int i = 0; i < lines.length; i++) {
+                if (lines[i].isBlank()) {
+                    continue;
+                }
+                int id;
+                try {
+                    id = Integer.parseInt(lines[i].trim());
+                } catch (NumberFormatException e) {
+                    dropper.drop(file, i + 1, lines[i], i == lines.length - 1);
+                    continue;
+                }
+                ids.remove(Math.abs(id));
+                if (id > 0) {
+                    ids.add(id);
+                }
+                logLines++;
+            }
+            // Новые просмотры не должны дописываться к оборванной строке
+            if (lines.length > 0 && !lines[lines.length - 1].isEmpty()) {
+                rewrite();
+            }
+        } catch (IOException e) {
+            throw new ManagerLoadException(String.format("Ошибка при загрузке истории просмотров из файла '%s': %s",
+                    file.getAbsolutePath(), e.getMessage()));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    void recordView(int id) {
+        ids.remove(id);
+        ids.add(id);
+        append(id + "\n");
+    }
+
+    void recordDelete(int id) {
+        if (ids.remove(id)) {
+            pendingRecords.append('-').append(id).append('\n');
+        }
+    }
+
+    void flush() {
+        if (!pendingRecords.isEmpty()) {
+            append(pendingRecords.toString());
+            pendingRecords.setLength(0);
+        }
+        if (log != null) {
+            try {
+                log.flush();
+            } catch (IOException e) {
+                throw new ManagerSaveException(String.format(
+                        "Ошибка при сохранении истории просмотров в файл '%s': %s",
+                        file.getAbsolutePath(), e.getMessage()));
+            }
+        }
+    }
+
+    // Дописывает накопленное и освобождает файл журнала; следующая запись откроет его заново
+    @Override
+    public void close() {
+        flush();
+        try {
+            closeLog();
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при закрытии журнала истории просмотров '%s': %s",
+                    file.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    // Одна строка на просмотр - запись не зависит от длины истории. Журнал не сбрасывается на диск
+    // принудительно: при сбое потеря последних просмотров, не дошедших до сброса, допустима
+    private void append(String records) {
+        try {
+            if (logLines > Math.max(MIN_LOG_LINES, 2 * ids.size())) {
+                rewrite();
+            }
+            if (log == null) {
+                log = new BufferedOutputStream(new FileOutputStream(file, true));
+            }
+            log.write(records.getBytes(StandardCharsets.UTF_8));
+            logLines += (int) records.chars().filter(symbol -> symbol == '\n').count();
+        } catch (IOException e) {
+            throw new ManagerSaveException(String.format("Ошибка при сохранении истории просмотров в файл '%s': %s",
+                    file.getAbsolutePath(), e.getMessage()));
+        }
+    }
+
+    // Заменяет журнал текущей историей без устаревших строк
+    private void rewrite() throws IOException {
+        closeLog();
+        Path logPath = file.toPath().toAbsolutePath();
+        Path tempPath = logPath.resolveSibling(logPath.getFileName() + ".tmp");
+        StringBuilder content = new StringBuilder();
+        ids.forEach(id -> content.append(id).append('\n'));
+        Files.writeString(tempPath, content, StandardCharsets.UTF_8);
+        Files.move(tempPath, logPath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        logLines = ids.size();
+    }
+
+    private void closeLog() throws IOException {
+        if (log != null) {
+            log.close();
+            log = null;
+        }
+    }
+
+    interface RecordDropper {
+        void drop(File file, int lineNumber, String line, boolean isTail);
+    }
+}
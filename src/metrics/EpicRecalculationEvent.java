@@ -0,0 +1,22 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR о пересчёте статуса и интервала выполнения эпика по его подзадачам
+@Name("kanban.EpicRecalculation")
+@Label("Epic Recalculation")
+@Category({"Kanban", "Scheduling"})
+@Description("Recalculation of epic status and time interval from its subtasks")
+@StackTrace(false)
+public class EpicRecalculationEvent extends Event {
+    @Label("Epic Id")
+    public int epicId;
+
+    @Label("Subtasks")
+    public int subtasks;
+}
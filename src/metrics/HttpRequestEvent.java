@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR об обработке HTTP-запроса; вложенные события менеджера попадают в тот же поток записи
+@Name("kanban.HttpRequest")
+@Label("HTTP Request")
+@Category({"Kanban", "HTTP"})
+@Description("Handling of an HTTP request by the task server")
+@StackTrace(false)
+public class HttpRequestEvent extends Event {
+    @Label("Method")
+    public String method;
+
+    @Label("Route")
+    public String route;
+
+    @Label("Path")
+    public String path;
+
+    @Label("Status")
+    public int status;
+}
@@ -0,0 +1,28 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR о проверке пересечения интервала выполнения с уже запланированными
+@Name("kanban.IntersectionCheck")
+@Label("Intersection Check")
+@Category({"Kanban", "Scheduling"})
+@Description("Check of a task time interval against already scheduled intervals")
+@StackTrace(false)
+public class IntersectionCheckEvent extends Event {
+    @Label("Item Id")
+    public int itemId;
+
+    @Label("Candidates Examined")
+    public int candidatesExamined;
+
+    @Label("Scheduled Items")
+    public int scheduledItems;
+
+    @Label("Intersects")
+    public boolean intersects;
+}
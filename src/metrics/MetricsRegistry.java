@@ -0,0 +1,108 @@
+package metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// Реестр метрик с выводом в текстовом формате Prometheus.
+// Серии создаются при первом обращении и дальше только читаются из ConcurrentHashMap без блокировок;
+// вызывающему коду стоит один раз получить счётчик или гистограмму и переиспользовать их.
+public class MetricsRegistry {
+    private static final double[] QUANTILES = {0.5, 0.99, 0.999};
+    private static final double NANOS_IN_SECOND = 1e9;
+
+    // Имя метрики -> метки серии -> значение
+    private final Map<String, Map<String, LongAdder>> counters = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LatencyHistogram>> histograms = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, LongSupplier>> gauges = new ConcurrentHashMap<>();
+
+    public LongAdder counter(String name, String... labelPairs) {
+        return counters.computeIfAbsent(name, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(formatLabels(labelPairs), key -> new LongAdder());
+    }
+
+    public LatencyHistogram histogram(String name, String... labelPairs) {
+        return histograms.computeIfAbsent(name, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(formatLabels(labelPairs), key -> new LatencyHistogram());
+    }
+
+    // Регистрирует гистограмму, которую ведёт другой компонент
+    public void register(String name, LatencyHistogram histogram, String... labelPairs) {
+        histograms.computeIfAbsent(name, key -> new ConcurrentHashMap<>()).put(formatLabels(labelPairs), histogram);
+    }
+
+    // Значение датчика вычисляется при каждом снятии метрик
+    public void gauge(String name, LongSupplier supplier, String... labelPairs) {
+        gauges.computeIfAbsent(name, key -> new ConcurrentHashMap<>()).put(formatLabels(labelPairs), supplier);
+    }
+
+    public void writeTo(Writer writer) throws IOException {
+        for (Map.Entry<String, Map<String, LongAdder>> metric : new TreeMap<>(counters).entrySet()) {
+            writer.write("# TYPE " + metric.getKey() + " counter\n");
+            for (Map.Entry<String, LongAdder> series : new TreeMap<>(metric.getValue()).entrySet()) {
+                writeSample(writer, metric.getKey(), series.getKey(), String.valueOf(series.getValue().sum()));
+            }
+        }
+        for (Map.Entry<String, Map<String, LongSupplier>> metric : new TreeMap<>(gauges).entrySet()) {
+            writer.write("# TYPE " + metric.getKey() + " gauge\n");
+            for (Map.Entry<String, LongSupplier> series : new TreeMap<>(metric.getValue()).entrySet()) {
+                writeSample(writer, metric.getKey(), series.getKey(), String.valueOf(series.getValue().getAsLong()));
+            }
+        }
+        // Гистограммы выводятся как summary: процентили в секундах, сумма и количество
+        for (Map.Entry<String, Map<String, LatencyHistogram>> metric : new TreeMap<>(histograms).entrySet()) {
+            String name = metric.getKey();
+            writer.write("# TYPE " + name + " summary\n");
+            for (Map.Entry<String, LatencyHistogram> series : new TreeMap<>(metric.getValue()).entrySet()) {
+                String labels = series.getKey();
+                LatencyHistogram histogram = series.getValue();
+                for (double quantile : QUANTILES) {
+                    String quantileLabel = "quantile=\"" + quantile + "\"";
+                    writeSample(writer, name, labels.isEmpty() ? quantileLabel : labels + "," + quantileLabel,
+                            toSeconds(histogram.getPercentile(quantile)));
+                }
+                writeSample(writer, name + "_sum", labels, toSeconds(histogram.getSum()));
+                writeSample(writer, name + "_count", labels, String.valueOf(histogram.getCount()));
+            }
+        }
+    }
+
+    private static void writeSample(Writer writer, String name, String labels, String value) throws IOException {
+        writer.write(name);
+        if (!labels.isEmpty()) {
+            writer.write('{');
+            writer.write(labels);
+            writer.write('}');
+        }
+        writer.write(' ');
+        writer.write(value);
+        writer.write('\n');
+    }
+
+    private static String toSeconds(long nanos) {
+        return String.valueOf(nanos / NANOS_IN_SECOND);
+    }
+
+    // Пары имя-значение в виде name1="value1",name2="value2" с экранированием по правилам Prometheus
+    private static String formatLabels(String... labelPairs) {
+        if (labelPairs.length % 2 != 0) {
+            throw new IllegalArgumentException("Метки задаются парами имя-значение");
+        }
+        StringBuilder labels = new StringBuilder();
+        for (int i = 0; i < labelPairs.length; i += 2) {
+            if (!labels.isEmpty()) {
+                labels.append(',');
+            }
+            String value = labelPairs[i + 1]
+                    .replace("\\", "\\\\")
+                    .replace("\"", "\\\"")
+                    .replace("\n", "\\n");
+            labels.append(labelPairs[i]).append("=\"").append(value).append('"');
+        }
+        return labels.toString();
+    }
+}
@@ -0,0 +1,37 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// Статистика одной операции: вызовы, ошибки, распределение длительности и выделенная память.
+// Счётчики - LongAdder с разнесёнными по потокам ячейками, поэтому одновременные вызовы не спорят за одну переменную.
+public class OperationStats {
+    private final LongAdder calls;
+    private final LongAdder errors;
+    private final LongAdder allocatedBytes;
+    private final LatencyHistogram latency;
+
+    public OperationStats(LongAdder calls, LongAdder errors, LongAdder allocatedBytes, LatencyHistogram latency) {
+        this.calls = calls;
+        this.errors = errors;
+        this.allocatedBytes = allocatedBytes;
+        this.latency = latency;
+    }
+
+    // allocated < 0 означает, что выделенную потоком память измерить нельзя
+    public void record(long nanos, long allocated, boolean failed) {
+        calls.increment();
+        if (failed) {
+            errors.increment();
+        }
+        if (allocated > 0) {
+            allocatedBytes.add(allocated);
+        }
+        latency.record(nanos);
+    }
+
+    public OperationStatsSnapshot snapshot(String operation) {
+        return new OperationStatsSnapshot(operation, calls.sum(), errors.sum(), allocatedBytes.sum(),
+                latency.getSum(), latency.getPercentile(0.5), latency.getPercentile(0.99),
+                latency.getPercentile(0.999), latency.getMax());
+    }
+}
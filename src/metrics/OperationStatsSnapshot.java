@@ -0,0 +1,78 @@
+package metrics;
+
+// Неизменяемый срез статистики операции; длительности в наносекундах
+public class OperationStatsSnapshot {
+    private final String operation;
+    private final long calls;
+    private final long errors;
+    private final long allocatedBytes;
+    private final long totalNanos;
+    private final long p50Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+
+    public OperationStatsSnapshot(String operation, long calls, long errors, long allocatedBytes, long totalNanos,
+                                  long p50Nanos, long p99Nanos, long p999Nanos, long maxNanos) {
+        this.operation = operation;
+        this.calls = calls;
+        this.errors = errors;
+        this.allocatedBytes = allocatedBytes;
+        this.totalNanos = totalNanos;
+        this.p50Nanos = p50Nanos;
+        this.p99Nanos = p99Nanos;
+        this.p999Nanos = p999Nanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public long getAllocatedBytesPerCall() {
+        return calls == 0 ? 0 : allocatedBytes / calls;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMeanNanos() {
+        return calls == 0 ? 0 : totalNanos / calls;
+    }
+
+    public long getP50Nanos() {
+        return p50Nanos;
+    }
+
+    public long getP99Nanos() {
+        return p99Nanos;
+    }
+
+    public long getP999Nanos() {
+        return p999Nanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: calls=%d, errors=%d, mean=%dns, p50=%dns, p99=%dns, p999=%dns, max=%dns, alloc=%dB/call",
+                operation, calls, errors, getMeanNanos(), p50Nanos, p99Nanos, p999Nanos, maxNanos,
+                getAllocatedBytesPerCall());
+    }
+}
@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR о загрузке менеджера из файлового хранилища
+@Name("kanban.StorageLoad")
+@Label("Storage Load")
+@Category({"Kanban", "Storage"})
+@Description("Load of the task manager state from the storage file")
+@StackTrace(false)
+public class StorageLoadEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
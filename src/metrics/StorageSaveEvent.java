@@ -0,0 +1,27 @@
+package metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Событие JFR о записи файлового хранилища; длительность записи - длительность события
+@Name("kanban.StorageSave")
+@Label("Storage Save")
+@Category({"Kanban", "Storage"})
+@Description("Rewrite of the task manager storage file")
+@StackTrace(false)
+public class StorageSaveEvent extends Event {
+    @Label("File")
+    public String file;
+
+    @Label("Records")
+    public int records;
+
+    @Label("Bytes")
+    @DataAmount
+    public long bytes;
+}
@@ -1,17 +1,54 @@
 package utilities;
 
+import enums.StorageType;
 import interfaces.*;
 import managers.*;
+import metrics.MetricsRegistry;
 
 import java.io.File;
 
 public class Managers {
+    // Хранилище менеджера по умолчанию выбирается при запуске: -Dtaskmanager.storage=CSV|CSV_SHARDED|MAPPED|JDBC,
+    // -Dtaskmanager.storage.location=<файл или JDBC URL>
+    public static final String STORAGE_PROPERTY = "taskmanager.storage";
+    public static final String STORAGE_LOCATION_PROPERTY = "taskmanager.storage.location";
+
     public static TaskManager getDefault() {
-        return FileBackedTaskManager.loadFromFile(new File("task_manager_data.csv"));
+        StorageType storageType = StorageType.valueOf(System.getProperty(STORAGE_PROPERTY, StorageType.CSV.name()));
+        return getPersistent(storageType, System.getProperty(STORAGE_LOCATION_PROPERTY,
+                getDefaultLocation(storageType)));
+    }
+
+    public static TaskManager getPersistent(StorageType storageType, String location) {
+        return switch (storageType) {
+            case CSV -> FileBackedTaskManager.loadFromFile(new File(location));
+            case CSV_SHARDED -> FileBackedTaskManager.loadSharded(new File(location), 0);
+            case MAPPED -> MappedFileTaskManager.loadFromFile(new File(location));
+            case JDBC -> JdbcTaskManager.loadFromDatabase(location);
+        };
     }
 
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
 
+    public static InstrumentedTaskManager getInstrumented(TaskManager taskManager) {
+        return getInstrumented(taskManager, new MetricsRegistry());
+    }
+
+    // Оборачивает менеджер замером операций; для файлового менеджера в реестр попадают и длительности записи файла
+    public static InstrumentedTaskManager getInstrumented(TaskManager taskManager, MetricsRegistry metrics) {
+        if (taskManager instanceof FileBackedTaskManager fileBackedTaskManager) {
+            metrics.register("task_manager_flush_seconds", fileBackedTaskManager.getSaveDurations());
+        }
+        return new InstrumentedTaskManager(taskManager, metrics);
+    }
+
+    private static String getDefaultLocation(StorageType storageType) {
+        return switch (storageType) {
+            case CSV, CSV_SHARDED -> "task_manager_data.csv";
+            case MAPPED -> "task_manager_data.slots";
+            case JDBC -> "jdbc:h2:./task_manager_data";
+        };
+    }
 }
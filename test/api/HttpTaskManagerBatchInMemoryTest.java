@@ -0,0 +1,10 @@
+package api;
+
+import managers.InMemoryTaskManager;
+
+class HttpTaskManagerBatchInMemoryTest extends HttpTaskManagerBatchTest<InMemoryTaskManager> {
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager();
+    }
+}
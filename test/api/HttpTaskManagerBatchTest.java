@@ -0,0 +1,101 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static enums.HttpStatusCode.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+abstract class HttpTaskManagerBatchTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerBatchTest() {
+        super();
+        baseUrl = baseUrl + "/batch";
+    }
+
+    @Test
+    public void shouldApplyBatchOperations() throws IOException, InterruptedException {
+        int taskToDeleteId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        Task taskToUpdate = new Task("Task 2", "Task 2 Description", TaskStatus.NEW);
+        int taskToUpdateId = manager.createTask(taskToUpdate);
+        taskToUpdate.setStatus(TaskStatus.DONE);
+
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        JsonArray operations = new JsonArray();
+        JsonObject createEpic = operation("create", "epic", new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+        createEpic.addProperty("ref", "epic");
+        operations.add(createEpic);
+        JsonObject createSubtask = operation("create", "subtask", new Subtask("Subtask 1", "Subtask 1 Description",
+                TaskStatus.IN_PROGRESS, startTime, Duration.ofMinutes(30)));
+        createSubtask.addProperty("epicRef", "epic");
+        operations.add(createSubtask);
+        operations.add(operation("update", "task", taskToUpdate));
+        JsonObject deleteTask = operation("delete", "task", null);
+        deleteTask.addProperty("id", taskToDeleteId);
+        operations.add(deleteTask);
+        // Пересекается с подзадачей из того же пакета
+        operations.add(operation("create", "task", new Task("Task 3", "Task 3 Description", TaskStatus.NEW,
+                startTime.plusMinutes(10), Duration.ofMinutes(30))));
+        JsonObject deleteMissing = operation("delete", "subtask", null);
+        deleteMissing.addProperty("id", 1000);
+        operations.add(deleteMissing);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(operations)))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа на пакет операций");
+
+        BatchOperationResult[] results = gson.fromJson(response.body(), BatchOperationResult[].class);
+        assertEquals(6, results.length, "Результат должен быть по каждой операции");
+        assertEquals(CREATED.code(), results[0].getStatus(), "Эпик должен быть создан");
+        assertEquals(CREATED.code(), results[1].getStatus(), "Подзадача должна быть создана");
+        assertEquals(OK.code(), results[2].getStatus(), "Задача должна быть обновлена");
+        assertEquals(OK.code(), results[3].getStatus(), "Задача должна быть удалена");
+        assertEquals(NOT_ACCEPTABLE.code(), results[4].getStatus(), "Пересечение по времени должно отклоняться");
+        assertEquals(NOT_FOUND.code(), results[5].getStatus(), "Удаление отсутствующей подзадачи должно отклоняться");
+
+        int epicId = results[0].getId();
+        Subtask subtask = manager.getSubtaskById(results[1].getId());
+        assertEquals(epicId, subtask.getEpicId(), "Подзадача должна ссылаться на эпик из того же пакета");
+        assertEquals(TaskStatus.IN_PROGRESS, manager.getEpicById(epicId).getStatus(), "Статус эпика не пересчитан");
+        assertEquals(TaskStatus.DONE, manager.getTaskById(taskToUpdateId).getStatus(), "Задача не обновлена");
+        assertEquals(1, manager.getTasks().size(), "Некорректное количество задач после пакета");
+    }
+
+    @Test
+    public void shouldReturn400IfBatchIsNotArray() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"op\":\"create\"}"))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST.code(), response.statusCode(), "Тело пакета должно быть массивом операций");
+    }
+
+    private static JsonObject operation(String op, String type, Task item) {
+        JsonObject operation = new JsonObject();
+        operation.addProperty("op", op);
+        operation.addProperty("type", type);
+        if (item != null) {
+            operation.add("item", gson.toJsonTree(item));
+        }
+        return operation;
+    }
+}
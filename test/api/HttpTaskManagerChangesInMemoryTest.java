@@ -0,0 +1,10 @@
+package api;
+
+import managers.InMemoryTaskManager;
+
+class HttpTaskManagerChangesInMemoryTest extends HttpTaskManagerChangesTest<InMemoryTaskManager> {
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager();
+    }
+}
@@ -0,0 +1,122 @@
+package api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static enums.HttpStatusCode.BAD_REQUEST;
+import static enums.HttpStatusCode.GONE;
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+abstract class HttpTaskManagerChangesTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerChangesTest() {
+        super();
+        baseUrl = baseUrl + "/changes";
+    }
+
+    @Test
+    public void shouldGetChangesSinceVersion() throws IOException, InterruptedException {
+        int task1Id = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        long version = manager.getVersion();
+        int task2Id = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        manager.deleteTask(task1Id);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=" + version + "&epoch=" + taskServer.getInstanceTag()))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при получении изменений");
+
+        JsonObject body = JsonParser.parseString(response.body()).getAsJsonObject();
+        assertEquals(manager.getVersion(), body.get("version").getAsLong(), "Некорректная текущая версия");
+        JsonArray changes = body.getAsJsonArray("changes");
+        assertEquals(2, changes.size(), "Должны вернуться только изменения после версии клиента");
+        assertEquals("CREATE", changes.get(0).getAsJsonObject().get("changeType").getAsString(),
+                "Первым изменением должно быть создание задачи");
+        assertEquals(task2Id, changes.get(0).getAsJsonObject().get("id").getAsInt(), "Некорректный id изменения");
+        assertEquals("DELETE", changes.get(1).getAsJsonObject().get("changeType").getAsString(),
+                "Вторым изменением должно быть удаление задачи");
+        assertEquals(task1Id, changes.get(1).getAsJsonObject().get("id").getAsInt(), "Некорректный id изменения");
+    }
+
+    @Test
+    public void shouldReturn410IfVersionUnknown() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=100&epoch=" + taskServer.getInstanceTag()))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(GONE.code(), response.statusCode(), "Некорректный статус ответа для неизвестной версии");
+    }
+
+    // Без эпохи версию нельзя отличить от версии прошлого экземпляра сервера - такой запрос отклоняется
+    @Test
+    public void shouldReturn400IfVersionWithoutEpoch() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=" + manager.getVersion()))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST.code(), response.statusCode(), "Версия без эпохи должна отклоняться");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=0"))
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Полный список изменений запрашивается без эпохи");
+    }
+
+    // После перезапуска версии начинаются заново: версия клиента из прошлой эпохи попадает в доступный диапазон,
+    // но должна требовать полной синхронизации
+    @Test
+    public void shouldReturn410IfEpochChangedAfterRestart() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        JsonObject body = JsonParser.parseString(client.send(HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=0"))
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString()).body()).getAsJsonObject();
+        String staleEpoch = body.get("epoch").getAsString();
+        long staleVersion = body.get("version").getAsLong();
+
+        taskServer.stop();
+        manager = createTaskManager();
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+        manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        manager.createTask(new Task("Task 3", "Task 3 Description", TaskStatus.NEW));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=" + staleVersion + "&epoch=" + staleEpoch))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(GONE.code(), response.statusCode(), "Версия из прошлой эпохи должна требовать синхронизации");
+        String epoch = JsonParser.parseString(response.body()).getAsJsonObject().get("epoch").getAsString();
+        assertNotEquals(staleEpoch, epoch, "Эпоха должна меняться после перезапуска");
+
+        request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?since=" + staleVersion + "&epoch=" + epoch))
+                .GET()
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Версия текущей эпохи должна приниматься");
+    }
+}
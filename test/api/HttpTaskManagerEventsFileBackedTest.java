@@ -0,0 +1,20 @@
+package api;
+
+import managers.FileBackedTaskManager;
+
+import java.io.File;
+import java.io.IOException;
+
+class HttpTaskManagerEventsFileBackedTest extends HttpTaskManagerEventsTest<FileBackedTaskManager> {
+    @Override
+    protected FileBackedTaskManager createTaskManager() {
+        File tempFile;
+        try {
+            tempFile = File.createTempFile("test_task_manager_data", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        tempFile.deleteOnExit();
+        return FileBackedTaskManager.loadFromFile(tempFile);
+    }
+}
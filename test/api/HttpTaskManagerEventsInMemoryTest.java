@@ -0,0 +1,10 @@
+package api;
+
+import managers.InMemoryTaskManager;
+
+class HttpTaskManagerEventsInMemoryTest extends HttpTaskManagerEventsTest<InMemoryTaskManager> {
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager();
+    }
+}
@@ -0,0 +1,122 @@
+package api;
+
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+abstract class HttpTaskManagerEventsTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerEventsTest() {
+        super();
+        baseUrl = baseUrl + "/events";
+    }
+
+    @Test
+    public void shouldStreamChangeEvents() throws IOException, InterruptedException {
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        long versionAfterCreate = manager.getVersion();
+
+        // Переподключение с Last-Event-ID: создание задачи пропущено, удаление придёт уже по подписке
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Last-Event-ID", eventId(versionAfterCreate - 1))
+                .GET()
+                .build();
+
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при подписке на события");
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/event-stream"),
+                "Некорректный тип содержимого потока событий");
+
+        manager.deleteTask(taskId);
+
+        Iterator<String> lines = response.body().iterator();
+        assertEquals("id: " + eventId(versionAfterCreate), nextFrameLine(lines), "Первым должно прийти пропущенное событие");
+        assertEquals("event: create", lines.next(), "Некорректный тип пропущенного события");
+        assertTrue(lines.next().contains("\"id\":" + taskId), "Событие должно содержать изменённую сущность");
+        assertEquals("id: " + eventId(manager.getVersion()), nextFrameLine(lines), "Некорректная версия нового события");
+        assertEquals("event: delete", lines.next(), "Некорректный тип нового события");
+        response.body().close();
+    }
+
+    // Пропущенное по Last-Event-ID уже не восстановить: вместо молчаливого продолжения приходит событие reset
+    // с текущей версией, а за ним - новые события
+    @Test
+    public void shouldSendResetIfMissedChangesUnavailable() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        long version = manager.getVersion();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Last-Event-ID", eventId(version + 100))
+                .GET()
+                .build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при подписке на события");
+
+        Iterator<String> lines = response.body().iterator();
+        assertEquals("id: " + eventId(version), nextFrameLine(lines), "Событие reset должно нести текущую версию");
+        assertEquals("event: reset", lines.next(), "Клиент должен получить требование полной синхронизации");
+        assertEquals("data: {\"version\":" + version + "}", lines.next(), "Некорректные данные события reset");
+
+        int taskId = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        assertEquals("id: " + eventId(manager.getVersion()), nextFrameLine(lines), "После reset должны идти новые события");
+        assertEquals("event: create", lines.next(), "Некорректный тип нового события");
+        assertTrue(lines.next().contains("\"id\":" + taskId), "Событие должно содержать новую сущность");
+        response.body().close();
+    }
+
+    // После перезапуска версии начинаются заново: id события прошлой эпохи с версией, которая есть и у нового
+    // сервера, не должен молча продолжать поток - клиент получает reset
+    @Test
+    public void shouldSendResetAfterRestart() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        String staleEventId = eventId(manager.getVersion());
+
+        taskServer.stop();
+        manager = createTaskManager();
+        taskServer = new HttpTaskServer(manager);
+        taskServer.start();
+        manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        manager.createTask(new Task("Task 3", "Task 3 Description", TaskStatus.NEW));
+        long version = manager.getVersion();
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Last-Event-ID", staleEventId)
+                .GET()
+                .build();
+        HttpResponse<Stream<String>> response = client.send(request, HttpResponse.BodyHandlers.ofLines());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при подписке на события");
+
+        Iterator<String> lines = response.body().iterator();
+        assertEquals("id: " + eventId(version), nextFrameLine(lines), "Событие reset должно нести id новой эпохи");
+        assertEquals("event: reset", lines.next(), "id прошлой эпохи должен требовать полной синхронизации");
+        response.body().close();
+    }
+
+    private static String eventId(long version) {
+        return taskServer.getInstanceTag() + ":" + version;
+    }
+
+    // Пропускаем пустые строки-разделители и комментарии
+    private static String nextFrameLine(Iterator<String> lines) {
+        String line = lines.next();
+        while (line.isEmpty() || line.startsWith(":")) {
+            line = lines.next();
+        }
+        return line;
+    }
+}
@@ -0,0 +1,10 @@
+package api;
+
+import managers.InMemoryTaskManager;
+
+class HttpTaskManagerExportInMemoryTest extends HttpTaskManagerExportTest<InMemoryTaskManager> {
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager();
+    }
+}
@@ -0,0 +1,81 @@
+package api;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static enums.HttpStatusCode.BAD_REQUEST;
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+abstract class HttpTaskManagerExportTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerExportTest() {
+        super();
+        baseUrl = baseUrl + "/export";
+    }
+
+    @Test
+    public void shouldExportNdjson() throws IOException, InterruptedException {
+        int epicId = createItems();
+
+        HttpResponse<String> response = export("?format=ndjson");
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при выгрузке");
+        assertEquals(String.valueOf(manager.getVersion()), response.headers().firstValue("X-Snapshot-Version").orElse(null),
+                "Некорректная версия снимка");
+
+        List<String> lines = response.body().lines().toList();
+        assertEquals(3, lines.size(), "Некорректное количество выгруженных сущностей");
+        Epic epic = gson.fromJson(lines.getFirst(), Epic.class);
+        assertEquals(epicId, epic.getId(), "Эпики должны выгружаться первыми");
+        assertEquals("Task 1", gson.fromJson(lines.get(1), Task.class).getTitle(), "Некорректная выгрузка задачи");
+        assertEquals(epicId, gson.fromJson(lines.get(2), Subtask.class).getEpicId(), "Некорректная выгрузка подзадачи");
+    }
+
+    @Test
+    public void shouldExportCsv() throws IOException, InterruptedException {
+        createItems();
+
+        HttpResponse<String> response = export("?format=csv");
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при выгрузке");
+        assertTrue(response.headers().firstValue("Content-Type").orElse("").startsWith("text/csv"),
+                "Некорректный тип содержимого выгрузки");
+
+        List<String> lines = response.body().lines().toList();
+        assertEquals("id,type,name,status,description,epic,duration,startTime", lines.getFirst(),
+                "Выгрузка должна начинаться с заголовка");
+        assertEquals(4, lines.size(), "Некорректное количество строк выгрузки");
+        assertEquals(Task.fromString(lines.get(2)), manager.getTasks().getFirst(), "Строка задачи должна читаться обратно");
+    }
+
+    @Test
+    public void shouldReturn400IfFormatUnknown() throws IOException, InterruptedException {
+        HttpResponse<String> response = export("?format=xml");
+        assertEquals(BAD_REQUEST.code(), response.statusCode(), "Неизвестный формат выгрузки должен отклоняться");
+    }
+
+    private int createItems() {
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        manager.createSubtask(new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.NEW, epicId));
+        return epicId;
+    }
+
+    private HttpResponse<String> export(String query) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + query))
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,10 @@
+package api;
+
+import managers.InMemoryTaskManager;
+
+class HttpTaskManagerImportInMemoryTest extends HttpTaskManagerImportTest<InMemoryTaskManager> {
+    @Override
+    protected InMemoryTaskManager createTaskManager() {
+        return new InMemoryTaskManager();
+    }
+}
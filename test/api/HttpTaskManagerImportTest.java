@@ -0,0 +1,74 @@
+package api;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static enums.HttpStatusCode.BAD_REQUEST;
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+abstract class HttpTaskManagerImportTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerImportTest() {
+        super();
+        baseUrl = baseUrl + "/import";
+    }
+
+    @Test
+    public void shouldImportNdjson() throws IOException, InterruptedException {
+        String ndjson = String.join("\n",
+                "{\"type\":\"EPIC\",\"id\":100,\"title\":\"Epic 1\",\"description\":\"Epic 1 Description\",\"status\":\"NEW\"}",
+                "{\"type\":\"SUBTASK\",\"id\":101,\"epicId\":100,\"title\":\"Subtask 1\",\"description\":\"Subtask 1 Description\","
+                        + "\"status\":\"DONE\",\"startTime\":\"2025-03-01T10:00:00\",\"duration\":30}",
+                "{\"type\":\"task\",\"title\":\"Task 1\",\"description\":\"Task 1 Description\",\"status\":\"NEW\"}",
+                // Пересекается с подзадачей
+                "{\"type\":\"TASK\",\"title\":\"Task 2\",\"description\":\"Task 2 Description\",\"status\":\"NEW\","
+                        + "\"startTime\":\"2025-03-01T10:15:00\",\"duration\":30}",
+                "{\"type\":\"STORY\",\"title\":\"Story\",\"status\":\"NEW\"}",
+                "");
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа на импорт");
+
+        ImportReport report = gson.fromJson(response.body(), ImportReport.class);
+        assertEquals(5, report.getProcessed(), "Некорректное количество обработанных записей");
+        assertEquals(3, report.getImported(), "Некорректное количество импортированных записей");
+        assertEquals(1, report.getConflicts(), "Некорректное количество конфликтов по времени");
+        assertEquals(1, report.getFailed(), "Некорректное количество ошибочных записей");
+
+        Epic epic = manager.getEpics().getFirst();
+        Subtask subtask = manager.getSubtasks().getFirst();
+        assertEquals(epic.getId(), subtask.getEpicId(), "Подзадача должна быть привязана к новому id эпика");
+        assertEquals(subtask.getStatus(), manager.getEpicById(epic.getId()).getStatus(), "Статус эпика не пересчитан");
+        Task task = manager.getTasks().getFirst();
+        assertEquals("Task 1", task.getTitle(), "Некорректный заголовок импортированной задачи");
+    }
+
+    @Test
+    public void shouldKeepImportedRecordsBeforeMalformedLine() throws IOException, InterruptedException {
+        String ndjson = "{\"type\":\"TASK\",\"title\":\"Task 1\",\"description\":\"Description\",\"status\":\"NEW\"}\n"
+                + "{\"type\":\"TASK\",\"title\":";
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .POST(HttpRequest.BodyPublishers.ofString(ndjson))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST.code(), response.statusCode(), "Некорректный NDJSON должен отклоняться");
+        assertEquals(1, manager.getTasks().size(), "Записи до ошибки должны быть импортированы");
+    }
+}
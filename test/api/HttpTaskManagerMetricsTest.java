@@ -0,0 +1,71 @@
+package api;
+
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+abstract class HttpTaskManagerMetricsTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerMetricsTest() {
+        super();
+    }
+
+    @Test
+    public void shouldExposeRequestAndManagerMetrics() throws IOException, InterruptedException {
+        manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        HttpRequest tasksRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/tasks"))
+                .GET()
+                .build();
+        client.send(tasksRequest, HttpResponse.BodyHandlers.ofString());
+        client.send(tasksRequest, HttpResponse.BodyHandlers.ofString());
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/metrics"))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при получении метрик");
+
+        String metrics = response.body();
+        assertTrue(metrics.contains("http_requests_total{route=\"/tasks\",method=\"GET\",status=\"200\"} 2"),
+                "Запросы должны считаться по маршруту, методу и коду ответа");
+        assertTrue(metrics.contains("http_request_duration_seconds{route=\"/tasks\",method=\"GET\",quantile=\"0.999\"}"),
+                "Должны выводиться процентили задержки запросов");
+        assertTrue(metrics.contains("task_manager_operation_seconds_count{operation=\"getTasks\"} 2"),
+                "Должны замеряться операции менеджера");
+        assertTrue(metrics.contains("task_manager_items{type=\"task\"} 1"), "Должен выводиться размер хранилища");
+    }
+
+    // Произвольные методы запроса не порождают новые серии метрик - все они сводятся в метку OTHER
+    @Test
+    public void shouldLabelUnknownMethodsAsOther() throws IOException, InterruptedException {
+        for (String method : new String[]{"FOO", "BAR"}) {
+            HttpRequest unknownMethodRequest = HttpRequest.newBuilder()
+                    .uri(URI.create(baseUrl + "/tasks"))
+                    .method(method, HttpRequest.BodyPublishers.noBody())
+                    .build();
+            client.send(unknownMethodRequest, HttpResponse.BodyHandlers.ofString());
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "/metrics"))
+                .GET()
+                .build();
+        String metrics = client.send(request, HttpResponse.BodyHandlers.ofString()).body();
+        assertTrue(metrics.contains("http_request_duration_seconds_count{route=\"/tasks\",method=\"OTHER\"} 2"),
+                "Неизвестные методы должны учитываться под меткой OTHER");
+        assertFalse(metrics.contains("FOO") || metrics.contains("BAR"), "Метод запроса не должен попадать в метки как есть");
+    }
+}
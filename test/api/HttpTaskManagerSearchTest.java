@@ -0,0 +1,58 @@
+package api;
+
+import entities.Epic;
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static enums.HttpStatusCode.BAD_REQUEST;
+import static enums.HttpStatusCode.OK;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+abstract class HttpTaskManagerSearchTest<T extends TaskManager> extends HttpTaskServerTest<T> {
+
+    HttpTaskManagerSearchTest() {
+        super();
+        baseUrl = baseUrl + "/search";
+    }
+
+    @Test
+    public void shouldSearchByWords() throws IOException, InterruptedException {
+        manager.createTask(new Task("Купить молоко", "Зайти в магазин", TaskStatus.NEW));
+        int epicId = manager.createEpic(new Epic("Релиз", "Подготовить релиз и купить торт", TaskStatus.NEW));
+
+        String query = URLEncoder.encode("торт КУПИТЬ", StandardCharsets.UTF_8);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?q=" + query))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при поиске");
+
+        Task[] foundItems = gson.fromJson(response.body(), Task[].class);
+        assertNotNull(foundItems, "Результат поиска не должен быть null");
+        assertEquals(1, foundItems.length, "Некорректное количество найденных сущностей");
+        assertEquals(epicId, foundItems[0].getId(), "Найдена некорректная сущность");
+    }
+
+    @Test
+    public void shouldReturn400IfQueryMissing() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST.code(), response.statusCode(), "Некорректный статус ответа для поиска без запроса");
+    }
+}
@@ -6,13 +6,17 @@ import exceptions.NotFoundException;
 import interfaces.TaskManager;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static enums.HttpStatusCode.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -188,4 +192,131 @@ abstract class HttpTaskManagerTasksTest<T extends TaskManager> extends HttpTaskS
         assertEquals(NOT_ACCEPTABLE.code(), response.statusCode(),
                 "Некорректный статус ответа для пересечения обновлённой задачи");
     }
+
+    @Test
+    public void shouldGetTasksFilteredByStatus() throws IOException, InterruptedException {
+        Task task1 = new Task("Task 1", "Task 1 Description", TaskStatus.NEW);
+        Task task2 = new Task("Task 2", "Task 2 Description", TaskStatus.DONE);
+        manager.createTask(task1);
+        int task2Id = manager.createTask(task2);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?status=DONE"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при выборке задач по статусу");
+
+        Task[] tasks = gson.fromJson(response.body(), Task[].class);
+        assertEquals(1, tasks.length, "Некорректное количество задач в выборке по статусу");
+        assertEquals(task2Id, tasks[0].getId(), "В выборку попала некорректная задача");
+    }
+
+    @Test
+    public void shouldReturn400IfStatusUnknown() throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + "?status=UNKNOWN"))
+                .GET()
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(BAD_REQUEST.code(), response.statusCode(),
+                "Некорректный статус ответа для неизвестного статуса задачи");
+    }
+
+    @Test
+    public void shouldReturn304IfTasksNotModified() throws IOException, InterruptedException {
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElse(null);
+        assertNotNull(etag, "Ответ со списком задач должен содержать ETag");
+
+        HttpRequest conditionalRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(NOT_MODIFIED.code(), response.statusCode(), "Неизменённый список задач не должен отправляться повторно");
+
+        manager.deleteTask(taskId);
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Изменённый список задач должен отправляться заново");
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElse(null), "ETag должен измениться");
+    }
+
+    @Test
+    public void shouldReturn304IfTaskNotModified() throws IOException, InterruptedException {
+        Task task = new Task("Task 1", "Task 1 Description", TaskStatus.NEW);
+        int taskId = manager.createTask(task);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + taskId))
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+
+        HttpRequest conditionalRequest = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + taskId))
+                .header("If-None-Match", etag)
+                .GET()
+                .build();
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(NOT_MODIFIED.code(), response.statusCode(), "Неизменённая задача не должна отправляться повторно");
+
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        response = client.send(conditionalRequest, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Изменённая задача должна отправляться заново");
+    }
+
+    @Test
+    public void shouldCompressTasksIfClientAcceptsGzip() throws IOException, InterruptedException {
+        int tasksCount = 100;
+        for (int i = 1; i <= tasksCount; i++) {
+            manager.createTask(new Task("Task " + i, "Task " + i + " Description", TaskStatus.NEW));
+        }
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при получении задач");
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(null),
+                "Большой список задач должен сжиматься");
+        assertTrue(response.headers().firstValue("ETag").orElse("").startsWith("W/"),
+                "ETag, общий для сжатого и несжатого тела, должен быть слабым");
+        assertEquals("Accept-Encoding", response.headers().firstValue("Vary").orElse(null),
+                "Ответ должен зависеть от Accept-Encoding");
+
+        try (InputStream is = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            Task[] tasks = gson.fromJson(new String(is.readAllBytes(), StandardCharsets.UTF_8), Task[].class);
+            assertEquals(tasksCount, tasks.length, "Некорректное количество задач после распаковки");
+        }
+    }
+
+    @Test
+    public void shouldNotCompressSmallResponse() throws IOException, InterruptedException {
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(baseUrl + taskId))
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(OK.code(), response.statusCode(), "Некорректный статус ответа при получении задачи");
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty(),
+                "Ответ меньше порога не должен сжиматься");
+        assertEquals(taskId, gson.fromJson(response.body(), Task.class).getId(), "Некорректный id задачи");
+    }
 }
@@ -0,0 +1,176 @@
+package base;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskManagerSnapshot;
+import enums.TaskStatus;
+import exceptions.NotFoundException;
+import exceptions.TaskIntersectionException;
+import managers.CommandLoopTaskManager;
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Менеджер с одним потоком-писателем: результаты изменений через future и чтение из опубликованных снимков
+class CommandLoopTaskManagerTest {
+    private CommandLoopTaskManager manager;
+
+    @BeforeEach
+    void setUp() {
+        manager = CommandLoopTaskManager.start(new InMemoryTaskManager(), 16, 8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        manager.close();
+    }
+
+    // После завершения future изменение видно в чтении, а переданная сущность не меняется
+    @Test
+    void shouldReadOwnWritesAfterFutureCompletes() {
+        Task task = new Task("Task 1", "Task 1 Description", TaskStatus.NEW);
+        int taskId = manager.createTask(task).join();
+        assertEquals(0, task.getId(), "Переданная в команду сущность не должна меняться");
+        assertEquals("Task 1", manager.getTaskById(taskId).getTitle(), "Созданная задача должна читаться");
+
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW)).join();
+        int subtaskId = manager.createSubtask(new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.DONE,
+                epicId, LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(30))).join();
+        assertEquals(TaskStatus.DONE, manager.getEpicById(epicId).getStatus(), "Эпик должен пересчитываться");
+        assertEquals(List.of(subtaskId), manager.getEpicSubtasks(epicId).stream().map(Task::getId).toList());
+        assertEquals(List.of(subtaskId), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+
+        manager.deleteTask(taskId).join();
+        assertThrows(NotFoundException.class, () -> manager.getTaskById(taskId));
+        assertThrows(NotFoundException.class, () -> manager.getEpicSubtasks(taskId));
+    }
+
+    // Пересечение по времени завершает future только своей команды
+    @Test
+    void shouldCompleteIntersectingCommandExceptionally() {
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        CompletableFuture<Integer> first = manager.createTask(new Task("Task 1", "Task 1 Description",
+                TaskStatus.NEW, start, Duration.ofMinutes(30)));
+        CompletableFuture<Integer> intersecting = manager.createTask(new Task("Task 2", "Task 2 Description",
+                TaskStatus.NEW, start.plusMinutes(10), Duration.ofMinutes(30)));
+        CompletableFuture<Integer> third = manager.createTask(new Task("Task 3", "Task 3 Description",
+                TaskStatus.NEW, start.plusHours(1), Duration.ofMinutes(30)));
+
+        CompletionException exception = assertThrows(CompletionException.class, intersecting::join);
+        assertInstanceOf(TaskIntersectionException.class, exception.getCause(), "Ожидалось пересечение по времени");
+        assertEquals(List.of(first.join(), third.join()),
+                manager.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Остальные команды пачки должны примениться");
+    }
+
+    // Команды из многих потоков при маленьком буфере не теряются, а читатель всегда видит согласованный эпик
+    @Test
+    void shouldApplyConcurrentCommandsWithConsistentReads() throws InterruptedException {
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW)).join();
+        int threadsCount = 4;
+        int commandsPerThread = 500;
+        ConcurrentLinkedQueue<CompletableFuture<Integer>> results = new ConcurrentLinkedQueue<>();
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<String> inconsistencies = new ArrayList<>();
+        Thread reader = Thread.ofPlatform().start(() -> {
+            while (writing.get()) {
+                TaskManagerSnapshot snapshot = manager.snapshot();
+                int subtasksCount = snapshot.getEpicSubtasks(epicId).size();
+                if (snapshot.getEpic(epicId).getSubtasksIds().size() != subtasksCount
+                        || subtasksCount != snapshot.getSubtasks().size()) {
+                    inconsistencies.add(snapshot.toString());
+                }
+            }
+        });
+        List<Thread> writers = new ArrayList<>();
+        for (int i = 0; i < threadsCount; i++) {
+            writers.add(Thread.ofPlatform().start(() -> {
+                for (int j = 0; j < commandsPerThread; j++) {
+                    results.add(manager.createSubtask(new Subtask("Subtask", "Subtask Description", TaskStatus.NEW,
+                            epicId)));
+                }
+            }));
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        Set<Integer> ids = new HashSet<>();
+        results.forEach(result -> ids.add(result.join()));
+        writing.set(false);
+        reader.join();
+
+        assertEquals(threadsCount * commandsPerThread, ids.size(), "Каждая команда должна получить свой id");
+        assertEquals(ids.size(), manager.getEpicSubtasks(epicId).size(), "Все подзадачи должны попасть в эпик");
+        assertTrue(inconsistencies.isEmpty(), "Снимок не должен содержать половину пачки: " + inconsistencies);
+    }
+
+    // Пачка команд файлового делегата сбрасывается в хранилище одной записью, и закрытие дожидается очереди
+    @Test
+    void shouldFlushStorageOncePerBatchAndRejectAfterClose() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        FileBackedTaskManager fileBackedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        CommandLoopTaskManager fileBackedLoop = CommandLoopTaskManager.start(fileBackedManager, 256, 256);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            results.add(fileBackedLoop.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW)));
+        }
+        fileBackedLoop.close();
+
+        assertTrue(results.stream().allMatch(CompletableFuture::isDone), "Закрытие должно выполнить очередь");
+        assertTrue(fileBackedManager.getSaveDurations().getCount() < results.size(),
+                "Хранилище должно сбрасываться пачками, а не на каждую команду");
+        assertEquals(200, FileBackedTaskManager.loadFromFile(storageFile).getTasks().size(),
+                "Все задачи должны сохраниться");
+        CompletionException exception = assertThrows(CompletionException.class,
+                () -> fileBackedLoop.deleteAllTasks().join());
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    // Error в команде останавливает поток-писатель: ожидающие future завершаются исключением, а не зависают
+    @Test
+    void shouldFailPendingCommandsIfWriterDies() {
+        InMemoryTaskManager failingDelegate = new InMemoryTaskManager() {
+            @Override
+            public int createTask(Task task) {
+                if (task.getTitle().equals("Fatal")) {
+                    throw new AssertionError("Ошибка потока-писателя");
+                }
+                return super.createTask(task);
+            }
+        };
+        CommandLoopTaskManager failingLoop = CommandLoopTaskManager.start(failingDelegate, 16, 8);
+        List<CompletableFuture<Integer>> results = new ArrayList<>();
+        results.add(failingLoop.createTask(new Task("Fatal", "Task Description", TaskStatus.NEW)));
+        for (int i = 0; i < 100; i++) {
+            results.add(failingLoop.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW)));
+        }
+
+        for (CompletableFuture<Integer> result : results) {
+            CompletionException exception = assertThrows(CompletionException.class,
+                    () -> result.orTimeout(5, TimeUnit.SECONDS).join(), "Команда не должна ждать остановленный поток");
+            assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        }
+        assertTimeoutPreemptively(Duration.ofSeconds(5), failingLoop::close, "Закрытие не должно зависать");
+    }
+}
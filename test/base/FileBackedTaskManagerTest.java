@@ -4,12 +4,29 @@ import entities.Task;
 import enums.TaskStatus;
 import exceptions.ManagerLoadException;
 import exceptions.ManagerSaveException;
+import interfaces.StorageCodec;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import managers.FastDeflateStorageCodec;
 import managers.FileBackedTaskManager;
+import managers.GzipStorageCodec;
+import metrics.StorageLoadEvent;
+import metrics.StorageSaveEvent;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -43,4 +60,217 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         }, "Ожидалось исключение об ошибке записи");
 
     }
+
+    // Изменения транзакции попадают в файл одной записью по её завершении
+    @Test
+    void shouldSaveTransactionOnCompletion() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+
+        manager.runInTransaction(() -> {
+            manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+            manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+            assertEquals(0, storageFile.length(), "Внутри транзакции файл не должен перезаписываться");
+        });
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(2, loadedManager.getTasks().size(), "После транзакции все задачи должны быть сохранены");
+    }
+
+    // При включённой записи JFR сохранение и загрузка публикуют события с размером и числом записей
+    @Test
+    void shouldEmitStorageEventsToFlightRecorder() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        Path recordingFile = Files.createTempFile("test_task_manager_recording", ".jfr");
+        recordingFile.toFile().deleteOnExit();
+
+        try (Recording recording = new Recording()) {
+            recording.enable(StorageSaveEvent.class);
+            recording.enable(StorageLoadEvent.class);
+            recording.start();
+            FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+            manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+            manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+            FileBackedTaskManager.loadFromFile(storageFile);
+            recording.stop();
+            recording.dump(recordingFile);
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(recordingFile);
+        RecordedEvent lastSave = events.stream()
+                .filter(event -> event.getEventType().getName().equals("kanban.StorageSave"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        assertEquals(2, lastSave.getInt("records"), "Некорректное число записей в событии сохранения");
+        assertEquals(storageFile.length(), lastSave.getLong("bytes"), "Некорректный размер в событии сохранения");
+        RecordedEvent lastLoad = events.stream()
+                .filter(event -> event.getEventType().getName().equals("kanban.StorageLoad"))
+                .reduce((first, second) -> second)
+                .orElseThrow();
+        assertEquals(2, lastLoad.getInt("records"), "Некорректное число записей в событии загрузки");
+    }
+
+    // История просмотров переживает перезапуск: порядок просмотров сохраняется, удалённые сущности в неё не попадают
+    @Test
+    void shouldRestoreHistoryFromFile() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        File historyFile = new File(storageFile.getPath() + ".history");
+        historyFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        int secondTaskId = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        int thirdTaskId = manager.createTask(new Task("Task 3", "Task 3 Description", TaskStatus.NEW));
+        manager.getTaskById(firstTaskId);
+        manager.getTaskById(secondTaskId);
+        manager.getTaskById(thirdTaskId);
+        manager.getTaskById(firstTaskId);
+        manager.deleteTask(secondTaskId);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(List.of(thirdTaskId, firstTaskId),
+                loadedManager.getHistory().stream().map(Task::getId).toList(),
+                "История просмотров должна восстанавливаться в прежнем порядке");
+    }
+
+    // Просмотры копятся в буфере журнала истории до сброса хранилища, а закрытие менеджера дописывает их в файл
+    @Test
+    void shouldWriteBufferedViewsOnClose() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        File historyFile = new File(storageFile.getPath() + ".history");
+        historyFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        int secondTaskId = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        manager.getTaskById(secondTaskId);
+        manager.getTaskById(firstTaskId);
+        assertEquals(0, historyFile.length(), "Просмотр не должен писаться в файл системным вызовом сразу");
+
+        manager.close();
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(List.of(secondTaskId, firstTaskId),
+                loadedManager.getHistory().stream().map(Task::getId).toList(),
+                "Закрытие менеджера должно дописывать накопленные просмотры");
+    }
+
+    // Журнал истории дописывается по просмотру, но не растёт бесконечно при повторных просмотрах
+    @Test
+    void shouldRewriteOverflowedHistoryLog() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        File historyFile = new File(storageFile.getPath() + ".history");
+        historyFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        int secondTaskId = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        for (int i = 0; i < 5_000; i++) {
+            manager.getTaskById(i % 2 == 0 ? secondTaskId : firstTaskId);
+        }
+        manager.close();
+
+        assertTrue(Files.readAllLines(historyFile.toPath()).size() <= 1_100,
+                "Устаревшие строки журнала истории должны вычищаться");
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(List.of(secondTaskId, firstTaskId),
+                loadedManager.getHistory().stream().map(Task::getId).toList(),
+                "После перезаписи журнала история не должна меняться");
+    }
+
+    // Оборванная при сбое последняя запись отбрасывается с отчётом, а файл переписывается без неё
+    @Test
+    void shouldDropTornTailRecord() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        for (int i = 1; i <= 3; i++) {
+            manager.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW));
+        }
+        Files.writeString(storageFile.toPath(), "1b2c3d4e,4,TASK,Tas", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(3, loadedManager.getTasks().size(), "Целые записи должны загружаться");
+        assertEquals(1, loadedManager.getDroppedRecords().size(), "Оборванная запись должна попасть в отчёт");
+        assertTrue(Files.readString(storageFile.toPath()).endsWith("\n"), "Файл должен переписываться без обрыва");
+        assertTrue(FileBackedTaskManager.loadFromFile(storageFile).getDroppedRecords().isEmpty(),
+                "После перезаписи отбрасывать больше нечего");
+    }
+
+    // Повреждённая запись в середине файла прерывает обычную загрузку и пропускается в режиме восстановления
+    @Test
+    void shouldSkipCorruptedRecordOnlyInRecoveryMode() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task Description", TaskStatus.NEW));
+        manager.createTask(new Task("Task 2", "Task Description", TaskStatus.NEW));
+        int thirdTaskId = manager.createTask(new Task("Task 3", "Task Description", TaskStatus.NEW));
+        String content = Files.readString(storageFile.toPath());
+        Files.writeString(storageFile.toPath(), content.replace("Task 2", "Tusk 2"));
+
+        ManagerLoadException exception = assertThrows(ManagerLoadException.class,
+                () -> FileBackedTaskManager.loadFromFile(storageFile),
+                "Повреждённая запись должна прерывать обычную загрузку");
+        assertTrue(exception.getMessage().contains("строка 3"), "Ошибка должна указывать на повреждённую строку");
+
+        FileBackedTaskManager recoveredManager = FileBackedTaskManager.recoverFromFile(storageFile);
+        assertEquals(List.of(firstTaskId, thirdTaskId),
+                recoveredManager.getTasks().stream().map(Task::getId).sorted().toList(),
+                "Целые записи должны восстанавливаться");
+        assertEquals(1, recoveredManager.getDroppedRecords().size(), "Повреждённая запись должна попасть в отчёт");
+        assertTrue(recoveredManager.getDroppedRecords().getFirst().contains("Tusk 2"),
+                "В отчёте должна быть сама запись");
+    }
+
+    // Поля с запятыми, кавычками, переводами строк и символами вне ASCII сохраняются и читаются без потерь
+    @Test
+    void shouldRestoreFieldsWithSpecialCharacters() throws IOException {
+        File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile);
+        String title = "Купить молоко, хлеб";
+        String description = "Сказать \"да\"\nи уйти \\ 🙂";
+        int taskId = manager.createTask(new Task(title, description, TaskStatus.NEW));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+        assertEquals(title, loadedManager.getTaskById(taskId).getTitle(), "Название не совпадает");
+        assertEquals(description, loadedManager.getTaskById(taskId).getDescription(), "Описание не совпадает");
+    }
+
+    // Сжатый кодеком файл меньше обычного, распознаётся при загрузке по сигнатуре и остаётся сжатым при перезаписи
+    @Test
+    void shouldStoreSnapshotCompressed() throws IOException {
+        File plainFile = File.createTempFile("test_task_manager_data", ".csv");
+        plainFile.deleteOnExit();
+        fillStorage(FileBackedTaskManager.loadFromFile(plainFile));
+
+        for (StorageCodec codec : List.of(new GzipStorageCodec(), new FastDeflateStorageCodec())) {
+            File storageFile = File.createTempFile("test_task_manager_data", ".csv");
+            storageFile.deleteOnExit();
+            fillStorage(FileBackedTaskManager.loadFromFile(storageFile, null, codec));
+            byte[] magic = codec.getMagic();
+            assertArrayEquals(magic, Arrays.copyOf(Files.readAllBytes(storageFile.toPath()), magic.length),
+                    "Файл должен начинаться с сигнатуры кодека");
+            assertTrue(storageFile.length() * 3 < plainFile.length(), "Файл должен сжиматься в разы");
+
+            FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile);
+            assertEquals(500, loadedManager.getTasks().size(), "Сжатый файл должен распознаваться при загрузке");
+            loadedManager.createTask(new Task("Task 500", "Task Description", TaskStatus.NEW));
+            assertArrayEquals(magic, Arrays.copyOf(Files.readAllBytes(storageFile.toPath()), magic.length),
+                    "Без явного кодека файл должен перезаписываться в прежнем виде");
+            assertEquals(501, FileBackedTaskManager.loadFromFile(storageFile).getTasks().size(),
+                    "Задача после перезаписи сжатого файла потеряна");
+        }
+    }
+
+    private static void fillStorage(FileBackedTaskManager manager) {
+        manager.runInTransaction(() -> {
+            for (int i = 0; i < 500; i++) {
+                manager.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW,
+                        LocalDateTime.of(2024, 1, 1, 9, 0).plusHours(i), Duration.ofMinutes(30)));
+            }
+        });
+    }
 }
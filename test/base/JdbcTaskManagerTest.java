@@ -0,0 +1,83 @@
+package base;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import managers.JdbcTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Менеджер поверх встраиваемой базы H2 - драйвер подключён к модулю как библиотека проекта, как и gson
+class JdbcTaskManagerTest extends TaskManagerTest<JdbcTaskManager> {
+    private static final AtomicInteger DATABASES_COUNT = new AtomicInteger();
+
+    @Override
+    public JdbcTaskManager createTaskManager() {
+        return JdbcTaskManager.loadFromDatabase(createDatabaseUrl());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    // После переподключения к базе состояние и id сущностей восстанавливаются
+    @Test
+    void shouldRestoreStateFromDatabase() {
+        String url = createDatabaseUrl();
+        int taskId;
+        int subtaskId;
+        int epicId;
+        try (JdbcTaskManager manager = JdbcTaskManager.loadFromDatabase(url)) {
+            int deletedTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+            taskId = manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW,
+                    LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(45)));
+            epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+            subtaskId = manager.createSubtask(new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.DONE,
+                    epicId));
+            manager.deleteTask(deletedTaskId);
+        }
+
+        try (JdbcTaskManager loadedManager = JdbcTaskManager.loadFromDatabase(url)) {
+            assertEquals(List.of(taskId), loadedManager.getTasks().stream().map(Task::getId).toList(),
+                    "Удалённая задача не должна восстанавливаться");
+            assertEquals(Duration.ofMinutes(45), loadedManager.getTaskById(taskId).getDuration(),
+                    "Длительность задачи потеряна");
+            assertEquals(epicId, loadedManager.getSubtaskById(subtaskId).getEpicId(),
+                    "Связь подзадачи с эпиком потеряна");
+            assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epicId).getStatus(),
+                    "Статус эпика должен пересчитываться по восстановленным подзадачам");
+        }
+    }
+
+    // Длинные название и описание сохраняются целиком, а не обрезаются по размеру столбца
+    @Test
+    void shouldRestoreLongStrings() {
+        String url = createDatabaseUrl();
+        String title = "Заголовок ".repeat(500);
+        String description = "Описание задачи ".repeat(1_000);
+        int taskId;
+        try (JdbcTaskManager manager = JdbcTaskManager.loadFromDatabase(url)) {
+            taskId = manager.createTask(new Task(title, description, TaskStatus.NEW));
+        }
+
+        try (JdbcTaskManager loadedManager = JdbcTaskManager.loadFromDatabase(url)) {
+            Task task = loadedManager.getTaskById(taskId);
+            assertEquals(title, task.getTitle(), "Длинное название должно сохраняться целиком");
+            assertEquals(description, task.getDescription(), "Длинное описание должно сохраняться целиком");
+        }
+    }
+
+    // Каждому менеджеру - своя база в памяти, живущая до завершения JVM
+    private static String createDatabaseUrl() {
+        return "jdbc:h2:mem:task_manager_" + DATABASES_COUNT.incrementAndGet() + ";DB_CLOSE_DELAY=-1";
+    }
+}
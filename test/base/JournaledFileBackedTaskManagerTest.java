@@ -0,0 +1,146 @@
+package base;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import managers.FileBackedTaskManager;
+import managers.StorageCompactionPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Файловый менеджер в режиме журнала: общие проверки менеджера идут с частым фоновым сжатием
+class JournaledFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    // Без автоматического сжатия - его запускают сами проверки
+    private static final StorageCompactionPolicy MANUAL_COMPACTION = new StorageCompactionPolicy(0, Duration.ZERO);
+
+    @Override
+    public FileBackedTaskManager createTaskManager() {
+        return FileBackedTaskManager.loadFromFile(createStorageFile(),
+                StorageCompactionPolicy.byJournalSize(4 * 1024));
+    }
+
+    // Изменения дописываются в журнал, а не перезаписывают файл, и восстанавливаются вместе с id сущностей
+    @Test
+    void shouldRestoreStateFromJournal() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        int deletedTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        Task task = new Task("Task 2", "Task 2 Description", TaskStatus.NEW);
+        int taskId = manager.createTask(task);
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+        Subtask subtask = new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.NEW, epicId,
+                LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(30));
+        int subtaskId = manager.createSubtask(subtask);
+        manager.deleteTask(deletedTaskId);
+        task.setStatus(TaskStatus.DONE);
+        manager.updateTask(task);
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(subtask);
+        assertEquals(0, storageFile.length(), "Без сжатия файл хранилища не должен перезаписываться");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        assertEquals(List.of(taskId), ids(loadedManager.getTasks()), "Удалённая задача не должна восстанавливаться");
+        assertEquals(TaskStatus.DONE, loadedManager.getTaskById(taskId).getStatus(), "Обновление задачи потеряно");
+        assertEquals(epicId, loadedManager.getSubtaskById(subtaskId).getEpicId(), "Связь подзадачи с эпиком потеряна");
+        assertEquals(TaskStatus.IN_PROGRESS, loadedManager.getEpicById(epicId).getStatus(),
+                "Статус эпика должен пересчитываться по восстановленным подзадачам");
+        assertEquals(1, loadedManager.getPrioritizedTasks().size(), "Интервалы подзадач должны восстанавливаться");
+        assertTrue(loadedManager.createTask(new Task("Task 3", "Task 3 Description", TaskStatus.NEW)) > subtaskId,
+                "Новые id должны продолжать восстановленные");
+    }
+
+    // Сжатие записывает снимок, удаляет вошедшие в него сегменты журнала, а новые изменения пишет в следующий
+    @Test
+    void shouldCompactJournalIntoSnapshot() throws IOException {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        for (int i = 0; i < 100; i++) {
+            manager.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW));
+        }
+        File firstSegment = new File(storageFile.getPath() + ".journal.1");
+        assertTrue(firstSegment.exists(), "Изменения должны дописываться в журнал");
+
+        manager.compact().join();
+        assertFalse(firstSegment.exists(), "Вошедший в снимок сегмент журнала должен удаляться");
+        assertEquals(101, Files.readAllLines(storageFile.toPath()).size(), "Снимок должен содержать все задачи");
+
+        int lastTaskId = manager.createTask(new Task("Task 100", "Task Description", TaskStatus.NEW));
+        File secondSegment = new File(storageFile.getPath() + ".journal.2");
+        assertTrue(secondSegment.exists(), "После сжатия изменения должны писаться в следующий сегмент");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        assertEquals(ids(manager.getTasks()), ids(loadedManager.getTasks()), "Состояние после сжатия не совпадает");
+        assertEquals(lastTaskId, loadedManager.getTaskById(lastTaskId).getId(), "Запись журнала после снимка потеряна");
+        secondSegment.deleteOnExit();
+    }
+
+    // Сжатие запускается само по достижении размера журнала и не мешает продолжать изменения
+    @Test
+    void shouldCompactAutomaticallyBySize() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile,
+                StorageCompactionPolicy.byJournalSize(1024));
+        for (int i = 0; i < 1_000; i++) {
+            manager.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW));
+        }
+        manager.compact().join();
+        Path firstSegment = Path.of(storageFile.getPath() + ".journal.1");
+        assertFalse(Files.exists(firstSegment), "Журнал должен сжиматься по размеру");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        assertEquals(1_000, loadedManager.getTasks().size(), "После сжатий не должно теряться задач");
+    }
+
+    // Оборванная запись в конце журнала отбрасывается, и следующие записи не дописываются к ней
+    @Test
+    void shouldDropTornJournalTail() throws IOException {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        File segment = new File(storageFile.getPath() + ".journal.1");
+        segment.deleteOnExit();
+        Files.writeString(segment.toPath(), "0a1b2c3d,U,2,TASK,Ta", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        assertEquals(1, loadedManager.getDroppedRecords().size(), "Оборванная запись должна попасть в отчёт");
+        int secondTaskId = loadedManager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+
+        FileBackedTaskManager reloadedManager = FileBackedTaskManager.loadFromFile(storageFile, MANUAL_COMPACTION);
+        assertEquals(List.of(firstTaskId, secondTaskId), ids(reloadedManager.getTasks()),
+                "Записи после обрыва не должны теряться");
+        assertTrue(reloadedManager.getDroppedRecords().isEmpty(), "Повторно отбрасывать нечего");
+    }
+
+    private static File createStorageFile() {
+        File tempFile;
+        try {
+            tempFile = File.createTempFile("test_task_manager_data", ".csv");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        tempFile.deleteOnExit();
+        return tempFile;
+    }
+
+    private static List<Integer> ids(List<? extends Task> items) {
+        return items.stream()
+                .map(Task::getId)
+                .sorted(Comparator.naturalOrder())
+                .collect(Collectors.toList());
+    }
+}
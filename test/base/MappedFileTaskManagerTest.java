@@ -0,0 +1,182 @@
+package base;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import exceptions.ManagerLoadException;
+import managers.MappedFileTaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappedFileTaskManagerTest extends TaskManagerTest<MappedFileTaskManager> {
+    @Override
+    public MappedFileTaskManager createTaskManager() {
+        return MappedFileTaskManager.loadFromFile(createSlotsFile());
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskManager.close();
+    }
+
+    // После повторного открытия файла состояние и id сущностей восстанавливаются
+    @Test
+    void shouldRestoreStateFromSlots() {
+        File slotsFile = createSlotsFile();
+        int taskId;
+        int subtaskId;
+        int epicId;
+        try (MappedFileTaskManager manager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            int deletedTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+            taskId = manager.createTask(new Task("Task 2", "Описание задачи 2", TaskStatus.NEW,
+                    LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(45)));
+            epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+            subtaskId = manager.createSubtask(new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.DONE,
+                    epicId));
+            manager.deleteTask(deletedTaskId);
+        }
+
+        try (MappedFileTaskManager loadedManager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            assertEquals(1, loadedManager.getTasks().size(), "Удалённая задача не должна восстанавливаться");
+            Task task = loadedManager.getTaskById(taskId);
+            assertEquals("Описание задачи 2", task.getDescription(), "Строки задачи не восстановлены");
+            assertEquals(LocalDateTime.of(2024, 1, 1, 9, 0), task.getStartTime(), "Время начала не восстановлено");
+            assertEquals(Duration.ofMinutes(45), task.getDuration(), "Длительность не восстановлена");
+            assertEquals(epicId, loadedManager.getSubtaskById(subtaskId).getEpicId(), "Связь с эпиком потеряна");
+            assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epicId).getStatus(), "Статус эпика не пересчитан");
+            assertTrue(loadedManager.getDroppedSlots().isEmpty(), "Целые слоты не должны отбрасываться");
+        }
+    }
+
+    // Смена статуса переписывает слот на месте: файл слотов и куча строк не растут
+    @Test
+    void shouldUpdateStatusInPlace() {
+        File slotsFile = createSlotsFile();
+        File heapFile = new File(slotsFile.getPath() + ".heap");
+        try (MappedFileTaskManager manager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            Task task = new Task("Task 1", "Task 1 Description", TaskStatus.NEW);
+            int taskId = manager.createTask(task);
+            long slotsSize = slotsFile.length();
+            long heapSize = heapFile.length();
+
+            for (TaskStatus status : List.of(TaskStatus.IN_PROGRESS, TaskStatus.DONE)) {
+                task.setStatus(status);
+                manager.updateTask(task);
+            }
+            assertEquals(slotsSize, slotsFile.length(), "Файл слотов не должен расти при обновлении");
+            assertEquals(heapSize, heapFile.length(), "Неизменившиеся строки не должны дописываться");
+            assertEquals(TaskStatus.DONE, manager.getTaskById(taskId).getStatus(), "Статус не обновлён");
+        }
+        try (MappedFileTaskManager loadedManager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            assertEquals(TaskStatus.DONE, loadedManager.getTasks().getFirst().getStatus(), "Статус не сохранён");
+        }
+    }
+
+    // Время начала и длительность сохраняются с точностью до наносекунд
+    @Test
+    void shouldRestoreSubSecondTime() {
+        File slotsFile = createSlotsFile();
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0, 15, 123_456_789);
+        Duration duration = Duration.ofSeconds(90, 987_654_321);
+        int taskId;
+        try (MappedFileTaskManager manager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW, startTime, duration));
+        }
+
+        try (MappedFileTaskManager loadedManager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            Task task = loadedManager.getTaskById(taskId);
+            assertEquals(startTime, task.getStartTime(), "Наносекунды времени начала потеряны");
+            assertEquals(duration, task.getDuration(), "Наносекунды длительности потеряны");
+        }
+    }
+
+    // Прежние версии строк не копятся в куче бесконечно: куча переписывается и остаётся ограниченной
+    @Test
+    void shouldCompactHeapOnRepeatedStringUpdates() {
+        File slotsFile = createSlotsFile();
+        Task task = new Task("Task", "Task Description", TaskStatus.NEW);
+        int otherTaskId;
+        try (MappedFileTaskManager manager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            otherTaskId = manager.createTask(new Task("Other task", "Other task Description", TaskStatus.NEW));
+            manager.createTask(task);
+            for (int i = 0; i < 5_000; i++) {
+                task.setTitle("Task " + i);
+                manager.updateTask(task);
+            }
+            List<File> heapFiles = heapFiles(slotsFile);
+            assertEquals(1, heapFiles.size(), "Прежние поколения кучи должны удаляться: " + heapFiles);
+            assertTrue(heapFiles.getFirst().length() <= 64 * 1024 + 100,
+                    "Куча должна оставаться ограниченной: " + heapFiles.getFirst().length());
+        }
+
+        try (MappedFileTaskManager loadedManager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            assertEquals("Task 4999", loadedManager.getTaskById(task.getId()).getTitle(), "Последние строки потеряны");
+            assertEquals("Other task Description", loadedManager.getTaskById(otherTaskId).getDescription(),
+                    "Строки неизменявшейся задачи должны переноситься в новую кучу");
+            assertTrue(loadedManager.getDroppedSlots().isEmpty(), "Слоты после сжатия кучи должны быть целыми");
+        }
+    }
+
+    // Слот с несовпадающей контрольной суммой отбрасывается, остальные загружаются
+    @Test
+    void shouldDropCorruptedSlotOnLoad() throws IOException {
+        File slotsFile = createSlotsFile();
+        try (MappedFileTaskManager manager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+            manager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        }
+        // Портим статус во втором слоте: заголовок 16 байт, слот 56 байт, статус - шестой байт слота
+        try (RandomAccessFile file = new RandomAccessFile(slotsFile, "rw")) {
+            file.seek(16 + 56 + 5);
+            file.write(2);
+        }
+
+        try (MappedFileTaskManager loadedManager = MappedFileTaskManager.loadFromFile(slotsFile)) {
+            assertEquals(List.of(1), loadedManager.getDroppedSlots(), "Повреждённый слот должен отбрасываться");
+            assertEquals(1, loadedManager.getTasks().size(), "Целые слоты должны загружаться");
+            assertEquals("Task 1", loadedManager.getTasks().getFirst().getTitle(), "Загружена не та задача");
+        }
+    }
+
+    // Файл другого формата не открывается, а не портится записью слотов
+    @Test
+    void shouldRejectForeignFile() throws IOException {
+        File foreignFile = createSlotsFile();
+        Files.writeString(foreignFile.toPath(), "id,type,name,status,description,epic,duration,startTime\n");
+        assertThrows(ManagerLoadException.class, () -> MappedFileTaskManager.loadFromFile(foreignFile),
+                "Файл другого формата не должен открываться как файл слотов");
+    }
+
+    private static List<File> heapFiles(File slotsFile) {
+        String prefix = slotsFile.getName() + ".heap";
+        File[] files = slotsFile.getAbsoluteFile().getParentFile().listFiles((directory, name) ->
+                name.startsWith(prefix));
+        return files == null ? List.of() : Arrays.stream(files).peek(File::deleteOnExit).toList();
+    }
+
+    private static File createSlotsFile() {
+        File tempFile;
+        try {
+            tempFile = File.createTempFile("test_task_manager_data", ".slots");
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        tempFile.deleteOnExit();
+        new File(tempFile.getPath() + ".heap").deleteOnExit();
+        return tempFile;
+    }
+}
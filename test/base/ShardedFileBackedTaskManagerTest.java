@@ -0,0 +1,178 @@
+package base;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskChange;
+import enums.ChangeType;
+import enums.TaskStatus;
+import enums.TaskType;
+import managers.FileBackedTaskManager;
+import managers.ShardedCsvTaskStorage;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+// Файловый менеджер с шардами по типам сущностей: общие проверки менеджера и перезапись только изменённых шардов
+class ShardedFileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
+    @Override
+    public FileBackedTaskManager createTaskManager() {
+        return FileBackedTaskManager.loadSharded(createStorageFile(), 0);
+    }
+
+    // Изменение подзадачи перезаписывает шарды подзадач и эпиков, но не трогает шард задач
+    @Test
+    void shouldRewriteOnlyChangedShard() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+        Subtask subtask = new Subtask("Subtask 1", "Subtask 1 Description", TaskStatus.NEW, epicId);
+        int subtaskId = manager.createSubtask(subtask);
+        File tasksShard = shard(storageFile, "task");
+        assertTrue(tasksShard.exists(), "Задачи должны храниться в своём шарде");
+        assertFalse(storageFile.exists(), "Общий файл хранилища не должен создаваться");
+
+        assertTrue(tasksShard.delete());
+        subtask.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(subtask);
+        assertFalse(tasksShard.exists(), "Шард без изменений не должен перезаписываться");
+
+        manager.updateTask(manager.getTaskById(taskId));
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        assertEquals(List.of(taskId), ids(loadedManager.getHistory()), "История просмотров должна восстанавливаться");
+        assertEquals(List.of(taskId), ids(loadedManager.getTasks()), "Задачи должны восстанавливаться из шарда");
+        assertEquals(TaskStatus.DONE, loadedManager.getSubtaskById(subtaskId).getStatus(),
+                "Обновление подзадачи потеряно");
+        assertEquals(TaskStatus.DONE, loadedManager.getEpicById(epicId).getStatus(),
+                "Статус эпика должен пересчитываться по подзадачам из другого шарда");
+        assertEquals(List.of(subtaskId), loadedManager.getEpicById(epicId).getSubtasksIds(),
+                "Связь эпика с подзадачами должна восстанавливаться");
+    }
+
+    // Шарды по диапазонам id: шард, из которого удалены все сущности, удаляется
+    @Test
+    void shouldSplitShardsByIdRange() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadSharded(storageFile, 2);
+        List<Integer> taskIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            taskIds.add(manager.createTask(new Task("Task " + i, "Task Description", TaskStatus.NEW)));
+        }
+        List<String> shardNames = shardNames(storageFile);
+        assertEquals(taskIds.getLast() / 2 - taskIds.getFirst() / 2 + 1, shardNames.size(),
+                "Задачи должны раскладываться по диапазонам id");
+
+        int lastId = taskIds.getLast();
+        taskIds.stream().filter(id -> id / 2 == lastId / 2).forEach(manager::deleteTask);
+        assertFalse(shard(storageFile, "task." + lastId / 2).exists(), "Опустевший шард должен удаляться");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadSharded(storageFile, 2);
+        assertEquals(taskIds.stream().filter(id -> id / 2 != lastId / 2).toList(), ids(loadedManager.getTasks()),
+                "Задачи из оставшихся шардов должны восстанавливаться");
+    }
+
+    // Шарды другого размера диапазона читаются и при первом сбросе раскладываются заново
+    @Test
+    void shouldReshardOnRangeChange() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        int firstTaskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+
+        FileBackedTaskManager reshardedManager = FileBackedTaskManager.loadSharded(storageFile, 10);
+        int secondTaskId = reshardedManager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        assertFalse(shard(storageFile, "task").exists(), "Шард прежнего размера должен удаляться");
+        assertTrue(shard(storageFile, "task.0").exists(), "Задачи должны перекладываться в шарды нового размера");
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadSharded(storageFile, 10);
+        assertEquals(List.of(firstTaskId, secondTaskId), ids(loadedManager.getTasks()),
+                "Задачи не должны теряться или дублироваться при смене шардов");
+    }
+
+    // Прерванная перекладка: новый шард уже записан, а прежний ещё не удалён - сущность не должна дублироваться
+    @Test
+    void shouldNotDuplicateItemsAfterInterruptedReshard() throws IOException {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        Files.copy(shard(storageFile, "task").toPath(), shard(storageFile, "task.0").toPath());
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadSharded(storageFile, 10);
+        assertEquals(List.of(taskId), ids(loadedManager.getTasks()), "Задача из двух шардов должна загружаться один раз");
+
+        int secondTaskId = loadedManager.createTask(new Task("Task 2", "Task 2 Description", TaskStatus.NEW));
+        assertFalse(shard(storageFile, "task").exists(), "Прежний шард должен удаляться после записи нового");
+        assertEquals(List.of(taskId, secondTaskId), ids(FileBackedTaskManager.loadSharded(storageFile, 10).getTasks()),
+                "Задачи не должны теряться или дублироваться после перекладки");
+    }
+
+    // Сброс перезаписывает изменённый шард из сущностей хранилища и не перебирает все сущности менеджера
+    @Test
+    void shouldFlushWithoutScanningAllItems() {
+        File storageFile = createStorageFile();
+        FileBackedTaskManager manager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+
+        ShardedCsvTaskStorage storage = new ShardedCsvTaskStorage(storageFile, 0);
+        storage.load();
+        Task task = new Task("Task 1 updated", "Task 1 Description", TaskStatus.DONE);
+        task.setId(taskId);
+        storage.apply(new TaskChange(1, ChangeType.UPDATE, TaskType.TASK, taskId, task));
+        storage.flush(() -> fail("Сброс шарда не должен запрашивать все сущности"));
+
+        FileBackedTaskManager loadedManager = FileBackedTaskManager.loadSharded(storageFile, 0);
+        assertEquals("Task 1 updated", loadedManager.getTaskById(taskId).getTitle(), "Изменение задачи потеряно");
+        assertEquals("Epic 1", loadedManager.getEpicById(epicId).getTitle(), "Сущности других шардов не должны теряться");
+    }
+
+    private static File shard(File storageFile, String suffix) {
+        File shard = new File(storageFile.getPath() + "." + suffix);
+        shard.deleteOnExit();
+        return shard;
+    }
+
+    private static List<String> shardNames(File storageFile) {
+        String prefix = storageFile.getName() + ".task.";
+        File[] files = storageFile.getAbsoluteFile().getParentFile().listFiles((directory, name) ->
+                name.startsWith(prefix));
+        return files == null ? List.of() : Arrays.stream(files)
+                .peek(File::deleteOnExit)
+                .map(File::getName)
+                .collect(Collectors.toList());
+    }
+
+    // Шарды по типам и журнал истории лежат рядом с файлом хранилища
+    private static File createStorageFile() {
+        File tempFile;
+        try {
+            tempFile = File.createTempFile("test_task_manager_data", ".csv");
+            Files.delete(tempFile.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        for (String suffix : List.of("task", "subtask", "epic", "history")) {
+            shard(tempFile, suffix);
+        }
+        return tempFile;
+    }
+
+    private static List<Integer> ids(List<? extends Task> items) {
+        return items.stream()
+                .map(Task::getId)
+                .sorted(Comparator.naturalOrder())
+                .collect(Collectors.toList());
+    }
+}
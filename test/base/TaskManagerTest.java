@@ -3,7 +3,12 @@ package base;
 import entities.Epic;
 import entities.Subtask;
 import entities.Task;
+import entities.TaskChange;
+import entities.TaskManagerSnapshot;
+import enums.ChangeType;
 import enums.TaskStatus;
+import enums.TaskType;
+import exceptions.ChangesExpiredException;
 import exceptions.NotFoundException;
 import exceptions.TaskIntersectionException;
 import interfaces.TaskManager;
@@ -383,6 +388,56 @@ abstract class TaskManagerTest<T extends TaskManager> {
                 "Ожидалось исключение о пересечении времени");
     }
 
+    // Пересечение ищется среди соседних интервалов: задачи без длительности между ними не мешают,
+    // а прежняя версия обновляемой задачи не считается пересечением
+    @Test
+    void shouldDetectIntersectionWithNeighbourIntervals() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 2, 28, 10, 0);
+        Task longTask = new Task("Long task", "Description", TaskStatus.NEW, startTime, Duration.ofMinutes(120));
+        taskManager.createTask(longTask);
+        Task zeroDurationTask = new Task("Zero duration task", "Description", TaskStatus.NEW,
+                startTime.plusMinutes(30), Duration.ZERO);
+        assertDoesNotThrow(() -> taskManager.createTask(zeroDurationTask), "Задача без длительности ни с чем не пересекается");
+
+        Task coveredTask = new Task("Covered task", "Description", TaskStatus.NEW,
+                startTime.plusMinutes(60), Duration.ofMinutes(10));
+        assertThrows(TaskIntersectionException.class, () -> taskManager.createTask(coveredTask),
+                "Интервал внутри существующего должен считаться пересечением");
+
+        Task coveringTask = new Task("Covering task", "Description", TaskStatus.NEW,
+                startTime.minusMinutes(30), Duration.ofMinutes(300));
+        assertThrows(TaskIntersectionException.class, () -> taskManager.createTask(coveringTask),
+                "Интервал, накрывающий существующий, должен считаться пересечением");
+
+        longTask.setStatus(TaskStatus.IN_PROGRESS);
+        assertDoesNotThrow(() -> taskManager.updateTask(longTask), "Задача не должна пересекаться сама с собой");
+        longTask.setStartTime(startTime.plusMinutes(15));
+        assertDoesNotThrow(() -> taskManager.updateTask(longTask), "Сдвиг задачи поверх своего интервала допустим");
+        assertEquals(startTime.plusMinutes(15), taskManager.getPrioritizedTasks().getFirst().getStartTime(),
+                "Сдвинутая задача должна оказаться в отсортированных с новым временем");
+    }
+
+    // Новая сущность с id уже существующей (импорт, пакет) не должна пропускать её интервал при проверке пересечения
+    @Test
+    void shouldDetectIntersectionOnCreateWithExistingId() {
+        LocalDateTime startTime = LocalDateTime.of(2025, 2, 28, 10, 0);
+        Task existingTask = new Task("Existing task", "Description", TaskStatus.NEW, startTime, Duration.ofMinutes(60));
+        int existingTaskId = taskManager.createTask(existingTask);
+
+        Task importedTask = new Task("Imported task", "Description", TaskStatus.NEW,
+                startTime.plusMinutes(30), Duration.ofMinutes(60));
+        importedTask.setId(existingTaskId);
+        assertThrows(TaskIntersectionException.class, () -> taskManager.createTask(importedTask),
+                "Пересечение с задачей того же id при создании должно обнаруживаться");
+
+        Subtask importedSubtask = new Subtask("Imported subtask", "Description", TaskStatus.NEW,
+                startTime.minusMinutes(30), Duration.ofMinutes(60));
+        importedSubtask.setId(existingTaskId);
+        assertThrows(TaskIntersectionException.class, () -> taskManager.createSubtask(importedSubtask),
+                "Пересечение с задачей того же id при создании подзадачи должно обнаруживаться");
+        assertEquals(1, taskManager.getPrioritizedTasks().size(), "Пересекающиеся сущности не должны добавляться");
+    }
+
     // Проверка подсчёта временных полей эпика без подзадач
     @Test
     void shouldCalculateEpicTimeWithNoSubtasks() {
@@ -470,4 +525,176 @@ abstract class TaskManagerTest<T extends TaskManager> {
         assertNull(updatedEpic.getStartTime(), "После удаления всех подзадач время начала эпика должно быть null");
         assertNull(updatedEpic.getEndTime(), "После удаления всех подзадач время окончания эпика должно быть null");
     }
-}
\ No newline at end of file
+
+    // Проверка выборки по статусу через индекс, в том числе после пересчёта статуса эпика
+    @Test
+    void shouldSelectItemsByStatus() {
+        int task1Id = taskManager.createTask(new Task("Task 1", "Description", TaskStatus.NEW));
+        int task2Id = taskManager.createTask(new Task("Task 2", "Description", TaskStatus.DONE));
+        int epicId = taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        Subtask subtask = new Subtask("Subtask", "Description", TaskStatus.NEW, epicId);
+        int subtaskId = taskManager.createSubtask(subtask);
+
+        assertEquals(List.of(task1Id), taskManager.getByStatus(TaskType.TASK, TaskStatus.NEW).stream()
+                .map(Task::getId).toList(), "Некорректная выборка задач со статусом NEW");
+        assertEquals(List.of(task2Id), taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE).stream()
+                .map(Task::getId).toList(), "Некорректная выборка задач со статусом DONE");
+        assertEquals(1, taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW).size(),
+                "Новый эпик должен попасть в выборку со статусом NEW");
+
+        subtask.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateSubtask(subtask);
+        assertEquals(List.of(subtaskId), taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.IN_PROGRESS).stream()
+                .map(Task::getId).toList(), "Подзадача должна переместиться в выборку IN_PROGRESS");
+        assertTrue(taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.NEW).isEmpty(),
+                "Подзадача не должна остаться в выборке NEW");
+        assertEquals(List.of(epicId), taskManager.getByStatus(TaskType.EPIC, TaskStatus.IN_PROGRESS).stream()
+                .map(Task::getId).toList(), "Эпик должен переместиться в выборку IN_PROGRESS после пересчёта статуса");
+        assertTrue(taskManager.getByStatus(TaskType.EPIC, TaskStatus.NEW).isEmpty(),
+                "Эпик не должен остаться в выборке NEW");
+
+        taskManager.deleteTask(task2Id);
+        taskManager.deleteEpic(epicId);
+        assertTrue(taskManager.getByStatus(TaskType.TASK, TaskStatus.DONE).isEmpty(),
+                "Удалённая задача не должна попадать в выборку");
+        assertTrue(taskManager.getByStatus(TaskType.SUBTASK, TaskStatus.IN_PROGRESS).isEmpty(),
+                "Подзадачи удалённого эпика не должны попадать в выборку");
+        assertTrue(taskManager.getByStatus(TaskType.EPIC, TaskStatus.IN_PROGRESS).isEmpty(),
+                "Удалённый эпик не должен попадать в выборку");
+    }
+
+    // Проверка полнотекстового поиска: регистр, кириллица, ранжирование по частоте и актуализация индекса
+    @Test
+    void shouldSearchByTitleAndDescription() {
+        Task task1 = new Task("Починить сборку", "Сборка падает на тестах", TaskStatus.NEW);
+        int task1Id = taskManager.createTask(task1);
+        int task2Id = taskManager.createTask(new Task("Сборка релиза", "Обновить release notes", TaskStatus.NEW));
+        int epicId = taskManager.createEpic(new Epic("Release", "Ёлка к релизу", TaskStatus.NEW));
+
+        assertEquals(List.of(task1Id, task2Id), taskManager.search("СБОРКА", 10).stream().map(Task::getId).toList(),
+                "Поиск должен учитывать частоту слова и не зависеть от регистра");
+        assertEquals(List.of(task1Id), taskManager.search("сборка", 1).stream().map(Task::getId).toList(),
+                "Размер выдачи должен ограничиваться limit");
+        assertEquals(List.of(epicId), taskManager.search("елка", 10).stream().map(Task::getId).toList(),
+                "Поиск должен приравнивать «ё» к «е»");
+        assertEquals(List.of(task2Id), taskManager.search("release обновить", 10).stream().map(Task::getId).toList(),
+                "Поиск должен возвращать только сущности со всеми словами запроса");
+
+        task1.setTitle("Починить деплой");
+        task1.setDescription("Деплой падает");
+        taskManager.updateTask(task1);
+        assertEquals(List.of(task2Id), taskManager.search("сборка", 10).stream().map(Task::getId).toList(),
+                "Индекс должен актуализироваться при обновлении");
+
+        taskManager.deleteTask(task2Id);
+        assertTrue(taskManager.search("сборка", 10).isEmpty(), "Индекс должен актуализироваться при удалении");
+    }
+
+    // Проверка журнала изменений: монотонные версии, изменения эпика при изменении подзадач и удаления
+    @Test
+    void shouldTrackChangesSinceVersion() {
+        assertTrue(taskManager.getChangesSince(0).isEmpty(), "Журнал изменений нового менеджера должен быть пуст");
+
+        int epicId = taskManager.createEpic(new Epic("Epic", "Description", TaskStatus.NEW));
+        long versionAfterEpic = taskManager.getVersion();
+        int subtaskId = taskManager.createSubtask(new Subtask("Subtask", "Description", TaskStatus.DONE, epicId));
+        taskManager.deleteSubtask(subtaskId);
+
+        List<TaskChange> changes = taskManager.getChangesSince(versionAfterEpic);
+        assertEquals(4, changes.size(), "Создание и удаление подзадачи должны актуализировать и эпик");
+        assertEquals(List.of(ChangeType.CREATE, ChangeType.UPDATE, ChangeType.DELETE, ChangeType.UPDATE),
+                changes.stream().map(TaskChange::getChangeType).toList(), "Некорректная последовательность изменений");
+        assertEquals(List.of(subtaskId, epicId, subtaskId, epicId),
+                changes.stream().map(TaskChange::getId).toList(), "Некорректные id изменённых сущностей");
+        assertEquals(TaskStatus.DONE, changes.get(1).getTask().getStatus(),
+                "Изменение эпика должно содержать пересчитанный статус");
+        assertNull(changes.get(2).getTask(), "Удаление не должно содержать состояние сущности");
+        for (int i = 1; i < changes.size(); i++) {
+            assertTrue(changes.get(i).getVersion() > changes.get(i - 1).getVersion(), "Версии должны возрастать");
+        }
+        assertEquals(taskManager.getVersion(), changes.get(changes.size() - 1).getVersion(),
+                "Последнее изменение должно иметь текущую версию");
+
+        assertTrue(taskManager.getChangesSince(taskManager.getVersion()).isEmpty(),
+                "После текущей версии изменений быть не должно");
+        assertThrows(ChangesExpiredException.class, () -> taskManager.getChangesSince(taskManager.getVersion() + 1),
+                "Версия из будущего должна требовать полной синхронизации");
+    }
+
+    // Снимок не меняется вместе с менеджером
+    @Test
+    void shouldTakeIsolatedSnapshot() {
+        int epicId = taskManager.createEpic(new Epic("Epic 1", "Epic description", TaskStatus.NEW));
+        Task task = new Task("Task 1", "Task description", TaskStatus.NEW);
+        taskManager.createTask(task);
+
+        TaskManagerSnapshot snapshot = taskManager.snapshot();
+        assertEquals(taskManager.getVersion(), snapshot.getVersion(), "Версия снимка должна совпадать с версией менеджера");
+
+        task.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(task);
+        taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", TaskStatus.DONE, epicId));
+
+        assertEquals(2, snapshot.size(), "Снимок не должен видеть новые сущности");
+        assertEquals(TaskStatus.NEW, snapshot.getTasks().getFirst().getStatus(), "Снимок не должен видеть обновления");
+        assertEquals(TaskStatus.NEW, snapshot.getEpics().getFirst().getStatus(), "Эпик в снимке не должен пересчитываться");
+        assertTrue(snapshot.getEpics().getFirst().getSubtasksIds().isEmpty(), "Эпик в снимке не должен получать подзадачи");
+    }
+
+    // Списки чтения отдают копии: их изменение не должно задевать ни менеджер, ни снимок
+    @Test
+    void shouldReturnCopiesFromReadLists() {
+        int epicId = taskManager.createEpic(new Epic("Epic 1", "Epic description", TaskStatus.NEW));
+        int subtaskId = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", TaskStatus.NEW,
+                epicId, LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(30)));
+        int taskId = taskManager.createTask(new Task("Task 1", "Task description", TaskStatus.NEW));
+        taskManager.getTaskById(taskId);
+        TaskManagerSnapshot snapshot = taskManager.snapshot();
+
+        taskManager.getTasks().getFirst().setStatus(TaskStatus.DONE);
+        taskManager.getSubtasks().getFirst().setStatus(TaskStatus.DONE);
+        taskManager.getEpics().getFirst().setTitle("Changed");
+        taskManager.getByStatus(TaskType.TASK, TaskStatus.NEW).getFirst().setTitle("Changed");
+        taskManager.getEpicSubtasks(epicId).getFirst().setTitle("Changed");
+        taskManager.getPrioritizedTasks().getFirst().setDescription("Changed");
+        taskManager.getHistory().getFirst().setDescription("Changed");
+
+        for (TaskManagerSnapshot state : List.of(snapshot, taskManager.snapshot())) {
+            assertEquals(TaskStatus.NEW, state.getTask(taskId).getStatus(), "Сохранённая задача не должна меняться");
+            assertEquals("Task 1", state.getTask(taskId).getTitle(), "Сохранённая задача не должна меняться");
+            assertEquals("Task description", state.getTask(taskId).getDescription(),
+                    "Сохранённая задача не должна меняться");
+            assertEquals(TaskStatus.NEW, state.getSubtask(subtaskId).getStatus(),
+                    "Сохранённая подзадача не должна меняться");
+            assertEquals("Subtask 1", state.getSubtask(subtaskId).getTitle(), "Сохранённая подзадача не должна меняться");
+            assertEquals("Subtask description", state.getPrioritizedTasks().getFirst().getDescription(),
+                    "Отсортированная подзадача не должна меняться");
+            assertEquals("Epic 1", state.getEpic(epicId).getTitle(), "Сохранённый эпик не должен меняться");
+        }
+    }
+
+    // Отсортированные задачи и данные эпика в снимке - на момент снимка, а удалённая подзадача в нём остаётся
+    @Test
+    void shouldKeepPrioritizedTasksAndEpicDataInSnapshot() {
+        int epicId = taskManager.createEpic(new Epic("Epic 1", "Epic description", TaskStatus.NEW));
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int subtaskId = taskManager.createSubtask(new Subtask("Subtask 1", "Subtask description", TaskStatus.DONE,
+                epicId, start, Duration.ofMinutes(30)));
+
+        TaskManagerSnapshot snapshot = taskManager.snapshot();
+        taskManager.createTask(new Task("Task 1", "Task description", TaskStatus.NEW, start.minusHours(1),
+                Duration.ofMinutes(30)));
+        taskManager.deleteSubtask(subtaskId);
+
+        assertEquals(List.of(subtaskId), snapshot.getPrioritizedTasks().stream().map(Task::getId).toList(),
+                "Снимок не должен видеть изменения отсортированных задач");
+        assertEquals(TaskStatus.DONE, snapshot.getEpic(epicId).getStatus(), "Статус эпика в снимке не должен меняться");
+        assertEquals(start, snapshot.getEpic(epicId).getStartTime(), "Время эпика в снимке не должно меняться");
+        assertEquals(subtaskId, snapshot.getEpicSubtasks(epicId).getFirst().getId(),
+                "Подзадача эпика должна оставаться в снимке");
+        assertEquals(epicId, snapshot.getSubtask(subtaskId).getEpicId(), "Удалённая подзадача не должна меняться");
+        assertNull(taskManager.snapshot().getSubtask(subtaskId), "Новый снимок не должен видеть удалённую подзадачу");
+        assertEquals(TaskStatus.NEW, taskManager.snapshot().getEpic(epicId).getStatus(),
+                "Новый снимок должен видеть пересчитанный эпик");
+    }
+}
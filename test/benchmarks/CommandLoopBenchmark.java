@@ -0,0 +1,71 @@
+package benchmarks;
+
+import entities.Task;
+import enums.TaskStatus;
+import managers.CommandLoopTaskManager;
+import managers.FileBackedTaskManager;
+import managers.StorageCompactionPolicy;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Пропускная способность изменений файлового менеджера с журналом из нескольких потоков: вызовы под общей
+// блокировкой (сброс хранилища на каждое изменение) против очереди с одним потоком-писателем (сброс на пачку).
+// Запуск: java benchmarks.CommandLoopBenchmark [число потоков] [изменений на поток]
+public class CommandLoopBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threadsCount = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int commandsPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        System.out.printf("threads: %d, commands: %d%n", threadsCount, threadsCount * commandsPerThread);
+        System.out.printf("%-8s %14s%n", "engine", "commands/s");
+
+        FileBackedTaskManager lockedManager = createManager();
+        measure("locked", threadsCount, commandsPerThread, () -> {
+            synchronized (lockedManager) {
+                lockedManager.createTask(new Task("Task", "Benchmark task", TaskStatus.NEW));
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+
+        try (CommandLoopTaskManager loop = CommandLoopTaskManager.start(createManager())) {
+            measure("loop", threadsCount, commandsPerThread,
+                    () -> loop.createTask(new Task("Task", "Benchmark task", TaskStatus.NEW)));
+        }
+    }
+
+    private static FileBackedTaskManager createManager() throws IOException {
+        File storageFile = File.createTempFile("benchmark_task_manager_data", ".csv");
+        storageFile.deleteOnExit();
+        return FileBackedTaskManager.loadFromFile(storageFile, StorageCompactionPolicy.byJournalSize(64L << 20));
+    }
+
+    // Команды одного потока применяются по порядку, поэтому поток дожидается только результата последней
+    private static void measure(String name, int threadsCount, int commandsPerThread, Command command)
+            throws InterruptedException {
+        List<Thread> threads = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < threadsCount; i++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                CompletableFuture<?> result = null;
+                for (int j = 0; j < commandsPerThread; j++) {
+                    result = command.submit();
+                }
+                if (result != null) {
+                    result.join();
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        System.out.printf("%-8s %14.0f%n", name, (double) threadsCount * commandsPerThread * 1e9 / elapsedNanos);
+    }
+
+    private interface Command {
+        CompletableFuture<?> submit();
+    }
+}
@@ -0,0 +1,118 @@
+package benchmarks;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskCsvParser;
+import enums.TaskStatus;
+import enums.TaskType;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+// Скорость разбора записей хранилища: TaskCsvParser по участкам общего буфера против прежнего разбора
+// через split(",") и valueOf. Печатает записи в секунду и выделенные байты на запись.
+// Запуск: java benchmarks.CsvParseBenchmark [число записей] [число замеров]
+public class CsvParseBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+
+    public static void main(String[] args) {
+        int recordsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String content = generate(recordsCount);
+        System.out.printf("records: %d, bytes: %d%n", recordsCount, content.length());
+        System.out.printf("%-8s %14s %14s%n", "parser", "records/s", "bytes/record");
+
+        TaskCsvParser parser = new TaskCsvParser();
+        measure("slices", recordsCount, iterations, () -> {
+            long checksum = 0;
+            for (int start = 0, end; start < content.length(); start = end + 1) {
+                end = content.indexOf('\n', start);
+                checksum += parser.parse(content, start, end).getId();
+            }
+            return checksum;
+        });
+        measure("split", recordsCount, iterations, () -> {
+            long checksum = 0;
+            for (int start = 0, end; start < content.length(); start = end + 1) {
+                end = content.indexOf('\n', start);
+                checksum += parseWithSplit(content.substring(start, end)).getId();
+            }
+            return checksum;
+        });
+    }
+
+    private static void measure(String name, int recordsCount, int iterations, Run run) {
+        long blackhole = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            blackhole += run.parseAll();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            blackhole += run.parseAll();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long records = (long) recordsCount * iterations;
+        System.out.printf("%-8s %14.0f %14.1f%s%n", name, records * 1e9 / elapsedNanos, (double) allocated / records,
+                blackhole == 42 ? " " : "");
+    }
+
+    // Эпики, подзадачи и задачи вперемешку; у половины записей задано время начала
+    private static String generate(int recordsCount) {
+        StringBuilder content = new StringBuilder(recordsCount * 80);
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 1;
+        for (int id = 1; id <= recordsCount; id++) {
+            TaskStatus status = TaskStatus.values()[id % TaskStatus.values().length];
+            LocalDateTime itemStart = id % 2 == 0 ? startTime.plusMinutes(10L * id) : null;
+            Task item;
+            if (id % 10 == 1) {
+                item = new Epic("Epic " + id, "Benchmark epic description " + id, status);
+                epicId = id;
+            } else if (id % 3 == 0) {
+                item = new Task("Task " + id, "Benchmark task description " + id, status, itemStart,
+                        Duration.ofMinutes(5));
+            } else {
+                item = new Subtask("Subtask " + id, "Benchmark subtask description " + id, status, epicId, itemStart,
+                        Duration.ofMinutes(5));
+            }
+            item.setId(id);
+            content.append(item).append('\n');
+        }
+        return content.toString();
+    }
+
+    // Прежний разбор записи - для сравнения
+    private static Task parseWithSplit(String line) {
+        String[] fields = line.trim().split(",");
+        int id = Integer.parseInt(fields[0]);
+        TaskType type = TaskType.valueOf(fields[1]);
+        TaskStatus status = fields[3].isEmpty() ? TaskStatus.NEW : TaskStatus.valueOf(fields[3]);
+        Duration duration = Duration.ZERO;
+        LocalDateTime startTime = null;
+        if (fields.length > 7) {
+            if (!fields[6].isBlank()) {
+                duration = Duration.ofMinutes(Long.parseLong(fields[6]));
+            }
+            if (!fields[7].isBlank()) {
+                startTime = LocalDateTime.parse(fields[7]);
+            }
+        }
+        Task item = switch (type) {
+            case TASK -> new Task(fields[2], fields[4], status, startTime, duration);
+            case EPIC -> new Epic(fields[2], fields[4], status);
+            case SUBTASK -> new Subtask(fields[2], fields[4], status, Integer.parseInt(fields[5]), startTime, duration);
+        };
+        item.setId(id);
+        return item;
+    }
+
+    private interface Run {
+        long parseAll();
+    }
+}
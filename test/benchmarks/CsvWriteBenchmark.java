@@ -0,0 +1,109 @@
+package benchmarks;
+
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import entities.TaskCsvWriter;
+import enums.TaskStatus;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Скорость подготовки записей к сохранению: TaskCsvWriter в переиспользуемый StringBuilder с одним кодированием
+// в UTF-8 на порцию против прежнего toString() (String.format) и getBytes на каждую запись.
+// Печатает записи в секунду и выделенные байты на запись.
+// Запуск: java benchmarks.CsvWriteBenchmark [число записей] [число замеров]
+public class CsvWriteBenchmark {
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int CHUNK_CHARS = 1 << 20;
+
+    public static void main(String[] args) {
+        int recordsCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        List<Task> items = generate(recordsCount);
+        System.out.printf("records: %d%n", recordsCount);
+        System.out.printf("%-8s %14s %14s%n", "writer", "records/s", "bytes/record");
+
+        StringBuilder chunk = new StringBuilder(CHUNK_CHARS + 1024);
+        byte[] encoded = new byte[3 * (CHUNK_CHARS + 1024)];
+        measure("builder", recordsCount, iterations, () -> {
+            long bytes = 0;
+            chunk.setLength(0);
+            for (Task item : items) {
+                TaskCsvWriter.append(chunk, item).append('\n');
+                if (chunk.length() >= CHUNK_CHARS) {
+                    bytes += encode(chunk, encoded);
+                    chunk.setLength(0);
+                }
+            }
+            return bytes + encode(chunk, encoded);
+        });
+        measure("format", recordsCount, iterations, () -> {
+            long bytes = 0;
+            for (Task item : items) {
+                bytes += (item + "\n").getBytes(StandardCharsets.UTF_8).length;
+            }
+            return bytes;
+        });
+    }
+
+    // Все записи генератора - ASCII
+    private static int encode(StringBuilder chunk, byte[] target) {
+        for (int i = 0; i < chunk.length(); i++) {
+            target[i] = (byte) chunk.charAt(i);
+        }
+        return chunk.length();
+    }
+
+    private static void measure(String name, int recordsCount, int iterations, Run run) {
+        long bytes = 0;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            bytes += run.writeAll();
+        }
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long allocatedBefore = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            bytes += run.writeAll();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        long allocated = threads.getCurrentThreadAllocatedBytes() - allocatedBefore;
+        long records = (long) recordsCount * iterations;
+        System.out.printf("%-8s %14.0f %14.1f (%d bytes)%n", name, records * 1e9 / elapsedNanos,
+                (double) allocated / records, bytes / (WARMUP_ITERATIONS + iterations));
+    }
+
+    // Эпики, подзадачи и задачи вперемешку; у половины записей задано время начала
+    private static List<Task> generate(int recordsCount) {
+        List<Task> items = new ArrayList<>(recordsCount);
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 1;
+        for (int id = 1; id <= recordsCount; id++) {
+            TaskStatus status = TaskStatus.values()[id % TaskStatus.values().length];
+            LocalDateTime itemStart = id % 2 == 0 ? startTime.plusMinutes(10L * id) : null;
+            Task item;
+            if (id % 10 == 1) {
+                item = new Epic("Epic " + id, "Benchmark epic description " + id, status);
+                epicId = id;
+            } else if (id % 3 == 0) {
+                item = new Task("Task " + id, "Benchmark task description " + id, status, itemStart,
+                        Duration.ofMinutes(5));
+            } else {
+                item = new Subtask("Subtask " + id, "Benchmark subtask description " + id, status, epicId, itemStart,
+                        Duration.ofMinutes(5));
+            }
+            item.setId(id);
+            items.add(item);
+        }
+        return items;
+    }
+
+    private interface Run {
+        long writeAll();
+    }
+}
@@ -0,0 +1,316 @@
+package benchmarks;
+
+import api.DurationAdapter;
+import api.LocalDateTimeAdapter;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import enums.TaskType;
+import interfaces.TaskManager;
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// Генератор синтетического набора задач, эпиков и подзадач для нагрузочных и длительных прогонов.
+// При одном и том же seed набор всегда одинаков. id выдаются подряд с 1, как их выдаёт менеджер,
+// а подзадачи идут сразу за своим эпиком - поэтому файл хранилища загружается с теми же id.
+// Число подзадач эпика распределено по Парето: у большинства эпиков их немного, у редких - сотни.
+// Интервалы выполнения идут друг за другом с промежутками и не пересекаются.
+// Запуск: java benchmarks.DatasetGenerator [target=file|http|memory] [out=tasks.csv] [url=http://localhost:8080]
+//         [items=1000000] [seed=42] [epics=0.1] [fanout=8] [skew=1.5] [maxFanout=1000]
+//         [statuses=NEW:50,IN_PROGRESS:30,DONE:20] [timed=0.7]
+public class DatasetGenerator {
+    private static final LocalDateTime FIRST_START_TIME = LocalDateTime.of(2024, 1, 1, 0, 0);
+    private static final int BATCH_SIZE = 1_000;
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    // Слова без запятых и переводов строк - формат хранилища их не экранирует
+    private static final String[] WORDS = {"release", "backend", "client", "review", "deploy", "migration", "report",
+            "design", "testing", "support", "billing", "search", "cache", "storage", "metrics", "security"};
+
+    private final long seed;
+    private final int itemsCount;
+    private final double epicsShare;
+    private final double fanOutMean;
+    private final double fanOutSkew;
+    private final int maxFanOut;
+    private final int[] statusWeights;
+    private final double timedShare;
+
+    public DatasetGenerator(long seed, int itemsCount, double epicsShare, double fanOutMean, double fanOutSkew,
+                            int maxFanOut, int[] statusWeights, double timedShare) {
+        if (fanOutSkew <= 1) {
+            throw new IllegalArgumentException("Fan-out skew must be greater than 1 for a finite mean");
+        }
+        if (statusWeights.length != TaskStatus.values().length) {
+            throw new IllegalArgumentException("Status weights must be set for every status");
+        }
+        this.seed = seed;
+        this.itemsCount = itemsCount;
+        this.epicsShare = epicsShare;
+        this.fanOutMean = fanOutMean;
+        this.fanOutSkew = fanOutSkew;
+        this.maxFanOut = maxFanOut;
+        this.statusWeights = statusWeights;
+        this.timedShare = timedShare;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+        }
+        DatasetGenerator generator = new DatasetGenerator(
+                Long.parseLong(options.getOrDefault("seed", "42")),
+                Integer.parseInt(options.getOrDefault("items", "1000000")),
+                Double.parseDouble(options.getOrDefault("epics", "0.1")),
+                Double.parseDouble(options.getOrDefault("fanout", "8")),
+                Double.parseDouble(options.getOrDefault("skew", "1.5")),
+                Integer.parseInt(options.getOrDefault("maxFanout", "1000")),
+                parseStatusWeights(options.getOrDefault("statuses", "NEW:50,IN_PROGRESS:30,DONE:20")),
+                Double.parseDouble(options.getOrDefault("timed", "0.7")));
+
+        long start = System.nanoTime();
+        String target = options.getOrDefault("target", "file");
+        switch (target) {
+            case "file" -> {
+                Path storageFile = Path.of(options.getOrDefault("out", "tasks.csv"));
+                generator.writeStorageFile(storageFile);
+                System.out.printf("Written %d bytes to %s%n", Files.size(storageFile), storageFile);
+            }
+            case "http" -> {
+                int failed = generator.populateOverHttp(HttpClient.newHttpClient(),
+                        URI.create(options.getOrDefault("url", "http://localhost:8080")));
+                System.out.printf("Operations failed: %d%n", failed);
+            }
+            case "memory" -> {
+                InMemoryTaskManager manager = new InMemoryTaskManager();
+                generator.populate(manager);
+                System.out.printf("Populated in-memory manager with %d epics, %d subtasks, %d tasks%n",
+                        manager.getEpics().size(), manager.getSubtasks().size(), manager.getTasks().size());
+            }
+            default -> throw new IllegalArgumentException("Unknown target " + target);
+        }
+        System.out.printf("%d items generated in %d ms%n", generator.itemsCount,
+                Duration.ofNanos(System.nanoTime() - start).toMillis());
+    }
+
+    // Передаёт сущности набора по порядку id: каждый эпик - перед своими подзадачами, уже с итоговым статусом
+    public void generate(Consumer<Task> sink) {
+        SplittableRandom random = new SplittableRandom(seed);
+        LocalDateTime nextStartTime = FIRST_START_TIME;
+        List<Subtask> epicSubtasks = new ArrayList<>();
+        int id = 0;
+        while (id < itemsCount) {
+            if (random.nextDouble() >= epicsShare) {
+                Task task = new Task("Task " + (id + 1), description(random), nextStatus(random));
+                nextStartTime = schedule(task, nextStartTime, random);
+                task.setId(++id);
+                sink.accept(task);
+                continue;
+            }
+
+            Epic epic = new Epic("Epic " + (id + 1), description(random), TaskStatus.NEW);
+            epic.setId(++id);
+            int subtasksCount = Math.min(nextFanOut(random), itemsCount - id);
+            epicSubtasks.clear();
+            for (int i = 0; i < subtasksCount; i++) {
+                Subtask subtask = new Subtask("Subtask " + (id + 1), description(random), nextStatus(random),
+                        epic.getId());
+                nextStartTime = schedule(subtask, nextStartTime, random);
+                subtask.setId(++id);
+                epicSubtasks.add(subtask);
+            }
+            epic.setStatus(epicStatus(epicSubtasks));
+            sink.accept(epic);
+            epicSubtasks.forEach(sink);
+        }
+    }
+
+    // Пишет файл хранилища FileBackedTaskManager напрямую, без менеджера и его индексов
+    public void writeStorageFile(Path storageFile) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(
+                Files.newOutputStream(storageFile), StandardCharsets.UTF_8), WRITE_BUFFER_SIZE)) {
+            writer.write(FileBackedTaskManager.CSV_HEADER);
+            writer.write('\n');
+            generate(item -> {
+                try {
+                    writer.write(item.toString());
+                    writer.write('\n');
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    // Наполняет работающий менеджер одной транзакцией. Менеджер может быть не пуст,
+    // поэтому подзадачи привязываются к id, выданному менеджером их эпику
+    public void populate(TaskManager manager) {
+        int[] currentEpicId = new int[1];
+        manager.runInTransaction(() -> generate(item -> {
+            switch (item.getType()) {
+                case TASK -> manager.createTask(item);
+                case EPIC -> currentEpicId[0] = manager.createEpic((Epic) item);
+                case SUBTASK -> {
+                    Subtask subtask = (Subtask) item;
+                    subtask.setEpicId(currentEpicId[0]);
+                    manager.createSubtask(subtask);
+                }
+            }
+        }));
+    }
+
+    // Наполняет сервер через POST /batch. Эпик и его подзадачи всегда попадают в один пакет,
+    // чтобы подзадачи могли сослаться на эпик меткой. Возвращает число неуспешных операций
+    public int populateOverHttp(HttpClient client, URI baseUrl) throws IOException, InterruptedException {
+        Gson gson = new GsonBuilder()
+                .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapter(Duration.class, new DurationAdapter())
+                .create();
+        URI batchUrl = baseUrl.resolve("/batch");
+        List<JsonObject> batch = new ArrayList<>(BATCH_SIZE);
+        int[] failed = new int[1];
+        try {
+            generate(item -> {
+                if (item.getType() != TaskType.SUBTASK && batch.size() >= BATCH_SIZE) {
+                    failed[0] += sendBatch(client, batchUrl, gson, batch);
+                }
+                JsonObject operation = new JsonObject();
+                operation.addProperty("op", "create");
+                operation.addProperty("type", item.getType().name());
+                switch (item.getType()) {
+                    case EPIC -> operation.addProperty("ref", "epic-" + item.getId());
+                    case SUBTASK -> operation.addProperty("epicRef", "epic-" + ((Subtask) item).getEpicId());
+                    case TASK -> {
+                    }
+                }
+                operation.add("item", gson.toJsonTree(item));
+                batch.add(operation);
+            });
+            failed[0] += sendBatch(client, batchUrl, gson, batch);
+        } catch (UncheckedIOException ex) {
+            if (ex.getCause() instanceof InterruptedIOException interrupted) {
+                throw new InterruptedException(interrupted.getMessage());
+            }
+            throw ex.getCause();
+        }
+        return failed[0];
+    }
+
+    // Отправляет накопленный пакет и очищает его; ошибки передачи прерывают наполнение
+    private static int sendBatch(HttpClient client, URI batchUrl, Gson gson, List<JsonObject> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(batchUrl)
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch)))
+                .build();
+        batch.clear();
+        HttpResponse<String> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new InterruptedIOException("Population over HTTP interrupted"));
+        }
+        if (response.statusCode() != 200) {
+            throw new UncheckedIOException(new IOException(
+                    "Batch rejected with status " + response.statusCode() + ": " + response.body()));
+        }
+        int failed = 0;
+        for (JsonElement result : gson.fromJson(response.body(), JsonArray.class)) {
+            if (result.getAsJsonObject().get("status").getAsInt() >= 300) {
+                failed++;
+            }
+        }
+        return failed;
+    }
+
+    // Назначает интервал выполнения с долей timedShare; возвращает начало, с которого можно планировать следующий
+    private LocalDateTime schedule(Task item, LocalDateTime nextStartTime, SplittableRandom random) {
+        if (random.nextDouble() >= timedShare) {
+            return nextStartTime;
+        }
+        Duration duration = Duration.ofMinutes(15L * random.nextInt(1, 17));
+        item.setStartTime(nextStartTime);
+        item.setDuration(duration);
+        return nextStartTime.plus(duration).plusMinutes(15L * random.nextInt(0, 5));
+    }
+
+    // Дискретное распределение Парето с заданным средним и ограничением сверху
+    private int nextFanOut(SplittableRandom random) {
+        double scale = fanOutMean * (fanOutSkew - 1);
+        double fanOut = scale * (Math.pow(1 - random.nextDouble(), -1 / fanOutSkew) - 1);
+        return (int) Math.min(maxFanOut, fanOut);
+    }
+
+    private TaskStatus nextStatus(SplittableRandom random) {
+        int totalWeight = 0;
+        for (int weight : statusWeights) {
+            totalWeight += weight;
+        }
+        int point = random.nextInt(totalWeight);
+        for (TaskStatus status : TaskStatus.values()) {
+            point -= statusWeights[status.ordinal()];
+            if (point < 0) {
+                return status;
+            }
+        }
+        return TaskStatus.NEW;
+    }
+
+    private static String description(SplittableRandom random) {
+        return WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+    }
+
+    // Правила те же, что у Epic.calcEpicStatus
+    private static TaskStatus epicStatus(List<Subtask> subtasks) {
+        boolean allNew = subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW);
+        boolean allDone = subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE);
+        if (allNew) {
+            return TaskStatus.NEW;
+        }
+        return allDone ? TaskStatus.DONE : TaskStatus.IN_PROGRESS;
+    }
+
+    private static int[] parseStatusWeights(String statuses) {
+        int[] weights = new int[TaskStatus.values().length];
+        for (String entry : statuses.split(",")) {
+            String[] parts = entry.split(":");
+            weights[TaskStatus.valueOf(parts[0]).ordinal()] = Integer.parseInt(parts[1]);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,292 @@
+package benchmarks;
+
+import api.HttpTaskServer;
+import com.google.gson.Gson;
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.TaskStatus;
+import interfaces.TaskManager;
+import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import metrics.LatencyHistogram;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Нагрузочный тест HttpTaskServer: клиент java.net.http на виртуальных потоках, смесь операций по весам.
+// Открытая модель (mode=open) отправляет запросы по расписанию с частотой rate независимо от ответов.
+// Закрытая модель (mode=closed) гоняет concurrency клиентов подряд, при rate > 0 - с темпом rate на всех.
+// Время ответа считается от запланированного момента отправки, а не от фактического: если сервер или клиент
+// отстаёт от расписания, ожидание в очереди тоже попадает в перцентили (поправка на coordinated omission).
+// Отдельно печатается время обслуживания - от фактической отправки до ответа. Статус -1 - ошибка соединения.
+// Запуск: java benchmarks.HttpLoadBenchmark [manager=memory|file] [mode=open|closed] [rate=2000] [concurrency=32]
+//         [duration=30] [warmup=5] [preload=10000] [mix=GET:/tasks:25,POST:/tasks:10,DELETE:/tasks:5,...]
+public class HttpLoadBenchmark {
+    private static final String BASE_URL = "http://localhost:8080";
+    private static final String DEFAULT_MIX = "GET:/tasks:20,GET:/subtasks:15,GET:/epics:10,GET:/history:10,"
+            + "GET:/prioritized:15,POST:/tasks:10,POST:/subtasks:8,POST:/epics:2,DELETE:/tasks:10";
+    private static final int SUBTASKS_PER_EPIC = 10;
+
+    private final Map<String, String> options;
+    private final List<Operation> mix;
+    private final int totalWeight;
+    private final HttpClient client;
+    private final Gson gson;
+    private final List<Integer> epicIds = new ArrayList<>();
+    private final List<Integer> deletableTaskIds = new ArrayList<>();
+    // Задачи из deletableTaskIds удаляются по очереди, после них DELETE получает 404
+    private final AtomicInteger deleteCursor = new AtomicInteger();
+
+    private HttpLoadBenchmark(Map<String, String> options, HttpClient client, Gson gson) {
+        this.options = options;
+        this.client = client;
+        this.gson = gson;
+        this.mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+        this.totalWeight = mix.stream().mapToInt(operation -> operation.weight).sum();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            String[] keyValue = arg.split("=", 2);
+            options.put(keyValue[0], keyValue.length > 1 ? keyValue[1] : "");
+        }
+        String managerType = options.getOrDefault("manager", "memory");
+        TaskManager manager;
+        if (managerType.equals("file")) {
+            File storageFile = File.createTempFile("load_task_manager_data", ".csv");
+            storageFile.deleteOnExit();
+            manager = FileBackedTaskManager.loadFromFile(storageFile);
+        } else {
+            manager = new InMemoryTaskManager();
+        }
+
+        try (ExecutorService clientExecutor = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .build();
+            HttpTaskServer server = new HttpTaskServer(manager, HttpTaskServer.DEFAULT_COMPRESSION_THRESHOLD);
+            HttpLoadBenchmark benchmark = new HttpLoadBenchmark(options, client, server.getGson());
+            benchmark.populate(manager, intOption(options, "preload", 10_000));
+            server.start();
+            try {
+                benchmark.run(managerType);
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    // Наполнение до старта сервера, одной транзакцией - файловое хранилище записывается один раз
+    private void populate(TaskManager manager, int itemsCount) {
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        manager.runInTransaction(() -> {
+            int epicId = 0;
+            for (int i = 0; i < itemsCount; i++) {
+                if (i % SUBTASKS_PER_EPIC == 0) {
+                    epicId = manager.createEpic(new Epic("Epic " + i, "Load epic " + i, TaskStatus.NEW));
+                    epicIds.add(epicId);
+                }
+                TaskStatus status = TaskStatus.values()[i % TaskStatus.values().length];
+                manager.createSubtask(new Subtask("Subtask " + i, "Load subtask " + i, status, epicId,
+                        startTime.plusMinutes(10L * i), Duration.ofMinutes(5)));
+                deletableTaskIds.add(manager.createTask(new Task("Task " + i, "Load task " + i, status)));
+            }
+        });
+    }
+
+    private void run(String managerType) {
+        String mode = options.getOrDefault("mode", "open");
+        int rate = intOption(options, "rate", 2_000);
+        int concurrency = intOption(options, "concurrency", 32);
+        Duration warmup = Duration.ofSeconds(intOption(options, "warmup", 5));
+        Duration duration = Duration.ofSeconds(intOption(options, "duration", 30));
+
+        System.out.printf("manager=%s mode=%s rate=%d/s concurrency=%d duration=%ds%n",
+                managerType, mode, rate, concurrency, duration.toSeconds());
+        if (mode.equals("closed") && rate <= 0) {
+            System.out.println("Closed loop without rate: latency is service time only, no omission correction");
+        }
+        runPhase(mode, rate, concurrency, warmup);
+        Map<String, OperationStats> stats = runPhase(mode, rate, concurrency, duration);
+        report(stats, duration);
+    }
+
+    private Map<String, OperationStats> runPhase(String mode, int rate, int concurrency, Duration duration) {
+        Map<String, OperationStats> stats = new ConcurrentHashMap<>();
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            if (mode.equals("closed")) {
+                // Каждый клиент держит свою долю общего темпа; без темпа запросы идут вплотную
+                long interval = rate > 0 ? 1_000_000_000L * concurrency / rate : 0;
+                for (int i = 0; i < concurrency; i++) {
+                    long offset = interval * i / concurrency;
+                    executor.execute(() -> {
+                        long intendedStart = start + offset;
+                        while (intendedStart < end) {
+                            if (interval > 0) {
+                                waitUntil(intendedStart);
+                            } else {
+                                intendedStart = System.nanoTime();
+                            }
+                            execute(nextOperation(), intendedStart, stats);
+                            intendedStart += interval;
+                        }
+                    });
+                }
+            } else {
+                long interval = 1_000_000_000L / Math.max(1, rate);
+                for (long intendedStart = start; intendedStart < end; intendedStart += interval) {
+                    waitUntil(intendedStart);
+                    long scheduled = intendedStart;
+                    executor.execute(() -> execute(nextOperation(), scheduled, stats));
+                }
+            }
+        }
+        return stats;
+    }
+
+    private void execute(Operation operation, long intendedStart, Map<String, OperationStats> stats) {
+        OperationStats operationStats = stats.computeIfAbsent(operation.name(), key -> new OperationStats());
+        long sendStart = System.nanoTime();
+        int status;
+        try {
+            HttpResponse<Void> response = client.send(buildRequest(operation),
+                    HttpResponse.BodyHandlers.discarding());
+            status = response.statusCode();
+        } catch (IOException ex) {
+            status = -1;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long now = System.nanoTime();
+        operationStats.responseTimes.record(now - intendedStart);
+        operationStats.serviceTimes.record(now - sendStart);
+        operationStats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+    }
+
+    private HttpRequest buildRequest(Operation operation) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        HttpRequest.Builder builder = HttpRequest.newBuilder();
+        String path = operation.path;
+        switch (operation.method) {
+            case "POST" -> {
+                Task item = switch (path) {
+                    case "/subtasks" -> new Subtask("Load subtask", "Created by load test", TaskStatus.NEW,
+                            epicIds.get(random.nextInt(epicIds.size())));
+                    case "/epics" -> new Epic("Load epic", "Created by load test", TaskStatus.NEW);
+                    default -> new Task("Load task", "Created by load test", TaskStatus.NEW);
+                };
+                builder.POST(HttpRequest.BodyPublishers.ofString(gson.toJson(item)));
+            }
+            case "DELETE" -> {
+                int index = deleteCursor.getAndIncrement();
+                int id = index < deletableTaskIds.size() ? deletableTaskIds.get(index) : Integer.MAX_VALUE;
+                path = path + "/" + id;
+                builder.DELETE();
+            }
+            default -> builder.GET();
+        }
+        return builder.uri(URI.create(BASE_URL + path)).build();
+    }
+
+    private Operation nextOperation() {
+        int point = ThreadLocalRandom.current().nextInt(totalWeight);
+        for (Operation operation : mix) {
+            point -= operation.weight;
+            if (point < 0) {
+                return operation;
+            }
+        }
+        return mix.getLast();
+    }
+
+    private static void report(Map<String, OperationStats> stats, Duration duration) {
+        System.out.printf("%-18s %9s %9s %9s %9s %9s %10s %10s %12s  %s%n", "operation", "count", "req/s",
+                "p50, ms", "p90, ms", "p99, ms", "p99.9, ms", "max, ms", "svc p99, ms", "statuses");
+        for (Map.Entry<String, OperationStats> entry : new TreeMap<>(stats).entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            LatencyHistogram responseTimes = operationStats.responseTimes;
+            System.out.printf("%-18s %9d %9.1f %9.2f %9.2f %9.2f %10.2f %10.2f %12.2f  %s%n", entry.getKey(),
+                    responseTimes.getCount(), responseTimes.getCount() / (double) duration.toSeconds(),
+                    millis(responseTimes.getPercentile(0.5)), millis(responseTimes.getPercentile(0.9)),
+                    millis(responseTimes.getPercentile(0.99)), millis(responseTimes.getPercentile(0.999)),
+                    millis(responseTimes.getMax()), millis(operationStats.serviceTimes.getPercentile(0.99)),
+                    new TreeMap<>(operationStats.statuses));
+        }
+        long requests = stats.values().stream().mapToLong(value -> value.responseTimes.getCount()).sum();
+        System.out.printf("total: %d requests, %.1f req/s%n", requests, requests / (double) duration.toSeconds());
+    }
+
+    // Точное ожидание момента отправки: засыпание короткими отрезками без накопления погрешности
+    private static void waitUntil(long nanoTime) {
+        long remaining;
+        while ((remaining = nanoTime - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private static List<Operation> parseMix(String mix) {
+        List<Operation> operations = new ArrayList<>();
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Mix entry must be METHOD:/path:weight, got " + entry);
+            }
+            operations.add(new Operation(parts[0].toUpperCase(), parts[1], Integer.parseInt(parts[2])));
+        }
+        return operations;
+    }
+
+    private static int intOption(Map<String, String> options, String name, int defaultValue) {
+        return options.containsKey(name) ? Integer.parseInt(options.get(name)) : defaultValue;
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static class Operation {
+        private final String method;
+        private final String path;
+        private final int weight;
+
+        private Operation(String method, String path, int weight) {
+            this.method = method;
+            this.path = path;
+            this.weight = weight;
+        }
+
+        private String name() {
+            return method + " " + path;
+        }
+    }
+
+    private static class OperationStats {
+        private final LatencyHistogram responseTimes = new LatencyHistogram();
+        private final LatencyHistogram serviceTimes = new LatencyHistogram();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    }
+}
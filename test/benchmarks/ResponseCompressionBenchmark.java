@@ -0,0 +1,94 @@
+package benchmarks;
+
+import api.HttpTaskServer;
+import entities.Epic;
+import entities.Subtask;
+import enums.TaskStatus;
+import managers.InMemoryTaskManager;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+// Размер ответа и время получения списков /subtasks и /prioritized со сжатием и без при разных размерах хранилища.
+// Запуск: java benchmarks.ResponseCompressionBenchmark [размеры через запятую] [число замеров]
+public class ResponseCompressionBenchmark {
+    private static final String BASE_URL = "http://localhost:8080";
+    private static final String[] ENDPOINTS = {"/subtasks", "/prioritized"};
+    private static final int SUBTASKS_PER_EPIC = 10;
+    private static final int WARMUP_ITERATIONS = 5;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int[] storeSizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{1_000, 10_000, 30_000};
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        HttpClient client = HttpClient.newHttpClient();
+        System.out.printf("%-10s %-13s %-9s %14s %10s %10s%n",
+                "subtasks", "endpoint", "encoding", "bytes", "p50, ms", "p90, ms");
+        for (int storeSize : storeSizes) {
+            HttpTaskServer server = new HttpTaskServer(populate(storeSize), HttpTaskServer.DEFAULT_COMPRESSION_THRESHOLD);
+            server.start();
+            try {
+                for (String endpoint : ENDPOINTS) {
+                    for (String encoding : new String[]{"identity", "gzip"}) {
+                        measure(client, storeSize, endpoint, encoding, iterations);
+                    }
+                }
+            } finally {
+                server.stop();
+            }
+        }
+    }
+
+    // Подзадачи идут друг за другом без пересечений, по SUBTASKS_PER_EPIC на эпик
+    private static InMemoryTaskManager populate(int subtasksCount) {
+        InMemoryTaskManager manager = new InMemoryTaskManager();
+        LocalDateTime startTime = LocalDateTime.of(2024, 1, 1, 9, 0);
+        int epicId = 0;
+        for (int i = 0; i < subtasksCount; i++) {
+            if (i % SUBTASKS_PER_EPIC == 0) {
+                epicId = manager.createEpic(new Epic("Epic " + i, "Benchmark epic " + i, TaskStatus.NEW));
+            }
+            TaskStatus status = TaskStatus.values()[i % TaskStatus.values().length];
+            manager.createSubtask(new Subtask("Subtask " + i, "Benchmark subtask description " + i, status, epicId,
+                    startTime.plusMinutes(10L * i), Duration.ofMinutes(5)));
+        }
+        return manager;
+    }
+
+    private static void measure(HttpClient client, int storeSize, String endpoint, String encoding, int iterations)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + endpoint))
+                .header("Accept-Encoding", encoding)
+                .GET()
+                .build();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        }
+
+        long[] latencies = new long[iterations];
+        long bytes = 0;
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+            latencies[i] = System.nanoTime() - start;
+            bytes = response.body().length;
+        }
+        Arrays.sort(latencies);
+        System.out.printf("%-10d %-13s %-9s %14d %10.2f %10.2f%n", storeSize, endpoint, encoding, bytes,
+                percentile(latencies, 0.5) / 1e6, percentile(latencies, 0.9) / 1e6);
+    }
+
+    private static long percentile(long[] sortedValues, double quantile) {
+        int index = (int) Math.ceil(quantile * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, index)];
+    }
+}
@@ -0,0 +1,80 @@
+package entities;
+
+import enums.TaskStatus;
+import exceptions.TaskStringParseException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskCsvParserTest {
+    private final TaskCsvParser parser = new TaskCsvParser();
+
+    // Запятые, кавычки, переводы строк и обратная косая черта в полях переживают запись и разбор
+    @Test
+    void shouldParseQuotedFields() {
+        Task task = new Task("Купить молоко, хлеб", "Сказать \"да\"\nи уйти \\ 🙂", TaskStatus.IN_PROGRESS,
+                LocalDateTime.of(2024, 1, 1, 9, 0), Duration.ofMinutes(30));
+        task.setId(7);
+        String line = task.toString();
+        assertFalse(line.contains("\n"), "Запись должна занимать одну строку");
+
+        Task parsedTask = parser.parse(line);
+        assertEquals(7, parsedTask.getId(), "Id задачи не совпадает");
+        assertEquals(task.getTitle(), parsedTask.getTitle(), "Название с запятой не совпадает");
+        assertEquals(task.getDescription(), parsedTask.getDescription(), "Описание с кавычками не совпадает");
+        assertEquals(TaskStatus.IN_PROGRESS, parsedTask.getStatus(), "Статус не совпадает");
+        assertEquals(task.getStartTime(), parsedTask.getStartTime(), "Время начала не совпадает");
+        assertEquals(task.getDuration(), parsedTask.getDuration(), "Длительность не совпадает");
+    }
+
+    // Запись разбирается из участка буфера, без выделения строки под неё
+    @Test
+    void shouldParseSubtaskFromSlice() {
+        String buffer = "header\n3,SUBTASK,Subtask 1,DONE,Subtask Description,2,45,2024-02-03T10:15:30.5\nnext";
+        int start = buffer.indexOf('\n') + 1;
+        Task item = parser.parse(buffer, start, buffer.lastIndexOf('\n'));
+
+        Subtask subtask = assertInstanceOf(Subtask.class, item, "Ожидалась подзадача");
+        assertEquals(3, subtask.getId(), "Id подзадачи не совпадает");
+        assertEquals(2, subtask.getEpicId(), "Id эпика не совпадает");
+        assertEquals(Duration.ofMinutes(45), subtask.getDuration(), "Длительность не совпадает");
+        assertEquals(LocalDateTime.of(2024, 2, 3, 10, 15, 30, 500_000_000), subtask.getStartTime(),
+                "Время начала с долями секунды не совпадает");
+    }
+
+    // Записи прежнего формата: эпик без таймингов, пустой статус, длительность без времени начала
+    @Test
+    void shouldParseLegacyRecords() {
+        Task epic = parser.parse("1,EPIC,Epic 1,DONE,Epic Description,,0,");
+        assertInstanceOf(Epic.class, epic, "Ожидался эпик");
+        assertEquals(TaskStatus.DONE, epic.getStatus(), "Статус эпика не совпадает");
+
+        Task task = parser.parse("2,TASK,Task 1,,Task Description,,30,\r");
+        assertEquals(TaskStatus.NEW, task.getStatus(), "Пустой статус должен читаться как NEW");
+        assertEquals(Duration.ofMinutes(30), task.getDuration(), "Длительность без времени начала потеряна");
+        assertNull(task.getStartTime(), "Время начала не задавалось");
+
+        Task shortTask = parser.parse("3,TASK,Task 2,NEW,Task Description");
+        assertEquals(Duration.ZERO, shortTask.getDuration(), "Без таймингов длительность нулевая");
+    }
+
+    @Test
+    void shouldRejectMalformedRecords() {
+        assertThrows(TaskStringParseException.class, () -> parser.parse("1,TASK,Task 1"),
+                "Запись без описания некорректна");
+        assertThrows(TaskStringParseException.class, () -> parser.parse("x,TASK,Task 1,NEW,Description"),
+                "Некорректный id должен отклоняться");
+        assertThrows(TaskStringParseException.class, () -> parser.parse("1,STORY,Task 1,NEW,Description"),
+                "Неизвестный тип должен отклоняться");
+        assertThrows(TaskStringParseException.class, () -> parser.parse("1,TASK,Task 1,OPEN,Description"),
+                "Неизвестный статус должен отклоняться");
+        assertThrows(TaskStringParseException.class, () -> parser.parse("1,TASK,\"Task 1,NEW,Description"),
+                "Незакрытая кавычка должна отклоняться");
+        assertThrows(TaskStringParseException.class,
+                () -> parser.parse("1,TASK,Task 1,NEW,Description,,30,2024-13-01T09:00"),
+                "Некорректное время начала должно отклоняться");
+    }
+}
@@ -0,0 +1,51 @@
+package entities;
+
+import enums.TaskStatus;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TaskCsvWriterTest {
+    // Запись в хранилище должна побайтно совпадать с toString при любых таймингах и содержимом полей
+    @Test
+    void shouldWriteSameRecordsAsToString() {
+        List<LocalDateTime> startTimes = List.of(
+                LocalDateTime.of(2024, 1, 1, 9, 0),
+                LocalDateTime.of(2024, 12, 31, 23, 59, 1),
+                LocalDateTime.of(2024, 6, 15, 0, 0, 0, 120_000_000),
+                LocalDateTime.of(2024, 6, 15, 0, 0, 5, 120_500_000),
+                LocalDateTime.of(2024, 6, 15, 0, 0, 0, 1),
+                LocalDateTime.of(987, 3, 4, 5, 6),
+                LocalDateTime.of(12_345, 3, 4, 5, 6),
+                LocalDateTime.of(-45, 3, 4, 5, 6));
+        StringBuilder record = new StringBuilder();
+        int id = 1;
+        for (LocalDateTime startTime : startTimes) {
+            Task task = new Task("Task, \"1\"", "Описание\nзадачи \\ 🙂", TaskStatus.DONE, startTime,
+                    Duration.ofMinutes(90));
+            task.setId(id++);
+            Subtask subtask = new Subtask("Subtask", "Subtask Description", TaskStatus.IN_PROGRESS, 3, startTime,
+                    Duration.ofMinutes(15));
+            subtask.setId(id++);
+            for (Task item : List.of(task, subtask)) {
+                record.setLength(0);
+                assertEquals(item.toString(), TaskCsvWriter.append(record, item).toString(),
+                        "Запись не совпадает с toString");
+            }
+        }
+
+        Task taskWithoutStart = new Task("Task", null, TaskStatus.NEW);
+        taskWithoutStart.setId(100);
+        Epic epic = new Epic("Epic, 1", "Epic Description", TaskStatus.NEW);
+        epic.setId(101);
+        for (Task item : List.of(taskWithoutStart, epic)) {
+            record.setLength(0);
+            assertEquals(item.toString(), TaskCsvWriter.append(record, item).toString(),
+                    "Запись не совпадает с toString");
+        }
+    }
+}
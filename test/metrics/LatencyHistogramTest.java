@@ -0,0 +1,46 @@
+package metrics;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    // Каждое значение попадает в корзину, границы которой его содержат
+    @Test
+    void shouldPlaceValuesIntoCoveringBuckets() {
+        long[] values = {0, 1, 31, 32, 33, 63, 64, 1_000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(LatencyHistogram.bucketUpperBound(index) >= value,
+                    "Верхняя граница корзины меньше значения " + value);
+            assertTrue(index == 0 || LatencyHistogram.bucketUpperBound(index - 1) < value,
+                    "Значение " + value + " должно попадать в первую подходящую корзину");
+        }
+    }
+
+    // Процентили равномерного распределения совпадают с точными с погрешностью не больше 1/32
+    @Test
+    void shouldCalculatePercentilesWithBoundedError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1_000);
+        }
+
+        assertEquals(100_000, histogram.getCount(), "Некорректное количество записей");
+        assertEquals(100_000_000, histogram.getMax(), "Некорректный максимум");
+        double[][] quantilesToExpected = {{0.5, 50_000_000}, {0.99, 99_000_000}, {0.999, 99_900_000}};
+        for (double[] quantileToExpected : quantilesToExpected) {
+            long percentile = histogram.getPercentile(quantileToExpected[0]);
+            double error = Math.abs(percentile - quantileToExpected[1]) / quantileToExpected[1];
+            assertTrue(error <= 1.0 / 32, String.format("Погрешность процентиля %.3f: %.4f",
+                    quantileToExpected[0], error));
+        }
+    }
+
+    @Test
+    void shouldReturnZeroPercentileIfEmpty() {
+        assertEquals(0, new LatencyHistogram().getPercentile(0.99), "У пустой гистограммы процентиль равен нулю");
+    }
+}
@@ -1,13 +1,27 @@
 package utilities;
 
+import entities.Epic;
+import entities.Subtask;
+import entities.Task;
+import enums.StorageType;
+import enums.TaskStatus;
+import exceptions.NotFoundException;
 import interfaces.TaskManager;
 import managers.FileBackedTaskManager;
+import managers.InMemoryTaskManager;
+import managers.InstrumentedTaskManager;
+import managers.MappedFileTaskManager;
+import metrics.OperationStatsSnapshot;
 import org.junit.jupiter.api.Test;
 
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -36,4 +50,52 @@ public class ManagersTest {
                 "Новый FileBackedTaskManager должен содержать пустой список эпиков для пустого файла");
     }
 
+    // Проверка, что обёртка считает вызовы, ошибки и длительности любой реализации менеджера
+    @Test
+    void instrumentedManagerShouldCollectOperationStats() {
+        InstrumentedTaskManager manager = Managers.getInstrumented(new InMemoryTaskManager());
+        int epicId = manager.createEpic(new Epic("Epic 1", "Epic 1 Description", TaskStatus.NEW));
+        for (int i = 0; i < 10; i++) {
+            manager.createSubtask(new Subtask("Subtask " + i, "Subtask Description", TaskStatus.NEW, epicId,
+                    LocalDateTime.of(2024, 1, 1, 9, 0).plusHours(i), Duration.ofMinutes(30)));
+        }
+        manager.getEpicSubtasks(epicId);
+        manager.getPrioritizedTasks();
+        manager.getHistory();
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        manager.getTaskById(taskId);
+        assertThrows(NotFoundException.class, () -> manager.getTaskById(1000));
+
+        Map<String, OperationStatsSnapshot> stats = manager.getOperationsSnapshot();
+        assertTrue(stats.keySet().containsAll(
+                        List.of("createSubtask", "getEpicSubtasks", "getPrioritizedTasks", "getHistory")),
+                "Срез должен содержать все вызывавшиеся операции");
+        OperationStatsSnapshot createSubtask = stats.get("createSubtask");
+        assertEquals(10, createSubtask.getCalls(), "Некорректное число вызовов createSubtask");
+        assertEquals(0, createSubtask.getErrors(), "У createSubtask не должно быть ошибок");
+        assertTrue(createSubtask.getMaxNanos() > 0, "Длительность вызовов должна замеряться");
+        assertTrue(createSubtask.getP50Nanos() <= createSubtask.getP99Nanos(), "Перцентили должны быть упорядочены");
+
+        OperationStatsSnapshot getTaskById = stats.get("getTaskById");
+        assertEquals(2, getTaskById.getCalls(), "Неудачный вызов тоже должен учитываться");
+        assertEquals(1, getTaskById.getErrors(), "Исключение должно учитываться как ошибка");
+    }
+
+    // Проверка, что хранилище менеджера выбирается по типу и переживает пересоздание менеджера
+    @Test
+    void persistentManagerShouldUseSelectedStorage() throws IOException {
+        File slotsFile = File.createTempFile("test_task_manager_data", ".slots");
+        slotsFile.deleteOnExit();
+        new File(slotsFile.getPath() + ".heap").deleteOnExit();
+
+        TaskManager manager = Managers.getPersistent(StorageType.MAPPED, slotsFile.getPath());
+        assertInstanceOf(MappedFileTaskManager.class, manager, "Менеджер должен работать поверх файла слотов");
+        int taskId = manager.createTask(new Task("Task 1", "Task 1 Description", TaskStatus.NEW));
+        ((MappedFileTaskManager) manager).close();
+
+        try (MappedFileTaskManager loadedManager =
+                     (MappedFileTaskManager) Managers.getPersistent(StorageType.MAPPED, slotsFile.getPath())) {
+            assertEquals("Task 1", loadedManager.getTaskById(taskId).getTitle(), "Задача должна восстанавливаться");
+        }
+    }
 }
@@ -0,0 +1,62 @@
+package utilities;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentSortedMapTest {
+
+    // Случайные вставки, замены и удаления дают то же, что TreeMap, а запомненные версии карты не меняются
+    @Test
+    void shouldMatchTreeMapAndKeepOldVersions() {
+        Random random = new Random(42);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty();
+        List<PersistentSortedMap<Integer, String>> versions = new ArrayList<>();
+        List<List<String>> versionsValues = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+            if (i % 500 == 0) {
+                versions.add(map);
+                versionsValues.add(new ArrayList<>(expected.values()));
+            }
+            assertEquals(expected.get(key), map.get(key), "Значение по ключу не совпадает");
+            assertEquals(expected.containsKey(key), map.containsKey(key), "Наличие ключа не совпадает");
+        }
+
+        assertEquals(expected.size(), map.size(), "Размер карты не совпадает");
+        assertEquals(new ArrayList<>(expected.values()), map.values(), "Значения должны идти в порядке ключей");
+        List<String> expectedValues = new ArrayList<>(expected.values());
+        for (int i = 0; i < expectedValues.size(); i++) {
+            assertEquals(expectedValues.get(i), map.values().get(i), "Значение по индексу не совпадает");
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(versionsValues.get(i), versions.get(i).values(), "Прежняя версия карты не должна меняться");
+        }
+    }
+
+    // Удаление отсутствующего ключа не создаёт новую карту, а исходная пустая карта остаётся пустой
+    @Test
+    void shouldNotChangeOnMissingKeyRemoval() {
+        PersistentSortedMap<Integer, String> empty = PersistentSortedMap.empty();
+        PersistentSortedMap<Integer, String> map = empty.put(1, "a").put(2, "b");
+
+        assertSame(map, map.remove(3), "Без удаляемого ключа должна возвращаться та же карта");
+        assertTrue(empty.isEmpty(), "Исходная карта не должна меняться");
+        assertThrows(IndexOutOfBoundsException.class, () -> map.values().get(2));
+        assertThrows(UnsupportedOperationException.class, () -> map.values().add("c"));
+    }
+}